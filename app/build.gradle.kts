@@ -29,6 +29,10 @@ android {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Robolectric needs merged resources and the manifest on the JVM test classpath
+        unitTests.isIncludeAndroidResources = true
+    }
 }
 
 dependencies {
@@ -46,6 +50,7 @@ dependencies {
     // No external chart library needed - using custom views
     
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times DatabaseHelper.getInstance followed by getReadableDatabase, the way screens and receivers get the
+ * database, against opening a helper of their own each time as they used to. Once the shared helper is open,
+ * the median call must stay within 20 µs.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseHelperInstanceBenchmarkTest {
+
+    private static final String TAG = "DatabaseHelperBenchmark";
+    // The per-screen helper of the old pattern; a separate file so the app's own database is left alone
+    private static final String DATABASE_NAME = "instance_benchmark.db";
+
+    private static final int WARMUP_RUNS = 100;
+    private static final int TIMED_RUNS = 5_000;
+    // Opening a helper of its own is far slower, so fewer runs give a stable median
+    private static final int OPEN_RUNS = 50;
+    private static final long BUDGET_NANOS = 20_000;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void sharedInstanceStaysWithinBudget() {
+        long start = System.nanoTime();
+        DatabaseHelper first = DatabaseHelper.getInstance(context);
+        first.getReadableDatabase();
+        double firstMs = (System.nanoTime() - start) / 1e6;
+
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            DatabaseHelper.getInstance(context).getReadableDatabase();
+        }
+        long[] shared = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            start = System.nanoTime();
+            DatabaseHelper helper = DatabaseHelper.getInstance(context);
+            helper.getReadableDatabase();
+            shared[i] = System.nanoTime() - start;
+            assertSame(first, helper);
+        }
+
+        long[] opened = new long[OPEN_RUNS];
+        for (int i = 0; i < OPEN_RUNS; i++) {
+            start = System.nanoTime();
+            DatabaseHelper helper = new DatabaseHelper(context, DATABASE_NAME);
+            helper.getReadableDatabase();
+            helper.close();
+            opened[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(shared);
+        Arrays.sort(opened);
+        long sharedMedian = shared[TIMED_RUNS / 2];
+        long openedMedian = opened[OPEN_RUNS / 2];
+        Log.i(TAG, String.format("first call %.2f ms; shared median %.2f µs, p95 %.2f µs; own helper median %.2f ms",
+                firstMs, sharedMedian / 1e3, shared[(int) (TIMED_RUNS * 0.95)] / 1e3, openedMedian / 1e6));
+
+        assertTrue(String.format("Shared median %.2f µs", sharedMedian / 1e3), sharedMedian <= BUDGET_NANOS);
+        assertTrue("Shared instance not faster than opening a helper", sharedMedian < openedMedian);
+    }
+}
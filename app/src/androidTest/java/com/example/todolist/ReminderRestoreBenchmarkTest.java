@@ -0,0 +1,94 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times restoring the reminder alarm as ReminderRestoreReceiver does after a reboot: a freshly opened database
+ * with reminders for 10,000 tasks, then ReminderScheduler.restore. The median cold restore must stay within 200 ms.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReminderRestoreBenchmarkTest {
+
+    private static final String TAG = "ReminderRestoreBenchmark";
+    private static final String DATABASE_NAME = "restore_benchmark.db";
+
+    private static final int TASK_COUNT = 10_000;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final int TIMED_RUNS = 10;
+    private static final long BUDGET_MS = 200;
+
+    private Context context;
+    private long earliest = Long.MAX_VALUE;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+
+        long now = System.currentTimeMillis();
+        List<ReminderScheduler.Reminder> reminders = new ArrayList<>();
+        for (int taskId = 1; taskId <= TASK_COUNT; taskId++) {
+            long deadlineAt = now + (taskId % 30 + 1) * DAY;
+            long fireAt = ReminderPolicy.DEFAULT.nextFireTime(deadlineAt, now);
+            reminders.add(new ReminderScheduler.Reminder(taskId, fireAt, deadlineAt, ReminderPolicy.DEFAULT));
+            earliest = Math.min(earliest, fireAt);
+        }
+        DatabaseHelper databaseHelper = new DatabaseHelper(context, DATABASE_NAME);
+        databaseHelper.saveReminders(reminders);
+        databaseHelper.close();
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void coldRestoreStaysWithinBudget() {
+        long[] nanos = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long[] armedAt = {ReminderScheduler.NONE};
+            ReminderScheduler.Alarm alarm = new ReminderScheduler.Alarm() {
+                @Override
+                public void arm(long triggerAtMillis) {
+                    armedAt[0] = triggerAtMillis;
+                }
+
+                @Override
+                public void disarm() {
+                    armedAt[0] = ReminderScheduler.NONE;
+                }
+            };
+
+            // Cold each time: the helper is opened by the restore, as in a process started for BOOT_COMPLETED
+            long start = System.nanoTime();
+            DatabaseHelper databaseHelper = new DatabaseHelper(context, DATABASE_NAME);
+            new ReminderScheduler(databaseHelper, alarm, System::currentTimeMillis).restore();
+            nanos[i] = System.nanoTime() - start;
+            databaseHelper.close();
+
+            assertEquals(earliest, armedAt[0]);
+        }
+
+        Arrays.sort(nanos);
+        double medianMs = nanos[TIMED_RUNS / 2] / 1e6;
+        Log.i(TAG, String.format("Restored reminder alarm for %d tasks: median %.2f ms, max %.2f ms",
+                TASK_COUNT, medianMs, nanos[TIMED_RUNS - 1] / 1e6));
+        assertTrue(String.format("Restore median %.2f ms", medianMs), medianMs <= BUDGET_MS);
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.todolist;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.flexbox.FlexboxLayout;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Scrolls the task list frame by frame and logs a frame-time histogram; once warmed up, binds must reuse
+ * each row's tag chips instead of inflating new ones, and 90% of frames must fit in 16 ms.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskListScrollBenchmarkTest {
+
+    private static final String TAG = "TaskListScrollBenchmark";
+
+    private static final int TASK_COUNT = 2_000;
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int SCROLL_STEP_PX = 90;
+    private static final long FRAME_BUDGET_NANOS = 16_000_000L;
+    // Upper bounds of the histogram buckets, in ms
+    private static final double[] BUCKETS_MS = {1, 2, 4, 8, 12, 16, 24, 33};
+
+    private static final String[] COLORS = {"#FF5722", "#4CAF50", "#2196F3", "#9C27B0", "#FFC107", "#607D8B",
+            "#E91E63", "#00BCD4"};
+
+    private final Random random = new Random(42);
+    private int chipInflations;
+    private int holdersCreated;
+
+    @Test
+    @SuppressWarnings("deprecation") // Thread allocation counting is deprecated but still reported by ART
+    public void scrollingReusesTagChips() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        instrumentation.runOnMainSync(() -> {
+            RecyclerView recyclerView = createList();
+            Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+
+            // Warm-up pass creates the holders and each holder's chips
+            scrollThrough(recyclerView, canvas, null);
+            recyclerView.scrollToPosition(0);
+            layout(recyclerView);
+
+            chipInflations = 0;
+            holdersCreated = 0;
+            List<Long> frames = new ArrayList<>();
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+            scrollThrough(recyclerView, canvas, frames);
+            Debug.stopAllocCounting();
+            int allocations = Debug.getThreadAllocCount();
+
+            long[] nanos = new long[frames.size()];
+            for (int i = 0; i < nanos.length; i++) {
+                nanos[i] = frames.get(i);
+            }
+            Arrays.sort(nanos);
+            Log.i(TAG, histogram(nanos));
+            Log.i(TAG, String.format("%d frames, median %.2f ms, p90 %.2f ms, %d allocations/frame, "
+                            + "%d holders created, %d chips inflated",
+                    nanos.length, nanos[nanos.length / 2] / 1e6, nanos[(int) (nanos.length * 0.9)] / 1e6,
+                    allocations / Math.max(1, nanos.length), holdersCreated, chipInflations));
+
+            // A new holder may still inflate its own chips; a rebound one never does
+            assertTrue("Chips inflated outside new holders: " + chipInflations,
+                    chipInflations <= holdersCreated * 3);
+            assertTrue("p90 frame over budget", nanos[(int) (nanos.length * 0.9)] <= FRAME_BUDGET_NANOS);
+            bitmap.recycle();
+        });
+    }
+
+    private RecyclerView createList() {
+        Context base = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        // Counts item_tag_chip inflations: a chip is the only layout inflated directly into a FlexboxLayout
+        Context context = new ContextThemeWrapper(base, R.style.Theme_Todolist) {
+            private LayoutInflater inflater;
+
+            @Override
+            public Object getSystemService(String name) {
+                if (!LAYOUT_INFLATER_SERVICE.equals(name)) {
+                    return super.getSystemService(name);
+                }
+                if (inflater == null) {
+                    inflater = LayoutInflater.from(getBaseContext()).cloneInContext(this);
+                    inflater.setFactory2(new LayoutInflater.Factory2() {
+                        @Override
+                        public View onCreateView(View parent, @NonNull String tagName, @NonNull Context viewContext,
+                                                 @NonNull AttributeSet attrs) {
+                            if (parent instanceof FlexboxLayout) {
+                                chipInflations++;
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public View onCreateView(@NonNull String tagName, @NonNull Context viewContext,
+                                                 @NonNull AttributeSet attrs) {
+                            return null;
+                        }
+                    });
+                }
+                return inflater;
+            }
+        };
+
+        TaskAdapter adapter = new TaskAdapter(context, createTasks()) {
+            @NonNull
+            @Override
+            public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+                holdersCreated++;
+                return super.onCreateViewHolder(parent, viewType);
+            }
+        };
+        RecyclerView recyclerView = new RecyclerView(context);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setAdapter(adapter);
+        layout(recyclerView);
+        return recyclerView;
+    }
+
+    private List<Task> createTasks() {
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < COLORS.length; i++) {
+            tags.add(new Tag(i + 1, "Tag " + (i + 1), COLORS[i]));
+        }
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < TASK_COUNT; i++) {
+            Task task = new Task("Task " + i, i % 3 == 0 ? "" : "Description for task " + i,
+                    i % 4 == 0 ? null : "Work");
+            task.setId(i + 1);
+            task.setCompleted(i % 5 == 0);
+            int tagCount = random.nextInt(6);
+            for (int t = 0; t < tagCount; t++) {
+                task.getTags().add(tags.get((i + t) % tags.size()));
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // One frame per step: scroll (which binds incoming rows), then lay out and draw
+    private void scrollThrough(RecyclerView recyclerView, Canvas canvas, List<Long> frames) {
+        while (recyclerView.canScrollVertically(1)) {
+            long start = System.nanoTime();
+            recyclerView.scrollBy(0, SCROLL_STEP_PX);
+            layout(recyclerView);
+            recyclerView.draw(canvas);
+            if (frames != null) {
+                frames.add(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void layout(RecyclerView recyclerView) {
+        recyclerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        recyclerView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    private String histogram(long[] sortedNanos) {
+        int[] counts = new int[BUCKETS_MS.length + 1];
+        for (long nanos : sortedNanos) {
+            int bucket = 0;
+            while (bucket < BUCKETS_MS.length && nanos / 1e6 > BUCKETS_MS[bucket]) {
+                bucket++;
+            }
+            counts[bucket]++;
+        }
+        StringBuilder text = new StringBuilder("Frame times:");
+        for (int i = 0; i < counts.length; i++) {
+            text.append(i < BUCKETS_MS.length
+                    ? String.format(" <=%.0fms:%d", BUCKETS_MS[i], counts[i])
+                    : String.format(" >%.0fms:%d", BUCKETS_MS[BUCKETS_MS.length - 1], counts[i]));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.todolist;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Times the search box's query on a 50,000-task database: DatabaseHelper.getTasks with the TaskQuery MainActivity
+ * builds for a search, title matches first. The median page must come back within 20 ms.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TaskSearchBenchmarkTest {
+
+    private static final String TAG = "TaskSearchBenchmark";
+    private static final String DATABASE_NAME = "search_benchmark.db";
+
+    private static final int TASK_COUNT = 50_000;
+    private static final int BATCH_SIZE = 5_000;
+    // MainActivity's page size
+    private static final int PAGE_SIZE = 30;
+    private static final int WARMUP_RUNS = 3;
+    private static final int TIMED_RUNS = 30;
+    private static final long BUDGET_MS = 20;
+
+    // Made-up words give a large vocabulary; a few real words recur often enough to match thousands of tasks
+    private static final String[] ONSETS = {"b", "c", "d", "g", "h", "k", "l", "m", "n", "p", "q", "r", "s", "t", "v",
+            "x", "ch", "nh", "ng", "th", "tr", "ph"};
+    private static final String[] VOWELS = {"a", "e", "i", "o", "u", "y", "ai", "oa", "uo", "ie"};
+    private static final String[] COMMON_WORDS = {"họp", "báo cáo", "meeting", "email", "deadline", "thanh toán"};
+    private static final String[] TOPICS = {"Công việc", "Cá nhân", "Học tập", "Work", "Home"};
+
+    private Context context;
+    private DatabaseHelper databaseHelper;
+    private final Random random = new Random(42);
+    private final List<String> vocabulary = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+        databaseHelper = new DatabaseHelper(context, DATABASE_NAME);
+
+        for (int i = 0; i < 5_000; i++) {
+            vocabulary.add(randomWord());
+        }
+        for (int start = 0; start < TASK_COUNT; start += BATCH_SIZE) {
+            List<Task> batch = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Task(randomText(3, 6), randomText(10, 25), TOPICS[random.nextInt(TOPICS.length)]));
+            }
+            databaseHelper.addTasks(batch);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        databaseHelper.close();
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void searchPageStaysWithinBudget() {
+        List<String> queries = Arrays.asList(
+                vocabulary.get(0),                                          // rare whole word
+                vocabulary.get(1).substring(0, 3),                          // short prefix
+                vocabulary.get(2) + " " + vocabulary.get(3).substring(0, 3), // two words
+                "meet",                                                     // prefix of a common word
+                "bao cao",                                                  // diacritics folded
+                "thanh");                                                   // common word, many hits
+
+        List<String> failures = new ArrayList<>();
+        for (String query : queries) {
+            TaskQuery taskQuery = searchQuery(query);
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                databaseHelper.getTasks(taskQuery, null, PAGE_SIZE);
+            }
+            long[] nanos = new long[TIMED_RUNS];
+            int found = 0;
+            for (int i = 0; i < TIMED_RUNS; i++) {
+                long start = System.nanoTime();
+                found = databaseHelper.getTasks(taskQuery, null, PAGE_SIZE).size();
+                nanos[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(nanos);
+            double medianMs = nanos[TIMED_RUNS / 2] / 1e6;
+            double p95Ms = nanos[(int) (TIMED_RUNS * 0.95)] / 1e6;
+            Log.i(TAG, String.format("\"%s\": %d results, median %.2f ms, p95 %.2f ms", query, found, medianMs, p95Ms));
+
+            assertTrue("No results for \"" + query + "\"", found > 0);
+            if (medianMs > BUDGET_MS) {
+                failures.add(String.format("\"%s\" median %.2f ms", query, medianMs));
+            }
+        }
+        assertTrue("Over " + BUDGET_MS + " ms:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    @Test
+    public void searchPagesFollowSearchTasksOrder() {
+        // A made-up word is in a few dozen titles and a few hundred descriptions, so the pages run from the
+        // title hits into the rest
+        String query = vocabulary.get(0);
+        List<Task> ranked = databaseHelper.searchTasks(query, 0, TASK_COUNT);
+        List<Task> paged = new ArrayList<>();
+        Task after = null;
+        List<Task> page;
+        do {
+            page = databaseHelper.getTasks(searchQuery(query), after, PAGE_SIZE);
+            paged.addAll(page);
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == PAGE_SIZE);
+
+        assertTrue(ranked.size() > PAGE_SIZE);
+        assertEquals(ranked.size(), paged.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            assertEquals(ranked.get(i).getId(), paged.get(i).getId());
+        }
+    }
+
+    // Same criteria as MainActivity.currentTaskQuery with only the search box filled in
+    private static TaskQuery searchQuery(String text) {
+        return new TaskQuery().text(text).sortBy(TaskQuery.Sort.RELEVANCE);
+    }
+
+    private String randomWord() {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(2);
+        for (int i = 0; i < syllables; i++) {
+            word.append(ONSETS[random.nextInt(ONSETS.length)]).append(VOWELS[random.nextInt(VOWELS.length)]);
+        }
+        return word.toString();
+    }
+
+    private String randomText(int minWords, int maxWords) {
+        int words = minWords + random.nextInt(maxWords - minWords + 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(random.nextInt(100) < 3
+                    ? COMMON_WORDS[random.nextInt(COMMON_WORDS.length)]
+                    : vocabulary.get(random.nextInt(vocabulary.size())));
+        }
+        return text.toString();
+    }
+}
@@ -6,12 +6,23 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.util.LruCache;
+import androidx.annotation.VisibleForTesting;
+import org.json.JSONException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
-public class DatabaseHelper extends SQLiteOpenHelper {
+public class DatabaseHelper extends SQLiteOpenHelper implements ReminderScheduler.Store {
     private static final String DATABASE_NAME = "todo.db";
-    private static final int DATABASE_VERSION = 5;
+    private static final int DATABASE_VERSION = 15;
     private static final String TABLE_TASKS = "tasks";
     private static final String TABLE_TAGS = "tags";
     private static final String TABLE_TASK_TAGS = "task_tags";
@@ -27,17 +38,300 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String COLUMN_REMINDER_ENABLED = "reminder_enabled";
     private static final String COLUMN_REMINDER_TIME = "reminder_time";
     private static final String COLUMN_COMPLETED_DATE = "completed_date";
+    // Epoch millis (NULL when unset) mirroring the text dates above; queries and sorting use these
+    private static final String COLUMN_CREATED_AT = "created_at";
+    private static final String COLUMN_DEADLINE_AT = "deadline_at";
+    private static final String COLUMN_REMINDER_AT = "reminder_at";
+    private static final String COLUMN_COMPLETED_AT = "completed_at";
+    // ReminderPolicy.format() text on tasks, tags and reminders; NULL on a task or tag for no policy of its own
+    private static final String COLUMN_REMINDER_POLICY = "reminder_policy";
+    // Local 'yyyy-MM-dd' days of created_at, of the completion (completed tasks only) and of deadline_at,
+    // fixed when the row is written. daily_stats counts by these, so a later time zone change cannot make
+    // an update or delete subtract from a different day than the insert added to.
+    private static final String COLUMN_CREATED_DAY = "created_day";
+    private static final String COLUMN_COMPLETED_DAY = "completed_day";
+    private static final String COLUMN_DEADLINE_DAY = "deadline_day";
 
     // Tags table columns
     private static final String COLUMN_TAG_ID = "tag_id";
     private static final String COLUMN_TAG_NAME = "tag_name";
     private static final String COLUMN_TAG_COLOR = "tag_color";
+    // Number of task_tags rows for the tag, maintained by triggers on task_tags
+    private static final String COLUMN_TAG_USAGE_COUNT = "usage_count";
+    private static final String TRIGGER_TAG_USAGE_INSERT = "trg_task_tags_usage_insert";
+    private static final String TRIGGER_TAG_USAGE_DELETE = "trg_task_tags_usage_delete";
+    private static final String TRIGGER_TAG_USAGE_UPDATE = "trg_task_tags_usage_update";
 
     // Task_Tags table columns
     private static final String COLUMN_TASK_ID = "task_id";
 
-    public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // daily_stats rollup: one row per local day and topic ('' for none), maintained by triggers on tasks.
+    // Tasks count as created on their created_day and as completed on their completed_day.
+    private static final String TABLE_DAILY_STATS = "daily_stats";
+    private static final String COLUMN_STATS_DAY = "day";
+    private static final String COLUMN_CREATED_COUNT = "created_count";
+    private static final String COLUMN_COMPLETED_COUNT = "completed_count";
+    // Completed tasks that had a deadline and a completion time, and how many of those were on time
+    private static final String COLUMN_DEADLINE_COUNT = "deadline_count";
+    private static final String COLUMN_ON_TIME_COUNT = "on_time_count";
+    // Sum of whole days from creation to completion, over duration_count tasks that have both times
+    private static final String COLUMN_DURATION_DAYS = "duration_days_total";
+    private static final String COLUMN_DURATION_COUNT = "duration_count";
+    private static final String TRIGGER_STATS_INSERT = "trg_tasks_stats_insert";
+    private static final String TRIGGER_STATS_UPDATE = "trg_tasks_stats_update";
+    private static final String TRIGGER_STATS_DELETE = "trg_tasks_stats_delete";
+
+    // Full-text index over title/description/topic. External content: the text lives only in tasks and
+    // docid = tasks.id, so triggers on tasks keep the index in step.
+    private static final String TABLE_TASKS_FTS = "tasks_fts";
+    private static final String TRIGGER_FTS_INSERT = "trg_tasks_fts_insert";
+    private static final String TRIGGER_FTS_DELETE = "trg_tasks_fts_delete";
+    private static final String TRIGGER_FTS_BEFORE_UPDATE = "trg_tasks_fts_before_update";
+    private static final String TRIGGER_FTS_AFTER_UPDATE = "trg_tasks_fts_after_update";
+
+    // Single-row widget_snapshot table: the widget's due-soon list, rewritten inside every task write's
+    // transaction so the widget reads one row instead of querying tasks
+    private static final String TABLE_WIDGET_SNAPSHOT = "widget_snapshot";
+    private static final String COLUMN_SNAPSHOT_DAY_START = "day_start";
+    private static final String COLUMN_SNAPSHOT_TASK_COUNT = "task_count";
+    // JSON list of the shown tasks, see WidgetSnapshot
+    private static final String COLUMN_SNAPSHOT_TASKS = "tasks";
+    private static final String COLUMN_SNAPSHOT_UPDATED_AT = "updated_at";
+    private static final int WIDGET_SNAPSHOT_ROW = 1;
+
+    // Each task's next reminder with the deadline and policy that give the one after it; ReminderScheduler
+    // arms an alarm for the earliest only
+    private static final String TABLE_REMINDERS = "reminders";
+    private static final String COLUMN_FIRE_AT = "fire_at";
+
+    // Secondary indexes
+    private static final String INDEX_TASKS_TOPIC = "idx_tasks_topic";
+    private static final String INDEX_TASKS_COMPLETED = "idx_tasks_completed";
+    // Text deadline index from version 6, dropped in favour of idx_tasks_deadline_at
+    private static final String INDEX_TASKS_DEADLINE = "idx_tasks_deadline";
+    private static final String INDEX_TASKS_DEADLINE_AT = "idx_tasks_deadline_at";
+    private static final String INDEX_TASKS_COMPLETED_AT = "idx_tasks_completed_at";
+    private static final String INDEX_TASKS_DUE = "idx_tasks_due";
+    private static final String INDEX_TASK_TAGS_TAG = "idx_task_tags_tag";
+    private static final String INDEX_REMINDERS_FIRE_AT = "idx_reminders_fire_at";
+
+    // Cursor value for the first call to getTasksPage/getTasksByTags
+    public static final int FIRST_PAGE = 0;
+
+    // getTasksByTags: tasks with at least one of the tags (OR) or with every one of them (AND)
+    public enum TagMatchMode {
+        ANY,
+        ALL
+    }
+
+    // Chart ranges on the statistics screen
+    private static final int STATS_WEEKS = 4;
+    private static final int STATS_MONTHS = 6;
+
+    // limit value for getIncompleteTasksDueBetween that returns every matching row (SQLite LIMIT -1)
+    public static final int NO_LIMIT = -1;
+
+    // Shorter search words match whole words only; a one-letter prefix expands to most of the index
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    // Tasks kept by getTaskById; enough for the detail/edit screens and reminder bursts
+    private static final int TASK_CACHE_SIZE = 200;
+
+    // SQLite limits bound parameters per statement (999 on older platform versions)
+    private static final int MAX_SQL_VARIABLES = 999;
+
+    // Prepared statements kept per connection (the platform maximum; the default of 25 is fewer than
+    // the fixed queries below), and distinct TaskQuery shapes whose SQL text is kept
+    private static final int SQL_CACHE_SIZE = SQLiteDatabase.MAX_SQL_CACHE_SIZE;
+    private static final int TASK_QUERY_SHAPES = 32;
+
+    // Read queries. Every SQL_ constant is checked by QueryPlanTest, so new queries
+    // added here need an index (or an entry in that test's full-scan allowlist)
+    static final String SQL_ALL_TASKS = "SELECT * FROM " + TABLE_TASKS + " ORDER BY " + COLUMN_ID + " DESC";
+    // Keyset pages: each page starts below the last id already shown, so deep pages cost the same as the first
+    static final String SQL_TASKS_PAGE = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " < ? ORDER BY " + COLUMN_ID + " DESC LIMIT ?";
+    static final String SQL_TASKS_BY_TOPIC = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ? ORDER BY " + COLUMN_ID + " DESC";
+    static final String SQL_TASKS_BY_TOPIC_PAGE = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ? AND "
+            + COLUMN_ID + " < ? ORDER BY " + COLUMN_ID + " DESC LIMIT ?";
+    static final String SQL_TASK_BY_ID = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " = ?";
+    static final String SQL_ALL_TOPICS = "SELECT DISTINCT " + COLUMN_TOPIC + " FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " IS NOT NULL";
+    static final String SQL_COUNT_TASKS = "SELECT COUNT(*) FROM " + TABLE_TASKS;
+    static final String SQL_COUNT_TASKS_BY_TOPIC = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ?";
+    static final String SQL_COMPLETED_TASKS = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 1 ORDER BY " + COLUMN_ID + " DESC";
+    // Half-open [start, end) range on the completion time. completed_at is only stored for
+    // completed tasks, so no is_completed filter (which would steer SQLite onto the other index)
+    static final String SQL_TASKS_COMPLETED_IN_PERIOD = "SELECT * FROM " + TABLE_TASKS
+            + " WHERE " + COLUMN_COMPLETED_AT + " >= ? AND " + COLUMN_COMPLETED_AT + " < ?"
+            + " ORDER BY " + COLUMN_COMPLETED_AT;
+    static final String SQL_COUNT_COMPLETED = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 1";
+    static final String SQL_COUNT_PENDING = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 0";
+    static final String SQL_TASKS_WITH_DEADLINES = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_DEADLINE_AT + " > 0"
+            + " ORDER BY " + COLUMN_DEADLINE_AT;
+    // Due-soon lists: open tasks with a deadline in [start, end], soonest first. Both run
+    // entirely inside idx_tasks_due, the count without touching the table at all
+    static final String SQL_INCOMPLETE_TASKS_DUE_BETWEEN = "SELECT * FROM " + TABLE_TASKS
+            + " WHERE " + COLUMN_IS_COMPLETED + " = 0 AND " + COLUMN_DEADLINE_AT + " >= ? AND " + COLUMN_DEADLINE_AT + " <= ?"
+            + " ORDER BY " + COLUMN_DEADLINE_AT + ", " + COLUMN_ID + " LIMIT ?";
+    static final String SQL_COUNT_INCOMPLETE_TASKS_DUE_BETWEEN = "SELECT COUNT(*) FROM " + TABLE_TASKS
+            + " WHERE " + COLUMN_IS_COMPLETED + " = 0 AND " + COLUMN_DEADLINE_AT + " >= ? AND " + COLUMN_DEADLINE_AT + " <= ?";
+    // Just the columns the widget snapshot keeps; same range and order as SQL_INCOMPLETE_TASKS_DUE_BETWEEN
+    static final String SQL_WIDGET_DUE_TASKS = "SELECT " + COLUMN_TITLE + ", " + COLUMN_DEADLINE_AT + " FROM " + TABLE_TASKS
+            + " WHERE " + COLUMN_IS_COMPLETED + " = 0 AND " + COLUMN_DEADLINE_AT + " >= ? AND " + COLUMN_DEADLINE_AT + " <= ?"
+            + " ORDER BY " + COLUMN_DEADLINE_AT + ", " + COLUMN_ID + " LIMIT ?";
+    static final String SQL_WIDGET_SNAPSHOT = "SELECT * FROM " + TABLE_WIDGET_SNAPSHOT + " WHERE " + COLUMN_ID + " = ?";
+    // Reminder queue; both go through the fire_at index
+    static final String SQL_NEXT_REMINDER_TIME = "SELECT MIN(" + COLUMN_FIRE_AT + ") FROM " + TABLE_REMINDERS;
+    static final String SQL_DUE_REMINDERS = "SELECT " + COLUMN_TASK_ID + ", " + COLUMN_FIRE_AT + ", " + COLUMN_DEADLINE_AT + ", "
+            + COLUMN_REMINDER_POLICY + " FROM " + TABLE_REMINDERS + " WHERE " + COLUMN_FIRE_AT + " <= ? ORDER BY " + COLUMN_FIRE_AT;
+    // Open tasks that may still have reminders ahead; fills the reminders table on upgrade and finds the
+    // tasks whose alarms from before that table are cancelled
+    static final String SQL_TASKS_WITH_REMINDERS = "SELECT " + COLUMN_ID + ", " + COLUMN_DEADLINE_AT + ", " + COLUMN_REMINDER_POLICY
+            + " FROM " + TABLE_TASKS
+            + " WHERE " + COLUMN_IS_COMPLETED + " = 0 AND " + COLUMN_DEADLINE_AT + " >= ? AND " + COLUMN_REMINDER_ENABLED + " = 1";
+    // Statistics screen, read from the daily_stats rollup. Totals add up every (day, topic) row,
+    // which is bounded by days of use rather than by the number of tasks
+    static final String SQL_STATS_TOTALS = "SELECT SUM(" + COLUMN_CREATED_COUNT + "), SUM(" + COLUMN_COMPLETED_COUNT + "), "
+            + "SUM(" + COLUMN_DURATION_DAYS + "), SUM(" + COLUMN_DURATION_COUNT + "), "
+            + "SUM(" + COLUMN_DEADLINE_COUNT + "), SUM(" + COLUMN_ON_TIME_COUNT + ") FROM " + TABLE_DAILY_STATS;
+    // Completions per 7-day window counted from the first bound day; days are 'yyyy-MM-dd' so ranges compare as text
+    static final String SQL_STATS_WEEKLY = "SELECT CAST((julianday(" + COLUMN_STATS_DAY + ") - julianday(?)) / 7 AS INTEGER) AS week, "
+            + "SUM(" + COLUMN_COMPLETED_COUNT + ") FROM " + TABLE_DAILY_STATS
+            + " WHERE " + COLUMN_STATS_DAY + " >= ? AND " + COLUMN_STATS_DAY + " < ? GROUP BY week";
+    static final String SQL_STATS_MONTHLY = "SELECT substr(" + COLUMN_STATS_DAY + ", 6, 2) || '/' || substr(" + COLUMN_STATS_DAY + ", 1, 4) AS month, "
+            + "SUM(" + COLUMN_COMPLETED_COUNT + ") FROM " + TABLE_DAILY_STATS
+            + " WHERE " + COLUMN_STATS_DAY + " >= ? AND " + COLUMN_STATS_DAY + " < ? GROUP BY month";
+    // What daily_stats should contain, aggregated from the raw tasks table (rebuild and consistency checks)
+    static final String SQL_DAILY_STATS_FROM_TASKS = "SELECT " + COLUMN_STATS_DAY + ", " + COLUMN_TOPIC + ", "
+            + "SUM(created), SUM(completed), SUM(deadline), SUM(on_time), SUM(duration), SUM(timed) FROM ("
+            + "SELECT " + storedDay("", COLUMN_CREATED_DAY) + " AS " + COLUMN_STATS_DAY + ", COALESCE(" + COLUMN_TOPIC + ", '') AS " + COLUMN_TOPIC + ", "
+            + "1 AS created, 0 AS completed, 0 AS deadline, 0 AS on_time, 0 AS duration, 0 AS timed FROM " + TABLE_TASKS
+            + " UNION ALL SELECT " + storedDay("", COLUMN_COMPLETED_DAY) + ", COALESCE(" + COLUMN_TOPIC + ", ''), 0, 1, "
+            + hasDeadlineAndCompletion("") + ", " + completedOnTime("") + ", " + durationDays("") + ", " + hasDuration("")
+            + " FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 1"
+            + ") GROUP BY " + COLUMN_STATS_DAY + ", " + COLUMN_TOPIC;
+    // Title hits first, then newest. Ranking and paging happen on docids inside the FTS index; tasks rows
+    // are read only for the page returned. Binds: title-only MATCH, full MATCH, limit, offset.
+    static final String SQL_SEARCH_TASKS = "SELECT t.* FROM (SELECT docid, docid IN (SELECT docid FROM " + TABLE_TASKS_FTS
+            + " WHERE " + TABLE_TASKS_FTS + " MATCH ?) AS title_hit FROM " + TABLE_TASKS_FTS + " WHERE " + TABLE_TASKS_FTS
+            + " MATCH ? ORDER BY title_hit DESC, docid DESC LIMIT ? OFFSET ?) hits JOIN " + TABLE_TASKS + " t ON t."
+            + COLUMN_ID + " = hits.docid ORDER BY hits.title_hit DESC, hits.docid DESC";
+
+    // Whether a task is among the title hits of a search; decides where the next RELEVANCE page of getTasks starts
+    static final String SQL_IS_TITLE_HIT = "SELECT docid FROM " + TABLE_TASKS_FTS + " WHERE docid = ? AND "
+            + TABLE_TASKS_FTS + " MATCH ?";
+
+    static final String SQL_TAG_BY_ID = "SELECT * FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_ID + " = ?";
+    static final String SQL_ALL_TAGS = "SELECT * FROM " + TABLE_TAGS + " ORDER BY " + COLUMN_TAG_NAME;
+    // Tag filter chips: tags in use with their task counts. Reads the counters, so the cost is the (small) tags table
+    static final String SQL_TAG_USAGE_COUNTS = "SELECT * FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_USAGE_COUNT
+            + " > 0 ORDER BY " + COLUMN_TAG_NAME;
+    // What usage_count should be, counted from task_tags (consistency checks)
+    static final String SQL_TAG_USAGE_FROM_TASK_TAGS = "SELECT " + COLUMN_TAG_ID + ", COUNT(*) FROM " + TABLE_TASK_TAGS
+            + " GROUP BY " + COLUMN_TAG_ID;
+    static final String SQL_TAG_BY_NAME = "SELECT * FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_NAME + " = ?";
+    static final String SQL_COUNT_TAGS_BY_NAME = "SELECT COUNT(*) FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_NAME + " = ?";
+    static final String SQL_TAGS_FOR_TASK = "SELECT t.* FROM " + TABLE_TAGS + " t JOIN " + TABLE_TASK_TAGS
+            + " tt ON t." + COLUMN_TAG_ID + " = tt." + COLUMN_TAG_ID + " WHERE tt." + COLUMN_TASK_ID + " = ?";
+    // Unfiltered; loadTagsForTasks appends an IN (...) filter for result sets that fit in one statement
+    static final String SQL_TASK_TAG_ROWS = "SELECT tt." + COLUMN_TASK_ID + ", t.* FROM " + TABLE_TASK_TAGS + " tt JOIN " + TABLE_TAGS
+            + " t ON t." + COLUMN_TAG_ID + " = tt." + COLUMN_TAG_ID;
+
+    // Write statements, compiled once per transaction and re-bound for every row
+    static final String SQL_INSERT_TASK = "INSERT INTO " + TABLE_TASKS + " ("
+            + COLUMN_TITLE + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_TOPIC + ", " + COLUMN_IS_COMPLETED + ", "
+            + COLUMN_CREATED_DATE + ", " + COLUMN_DEADLINE + ", " + COLUMN_REMINDER_ENABLED + ", "
+            + COLUMN_REMINDER_TIME + ", " + COLUMN_COMPLETED_DATE + ", "
+            + COLUMN_CREATED_AT + ", " + COLUMN_DEADLINE_AT + ", " + COLUMN_REMINDER_AT + ", " + COLUMN_COMPLETED_AT + ", "
+            + COLUMN_REMINDER_POLICY + ", " + COLUMN_CREATED_DAY + ", " + COLUMN_COMPLETED_DAY + ", " + COLUMN_DEADLINE_DAY
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String SQL_UPDATE_TASK = "UPDATE " + TABLE_TASKS + " SET "
+            + COLUMN_TITLE + " = ?, " + COLUMN_DESCRIPTION + " = ?, " + COLUMN_TOPIC + " = ?, " + COLUMN_IS_COMPLETED + " = ?, "
+            + COLUMN_DEADLINE + " = ?, " + COLUMN_REMINDER_ENABLED + " = ?, " + COLUMN_REMINDER_TIME + " = ?, "
+            + COLUMN_COMPLETED_DATE + " = ?, " + COLUMN_DEADLINE_AT + " = ?, " + COLUMN_REMINDER_AT + " = ?, "
+            + COLUMN_COMPLETED_AT + " = ?, " + COLUMN_REMINDER_POLICY + " = ?, " + COLUMN_COMPLETED_DAY + " = ?, "
+            + COLUMN_DEADLINE_DAY + " = ? WHERE " + COLUMN_ID + " = ?";
+    static final String SQL_DELETE_TASK = "DELETE FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " = ?";
+    // OR IGNORE: a tag listed twice for one task is a no-op rather than a constraint error
+    static final String SQL_INSERT_TASK_TAG = "INSERT OR IGNORE INTO " + TABLE_TASK_TAGS
+            + " (" + COLUMN_TASK_ID + ", " + COLUMN_TAG_ID + ") VALUES (?, ?)";
+    static final String SQL_DELETE_TASK_TAGS = "DELETE FROM " + TABLE_TASK_TAGS + " WHERE " + COLUMN_TASK_ID + " = ?";
+    static final String SQL_DELETE_TAG_LINKS = "DELETE FROM " + TABLE_TASK_TAGS + " WHERE " + COLUMN_TAG_ID + " = ?";
+    static final String SQL_SAVE_WIDGET_SNAPSHOT = "INSERT OR REPLACE INTO " + TABLE_WIDGET_SNAPSHOT + " ("
+            + COLUMN_ID + ", " + COLUMN_SNAPSHOT_DAY_START + ", " + COLUMN_SNAPSHOT_TASK_COUNT + ", "
+            + COLUMN_SNAPSHOT_TASKS + ", " + COLUMN_SNAPSHOT_UPDATED_AT + ") VALUES (?, ?, ?, ?, ?)";
+    static final String SQL_SAVE_REMINDER = "INSERT OR REPLACE INTO " + TABLE_REMINDERS + " (" + COLUMN_TASK_ID + ", "
+            + COLUMN_FIRE_AT + ", " + COLUMN_DEADLINE_AT + ", " + COLUMN_REMINDER_POLICY + ") VALUES (?, ?, ?, ?)";
+    static final String SQL_DELETE_TASK_REMINDERS = "DELETE FROM " + TABLE_REMINDERS + " WHERE " + COLUMN_TASK_ID + " = ?";
+    // Version 7 backfill of the *_at columns
+    private static final String SQL_BACKFILL_DATES = "UPDATE " + TABLE_TASKS + " SET "
+            + COLUMN_CREATED_AT + " = ?, " + COLUMN_DEADLINE_AT + " = ?, " + COLUMN_REMINDER_AT + " = ?, "
+            + COLUMN_COMPLETED_AT + " = ? WHERE " + COLUMN_ID + " = ?";
+
+    private static DatabaseHelper instance;
+
+    // SQL text per TaskQuery shape: which criteria are set, how many tags, sort and page position.
+    // Connections cache compiled statements by SQL text, so one text per shape means each shape is
+    // compiled once per connection and later pages and refreshes only rebind values.
+    private static final LruCache<String, String> taskQuerySqlByShape = new LruCache<>(TASK_QUERY_SHAPES);
+
+    // Invalidated by every write below, after its transaction ends
+    private final TaskCache taskCache = new TaskCache(TASK_CACHE_SIZE);
+
+    // SQL fragments shared by the daily_stats triggers and SQL_DAILY_STATS_FROM_TASKS; row is "", "NEW." or "OLD."
+    private static String storedDay(String row, String dayColumn) {
+        return "COALESCE(" + row + dayColumn + ", '')";
+    }
+
+    private static String hasDeadlineAndCompletion(String row) {
+        return "(" + row + COLUMN_DEADLINE_AT + " IS NOT NULL AND " + row + COLUMN_COMPLETED_AT + " IS NOT NULL)";
+    }
+
+    // Finished on or before the deadline's local calendar day; days are 'yyyy-MM-dd' so they compare as text
+    private static String completedOnTime(String row) {
+        return "(" + row + COLUMN_DEADLINE_AT + " IS NOT NULL AND " + row + COLUMN_COMPLETED_AT + " IS NOT NULL AND "
+                + row + COLUMN_COMPLETED_DAY + " <= " + row + COLUMN_DEADLINE_DAY + ")";
+    }
+
+    private static String durationDays(String row) {
+        return "COALESCE(ABS(" + row + COLUMN_COMPLETED_AT + " - " + row + COLUMN_CREATED_AT + ") / 86400000, 0)";
+    }
+
+    private static String hasDuration(String row) {
+        return "(" + row + COLUMN_CREATED_AT + " IS NOT NULL AND " + row + COLUMN_COMPLETED_AT + " IS NOT NULL)";
+    }
+
+    // One helper (and so one connection pool) per process; callers must not close it
+    public static synchronized DatabaseHelper getInstance(Context context) {
+        if (instance == null) {
+            instance = new DatabaseHelper(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Tests only: Robolectric closes every database between tests, leaving the singleton unusable
+    @VisibleForTesting
+    static synchronized void resetInstance() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    private DatabaseHelper(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    // Tests only: a separate database file that leaves the app's own data alone
+    @VisibleForTesting
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+        // WAL lets readers run alongside a writer instead of blocking on it
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.setMaxSqlCacheSize(SQL_CACHE_SIZE);
     }
 
     @SuppressLint("Range")
@@ -82,8 +376,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 task.setCompletedDate(null);
             }
 
-            // Load tags for this task
-            task.setTags(getTagsForTask(task.getId()));
+            // After the text setters, so the stored millis win and nothing is re-parsed
+            task.setCreatedAt(getMillis(cursor, COLUMN_CREATED_AT));
+            task.setDeadlineAt(getMillis(cursor, COLUMN_DEADLINE_AT));
+            task.setReminderAt(getMillis(cursor, COLUMN_REMINDER_AT));
+            task.setCompletedAt(getMillis(cursor, COLUMN_COMPLETED_AT));
+            task.setReminderPolicy(getReminderPolicy(cursor));
 
         } catch (IllegalArgumentException e) {
             android.util.Log.e("DatabaseHelper", "Error reading cursor data: " + e.getMessage());
@@ -93,6 +391,32 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return task;
     }
 
+    private static long getMillis(Cursor cursor, String column) {
+        int index = cursor.getColumnIndex(column);
+        if (index == -1 || cursor.isNull(index)) {
+            return TaskDates.NO_DATE;
+        }
+        return cursor.getLong(index);
+    }
+
+    // An unreadable policy counts as none, so the task or tag falls back to the next one in line
+    private static ReminderPolicy getReminderPolicy(Cursor cursor) {
+        int index = cursor.getColumnIndex(COLUMN_REMINDER_POLICY);
+        if (index == -1 || cursor.isNull(index)) {
+            return null;
+        }
+        return parseReminderPolicy(cursor.getString(index));
+    }
+
+    private static ReminderPolicy parseReminderPolicy(String text) {
+        try {
+            return ReminderPolicy.parse(text);
+        } catch (IllegalArgumentException e) {
+            android.util.Log.e("DatabaseHelper", "Unreadable reminder policy: " + text, e);
+            return null;
+        }
+    }
+
     @SuppressLint("Range")
     private Tag createTagFromCursor(Cursor cursor) {
         Tag tag = new Tag();
@@ -100,6 +424,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             tag.setId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_TAG_ID)));
             tag.setName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TAG_NAME)));
             tag.setColor(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TAG_COLOR)));
+            tag.setReminderPolicy(getReminderPolicy(cursor));
         } catch (IllegalArgumentException e) {
             android.util.Log.e("DatabaseHelper", "Error reading tag cursor data: " + e.getMessage());
             return null;
@@ -107,6 +432,79 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return tag;
     }
 
+    // Run a task query and attach tags to every row with a single extra query
+    private List<Task> queryTasks(SQLiteDatabase db, String selectQuery, String[] selectionArgs) {
+        List<Task> tasks = new ArrayList<>();
+        Cursor cursor = db.rawQuery(selectQuery, selectionArgs);
+
+        if (cursor.moveToFirst()) {
+            do {
+                Task task = createTaskFromCursor(cursor);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            } while (cursor.moveToNext());
+        }
+        cursor.close();
+
+        loadTagsForTasks(db, tasks);
+        return tasks;
+    }
+
+    // Bulk tag hydration: pull the task_tags/tags rows for the whole result set and join them in memory
+    private void loadTagsForTasks(SQLiteDatabase db, List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Task> tasksById = new HashMap<>();
+        for (Task task : tasks) {
+            tasksById.put(task.getId(), task);
+        }
+
+        String selectQuery = SQL_TASK_TAG_ROWS;
+        String[] selectionArgs = null;
+
+        // Small result sets filter by id; large ones read the whole junction table once
+        // and drop unrelated rows below, which keeps it to one query either way
+        if (tasksById.size() <= MAX_SQL_VARIABLES) {
+            StringBuilder placeholders = new StringBuilder();
+            selectionArgs = new String[tasksById.size()];
+            int i = 0;
+            for (Integer taskId : tasksById.keySet()) {
+                placeholders.append(i == 0 ? "?" : ",?");
+                selectionArgs[i++] = String.valueOf(taskId);
+            }
+            selectQuery += " WHERE tt." + COLUMN_TASK_ID + " IN (" + placeholders + ")";
+        }
+
+        // Tasks sharing a tag share the same Tag instance
+        Map<Integer, Tag> tagsById = new HashMap<>();
+        Cursor cursor = db.rawQuery(selectQuery, selectionArgs);
+
+        if (cursor.moveToFirst()) {
+            int taskIdIndex = cursor.getColumnIndexOrThrow(COLUMN_TASK_ID);
+            int tagIdIndex = cursor.getColumnIndexOrThrow(COLUMN_TAG_ID);
+            do {
+                Task task = tasksById.get(cursor.getInt(taskIdIndex));
+                if (task == null) {
+                    continue;
+                }
+                int tagId = cursor.getInt(tagIdIndex);
+                Tag tag = tagsById.get(tagId);
+                if (tag == null) {
+                    tag = createTagFromCursor(cursor);
+                    if (tag == null) {
+                        continue;
+                    }
+                    tagsById.put(tagId, tag);
+                }
+                task.getTags().add(tag);
+            } while (cursor.moveToNext());
+        }
+        cursor.close();
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Create tasks table
@@ -120,7 +518,15 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + COLUMN_DEADLINE + " TEXT,"
                 + COLUMN_REMINDER_ENABLED + " INTEGER DEFAULT 0,"
                 + COLUMN_REMINDER_TIME + " TEXT,"
-                + COLUMN_COMPLETED_DATE + " TEXT"
+                + COLUMN_COMPLETED_DATE + " TEXT,"
+                + COLUMN_CREATED_AT + " INTEGER,"
+                + COLUMN_DEADLINE_AT + " INTEGER,"
+                + COLUMN_REMINDER_AT + " INTEGER,"
+                + COLUMN_COMPLETED_AT + " INTEGER,"
+                + COLUMN_REMINDER_POLICY + " TEXT,"
+                + COLUMN_CREATED_DAY + " TEXT,"
+                + COLUMN_COMPLETED_DAY + " TEXT,"
+                + COLUMN_DEADLINE_DAY + " TEXT"
                 + ")";
         db.execSQL(createTasksTable);
 
@@ -128,7 +534,9 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         String createTagsTable = "CREATE TABLE " + TABLE_TAGS + "("
                 + COLUMN_TAG_ID + " INTEGER PRIMARY KEY AUTOINCREMENT,"
                 + COLUMN_TAG_NAME + " TEXT NOT NULL UNIQUE,"
-                + COLUMN_TAG_COLOR + " TEXT NOT NULL"
+                + COLUMN_TAG_COLOR + " TEXT NOT NULL,"
+                + COLUMN_TAG_USAGE_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_REMINDER_POLICY + " TEXT"
                 + ")";
         db.execSQL(createTagsTable);
 
@@ -142,10 +550,267 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                 + ")";
         db.execSQL(createTaskTagsTable);
 
+        createIndexes(db);
+        createDateIndexes(db);
+        createDailyStats(db);
+        createFullTextIndex(db);
+        createTagUsageTriggers(db);
+        createWidgetSnapshot(db);
+        createReminders(db);
+
         // Insert some default tags
         insertDefaultTags(db);
     }
 
+    private void createIndexes(SQLiteDatabase db) {
+        // Topic filter and its id-ordered pages
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASKS_TOPIC + " ON " + TABLE_TASKS
+                + "(" + COLUMN_TOPIC + ", " + COLUMN_ID + ")");
+        // Completed/pending lists and counts
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASKS_COMPLETED + " ON " + TABLE_TASKS
+                + "(" + COLUMN_IS_COMPLETED + ", " + COLUMN_ID + ")");
+        // Reverse lookup tag -> tasks; the primary key only covers task -> tags
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASK_TAGS_TAG + " ON " + TABLE_TASK_TAGS
+                + "(" + COLUMN_TAG_ID + ", " + COLUMN_TASK_ID + ")");
+    }
+
+    private void createDateIndexes(SQLiteDatabase db) {
+        // Deadline ranges (due soon, overdue) and deadline ordering
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASKS_DEADLINE_AT + " ON " + TABLE_TASKS
+                + "(" + COLUMN_DEADLINE_AT + ")");
+        // Completion ranges for statistics
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASKS_COMPLETED_AT + " ON " + TABLE_TASKS
+                + "(" + COLUMN_COMPLETED_AT + ")");
+        // Open tasks by deadline (dashboard "due next week" section and the widget)
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_TASKS_DUE + " ON " + TABLE_TASKS
+                + "(" + COLUMN_IS_COMPLETED + ", " + COLUMN_DEADLINE_AT + ")");
+    }
+
+    private void createDailyStats(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_DAILY_STATS + "("
+                + COLUMN_STATS_DAY + " TEXT NOT NULL,"
+                + COLUMN_TOPIC + " TEXT NOT NULL,"
+                + COLUMN_CREATED_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_COMPLETED_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_DEADLINE_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_ON_TIME_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_DURATION_DAYS + " INTEGER NOT NULL DEFAULT 0,"
+                + COLUMN_DURATION_COUNT + " INTEGER NOT NULL DEFAULT 0,"
+                + "PRIMARY KEY (" + COLUMN_STATS_DAY + ", " + COLUMN_TOPIC + ")"
+                + ")");
+
+        // Triggers run inside whichever transaction changes tasks, so the rollup never drifts from it
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_STATS_INSERT + " AFTER INSERT ON " + TABLE_TASKS
+                + " BEGIN " + rollupStatements("NEW.", "+") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_STATS_DELETE + " AFTER DELETE ON " + TABLE_TASKS
+                + " BEGIN " + rollupStatements("OLD.", "-") + " END");
+        // updateTask rewrites every column, so only react when a counted value actually changed
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_STATS_UPDATE + " AFTER UPDATE ON " + TABLE_TASKS
+                + " WHEN OLD." + COLUMN_TOPIC + " IS NOT NEW." + COLUMN_TOPIC
+                + " OR OLD." + COLUMN_IS_COMPLETED + " IS NOT NEW." + COLUMN_IS_COMPLETED
+                + " OR OLD." + COLUMN_CREATED_AT + " IS NOT NEW." + COLUMN_CREATED_AT
+                + " OR OLD." + COLUMN_COMPLETED_AT + " IS NOT NEW." + COLUMN_COMPLETED_AT
+                + " OR OLD." + COLUMN_DEADLINE_AT + " IS NOT NEW." + COLUMN_DEADLINE_AT
+                + " OR OLD." + COLUMN_CREATED_DAY + " IS NOT NEW." + COLUMN_CREATED_DAY
+                + " OR OLD." + COLUMN_COMPLETED_DAY + " IS NOT NEW." + COLUMN_COMPLETED_DAY
+                + " OR OLD." + COLUMN_DEADLINE_DAY + " IS NOT NEW." + COLUMN_DEADLINE_DAY
+                + " BEGIN " + rollupStatements("OLD.", "-") + rollupStatements("NEW.", "+") + " END");
+    }
+
+    private void createFullTextIndex(SQLiteDatabase db) {
+        // FTS4 rather than FTS5, which the platform SQLite lacks on older Android versions. unicode61 folds case
+        // and single diacritics ("hoc" finds "Học"); prefix="2,3" indexes short prefixes so "me*" needs no term scan.
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_TASKS_FTS + " USING fts4(content=\"" + TABLE_TASKS + "\", "
+                + COLUMN_TITLE + ", " + COLUMN_DESCRIPTION + ", " + COLUMN_TOPIC + ", prefix=\"2,3\", tokenize=unicode61)");
+
+        String indexRow = "INSERT INTO " + TABLE_TASKS_FTS + " (docid, " + COLUMN_TITLE + ", " + COLUMN_DESCRIPTION + ", "
+                + COLUMN_TOPIC + ") VALUES (NEW." + COLUMN_ID + ", NEW." + COLUMN_TITLE + ", NEW." + COLUMN_DESCRIPTION
+                + ", NEW." + COLUMN_TOPIC + "); ";
+        // An external-content index looks up the old text in tasks to remove its terms, so deletes run BEFORE
+        String unindexRow = "DELETE FROM " + TABLE_TASKS_FTS + " WHERE docid = OLD." + COLUMN_ID + "; ";
+        String textChanged = " WHEN OLD." + COLUMN_TITLE + " IS NOT NEW." + COLUMN_TITLE
+                + " OR OLD." + COLUMN_DESCRIPTION + " IS NOT NEW." + COLUMN_DESCRIPTION
+                + " OR OLD." + COLUMN_TOPIC + " IS NOT NEW." + COLUMN_TOPIC;
+
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_FTS_INSERT + " AFTER INSERT ON " + TABLE_TASKS
+                + " BEGIN " + indexRow + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_FTS_DELETE + " BEFORE DELETE ON " + TABLE_TASKS
+                + " BEGIN " + unindexRow + "END");
+        // Completion toggles and date edits leave the text alone and skip the index entirely
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_FTS_BEFORE_UPDATE + " BEFORE UPDATE ON " + TABLE_TASKS
+                + textChanged + " BEGIN " + unindexRow + "END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_FTS_AFTER_UPDATE + " AFTER UPDATE ON " + TABLE_TASKS
+                + textChanged + " BEGIN " + indexRow + "END");
+    }
+
+    private void createTagUsageTriggers(SQLiteDatabase db) {
+        // Every link change goes through task_tags, including the explicit cleanup in deleteTask/deleteTag.
+        // INSERT OR IGNORE of an existing link inserts nothing and fires nothing.
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TAG_USAGE_INSERT + " AFTER INSERT ON " + TABLE_TASK_TAGS
+                + " BEGIN " + tagUsageStatement("NEW.", "+") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TAG_USAGE_DELETE + " AFTER DELETE ON " + TABLE_TASK_TAGS
+                + " BEGIN " + tagUsageStatement("OLD.", "-") + " END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_TAG_USAGE_UPDATE + " AFTER UPDATE OF " + COLUMN_TAG_ID
+                + " ON " + TABLE_TASK_TAGS + " WHEN OLD." + COLUMN_TAG_ID + " IS NOT NEW." + COLUMN_TAG_ID
+                + " BEGIN " + tagUsageStatement("OLD.", "-") + tagUsageStatement("NEW.", "+") + " END");
+    }
+
+    private static String tagUsageStatement(String row, String sign) {
+        return "UPDATE " + TABLE_TAGS + " SET " + COLUMN_TAG_USAGE_COUNT + " = " + COLUMN_TAG_USAGE_COUNT + " " + sign + " 1"
+                + " WHERE " + COLUMN_TAG_ID + " = " + row + COLUMN_TAG_ID + "; ";
+    }
+
+    // Caller owns the transaction
+    private void rebuildTagUsageCounts(SQLiteDatabase db) {
+        db.execSQL("UPDATE " + TABLE_TAGS + " SET " + COLUMN_TAG_USAGE_COUNT + " = (SELECT COUNT(*) FROM " + TABLE_TASK_TAGS
+                + " tt WHERE tt." + COLUMN_TAG_ID + " = " + TABLE_TAGS + "." + COLUMN_TAG_ID + ")");
+    }
+
+    // Trigger statements that add (sign "+") or remove (sign "-") one task row's contribution
+    private static String rollupStatements(String row, String sign) {
+        String topic = "COALESCE(" + row + COLUMN_TOPIC + ", '')";
+        String createdDay = storedDay(row, COLUMN_CREATED_DAY);
+        String completedDay = storedDay(row, COLUMN_COMPLETED_DAY);
+        String isCompleted = row + COLUMN_IS_COMPLETED + " = 1";
+
+        StringBuilder sql = new StringBuilder();
+        if ("+".equals(sign)) {
+            sql.append("INSERT OR IGNORE INTO ").append(TABLE_DAILY_STATS).append(" (").append(COLUMN_STATS_DAY).append(", ")
+                    .append(COLUMN_TOPIC).append(") VALUES (").append(createdDay).append(", ").append(topic).append("); ");
+            sql.append("INSERT OR IGNORE INTO ").append(TABLE_DAILY_STATS).append(" (").append(COLUMN_STATS_DAY).append(", ")
+                    .append(COLUMN_TOPIC).append(") SELECT ").append(completedDay).append(", ").append(topic)
+                    .append(" WHERE ").append(isCompleted).append("; ");
+        }
+        sql.append("UPDATE ").append(TABLE_DAILY_STATS).append(" SET ")
+                .append(COLUMN_CREATED_COUNT).append(" = ").append(COLUMN_CREATED_COUNT).append(sign).append("1")
+                .append(" WHERE ").append(COLUMN_STATS_DAY).append(" = ").append(createdDay)
+                .append(" AND ").append(COLUMN_TOPIC).append(" = ").append(topic).append("; ");
+        sql.append("UPDATE ").append(TABLE_DAILY_STATS).append(" SET ")
+                .append(COLUMN_COMPLETED_COUNT).append(" = ").append(COLUMN_COMPLETED_COUNT).append(sign).append("1, ")
+                .append(COLUMN_DEADLINE_COUNT).append(" = ").append(COLUMN_DEADLINE_COUNT).append(sign).append(hasDeadlineAndCompletion(row)).append(", ")
+                .append(COLUMN_ON_TIME_COUNT).append(" = ").append(COLUMN_ON_TIME_COUNT).append(sign).append(completedOnTime(row)).append(", ")
+                .append(COLUMN_DURATION_DAYS).append(" = ").append(COLUMN_DURATION_DAYS).append(sign).append(durationDays(row)).append(", ")
+                .append(COLUMN_DURATION_COUNT).append(" = ").append(COLUMN_DURATION_COUNT).append(sign).append(hasDuration(row))
+                .append(" WHERE ").append(isCompleted)
+                .append(" AND ").append(COLUMN_STATS_DAY).append(" = ").append(completedDay)
+                .append(" AND ").append(COLUMN_TOPIC).append(" = ").append(topic).append("; ");
+        return sql.toString();
+    }
+
+    private void createWidgetSnapshot(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_WIDGET_SNAPSHOT + "("
+                + COLUMN_ID + " INTEGER PRIMARY KEY,"
+                + COLUMN_SNAPSHOT_DAY_START + " INTEGER NOT NULL,"
+                + COLUMN_SNAPSHOT_TASK_COUNT + " INTEGER NOT NULL,"
+                + COLUMN_SNAPSHOT_TASKS + " TEXT NOT NULL,"
+                + COLUMN_SNAPSHOT_UPDATED_AT + " INTEGER NOT NULL"
+                + ")");
+    }
+
+    private void createReminders(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_REMINDERS + "("
+                + COLUMN_TASK_ID + " INTEGER PRIMARY KEY,"
+                + COLUMN_FIRE_AT + " INTEGER NOT NULL,"
+                + COLUMN_DEADLINE_AT + " INTEGER NOT NULL,"
+                + COLUMN_REMINDER_POLICY + " TEXT NOT NULL"
+                + ")");
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + INDEX_REMINDERS_FIRE_AT + " ON " + TABLE_REMINDERS + "(" + COLUMN_FIRE_AT + ")");
+    }
+
+    // Caller owns the transaction. Runs only on upgrade, before any tag can have a policy, so a task's own
+    // policy or the default is the one that applies.
+    private void fillReminders(SQLiteDatabase db) {
+        long now = System.currentTimeMillis();
+        // Reminders end on the deadline day, so deadlines before today have none left
+        long oldestDeadline = TaskDates.startOfDay(0);
+        SQLiteStatement saveReminder = db.compileStatement(SQL_SAVE_REMINDER);
+        Cursor cursor = db.rawQuery(SQL_TASKS_WITH_REMINDERS, new String[]{String.valueOf(oldestDeadline)});
+        try {
+            while (cursor.moveToNext()) {
+                ReminderPolicy policy = cursor.isNull(2) ? null : parseReminderPolicy(cursor.getString(2));
+                if (policy == null) {
+                    policy = ReminderPolicy.DEFAULT;
+                }
+                long deadlineAt = cursor.getLong(1);
+                long fireAt = policy.nextFireTime(deadlineAt, now);
+                if (fireAt != ReminderScheduler.NONE) {
+                    saveReminder(saveReminder, new ReminderScheduler.Reminder(cursor.getInt(0), fireAt, deadlineAt, policy));
+                }
+            }
+        } finally {
+            cursor.close();
+            saveReminder.close();
+        }
+    }
+
+    private static void saveReminder(SQLiteStatement saveReminder, ReminderScheduler.Reminder reminder) {
+        saveReminder.bindLong(1, reminder.getTaskId());
+        saveReminder.bindLong(2, reminder.getFireAt());
+        saveReminder.bindLong(3, reminder.getDeadlineAt());
+        saveReminder.bindString(4, reminder.getPolicy().format());
+        saveReminder.executeInsert();
+    }
+
+    // Recompute daily_stats from the tasks table (consistency checks)
+    @VisibleForTesting
+    void rebuildDailyStats() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            rebuildDailyStats(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Caller owns the transaction
+    private void rebuildDailyStats(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM " + TABLE_DAILY_STATS);
+        db.execSQL("INSERT INTO " + TABLE_DAILY_STATS + " (" + COLUMN_STATS_DAY + ", " + COLUMN_TOPIC + ", "
+                + COLUMN_CREATED_COUNT + ", " + COLUMN_COMPLETED_COUNT + ", " + COLUMN_DEADLINE_COUNT + ", "
+                + COLUMN_ON_TIME_COUNT + ", " + COLUMN_DURATION_DAYS + ", " + COLUMN_DURATION_COUNT + ") "
+                + SQL_DAILY_STATS_FROM_TASKS);
+    }
+
+    // Version 15: day keys for existing rows in the current time zone, the same days formatDay gives new writes.
+    // Old rows that never recorded a completion time count as completed on their creation day.
+    private void backfillDayColumns(SQLiteDatabase db) {
+        db.execSQL("UPDATE " + TABLE_TASKS + " SET "
+                + COLUMN_CREATED_DAY + " = " + sqlLocalDay(COLUMN_CREATED_AT) + ", "
+                + COLUMN_COMPLETED_DAY + " = CASE WHEN " + COLUMN_IS_COMPLETED + " = 1 THEN "
+                + sqlLocalDay("COALESCE(" + COLUMN_COMPLETED_AT + ", " + COLUMN_CREATED_AT + ")") + " END, "
+                + COLUMN_DEADLINE_DAY + " = " + sqlLocalDay(COLUMN_DEADLINE_AT));
+    }
+
+    private static String sqlLocalDay(String millisExpr) {
+        return "date((" + millisExpr + ") / 1000, 'unixepoch', 'localtime')";
+    }
+
+    // Parse every row's text dates once and store them as millis; rows that do not parse stay NULL
+    private void backfillDateColumns(SQLiteDatabase db) {
+        SQLiteStatement backfill = db.compileStatement(SQL_BACKFILL_DATES);
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ID + ", " + COLUMN_CREATED_DATE + ", " + COLUMN_DEADLINE + ", "
+                + COLUMN_REMINDER_TIME + ", " + COLUMN_COMPLETED_DATE + ", " + COLUMN_IS_COMPLETED
+                + " FROM " + TABLE_TASKS, null);
+        try {
+            while (cursor.moveToNext()) {
+                backfill.clearBindings();
+                bindMillisOrNull(backfill, 1, TaskDates.parseTimestamp(cursor.getString(1)));
+                bindMillisOrNull(backfill, 2, TaskDates.parseDeadline(cursor.getString(2)));
+                bindMillisOrNull(backfill, 3, TaskDates.parseDeadline(cursor.getString(3)));
+                // Only completed tasks count as completed, whatever is left in completed_date
+                long completedAt = cursor.getInt(5) == 1 ? TaskDates.parseTimestamp(cursor.getString(4)) : TaskDates.NO_DATE;
+                bindMillisOrNull(backfill, 4, completedAt);
+                backfill.bindLong(5, cursor.getLong(0));
+                backfill.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            backfill.close();
+        }
+    }
+
     private void insertDefaultTags(SQLiteDatabase db) {
         String[] defaultTags = {
                 "Công việc|#2196F3",
@@ -200,167 +865,603 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             // Insert default tags
             insertDefaultTags(db);
         }
+        if (oldVersion < 6) {
+            // Add secondary indexes for topic, completion, deadline and tag lookups
+            createIndexes(db);
+        }
+        if (oldVersion < 7) {
+            // Epoch-millis date columns, backfilled from the text dates; onUpgrade already runs in a transaction
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_CREATED_AT + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_DEADLINE_AT + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_REMINDER_AT + " INTEGER");
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_COMPLETED_AT + " INTEGER");
+            backfillDateColumns(db);
+            db.execSQL("DROP INDEX IF EXISTS " + INDEX_TASKS_DEADLINE);
+            createDateIndexes(db);
+        }
+        if (oldVersion < 8) {
+            // Adds idx_tasks_due; the other date indexes already exist
+            createDateIndexes(db);
+        }
+        if (oldVersion < 10) {
+            // Task search index, built once from existing rows and then kept current by triggers
+            createFullTextIndex(db);
+            db.execSQL("INSERT INTO " + TABLE_TASKS_FTS + "(" + TABLE_TASKS_FTS + ") VALUES('rebuild')");
+        }
+        if (oldVersion < 11) {
+            // Per-tag task counters for the tag filter, counted once and then kept current by triggers
+            db.execSQL("ALTER TABLE " + TABLE_TAGS + " ADD COLUMN " + COLUMN_TAG_USAGE_COUNT + " INTEGER NOT NULL DEFAULT 0");
+            createTagUsageTriggers(db);
+            rebuildTagUsageCounts(db);
+        }
+        if (oldVersion < 12) {
+            // Widget snapshot; the widget builds the first one on its next read
+            createWidgetSnapshot(db);
+        }
+        if (oldVersion < 14) {
+            // Reminder policies per task and per tag. The reminder queue (version 13 kept a row per fire time)
+            // now holds each task's next reminder only; it is filled from open tasks and ReminderRestoreReceiver
+            // arms the first one once the update is installed
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_REMINDER_POLICY + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_TAGS + " ADD COLUMN " + COLUMN_REMINDER_POLICY + " TEXT");
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_REMINDERS);
+            createReminders(db);
+            fillReminders(db);
+        }
+        if (oldVersion < 15) {
+            // Statistics rollup (version 9), now counted by day keys stored on each task. The triggers are
+            // recreated to read them, and the rollup is filled once from existing tasks and then kept current
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_CREATED_DAY + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_COMPLETED_DAY + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_TASKS + " ADD COLUMN " + COLUMN_DEADLINE_DAY + " TEXT");
+            backfillDayColumns(db);
+            db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_STATS_INSERT);
+            db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_STATS_UPDATE);
+            db.execSQL("DROP TRIGGER IF EXISTS " + TRIGGER_STATS_DELETE);
+            createDailyStats(db);
+            rebuildDailyStats(db);
+        }
     }
 
     // CRUD Operations for Tasks
     public long addTask(Task task) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_TITLE, task.getTitle());
-        values.put(COLUMN_DESCRIPTION, task.getDescription());
-        values.put(COLUMN_TOPIC, task.getTopic());
-        values.put(COLUMN_IS_COMPLETED, task.isCompleted() ? 1 : 0);
-        values.put(COLUMN_CREATED_DATE, task.getCreatedDate());
-        values.put(COLUMN_DEADLINE, task.getDeadline());
-        values.put(COLUMN_REMINDER_ENABLED, task.isReminderEnabled() ? 1 : 0);
-        values.put(COLUMN_REMINDER_TIME, task.getReminderTime());
-        values.put(COLUMN_COMPLETED_DATE, task.getCompletedDate());
-
-        long id = db.insert(TABLE_TASKS, null, values);
-        
-        // Add tags if task has any
-        if (task.getTags() != null && !task.getTags().isEmpty()) {
-            for (Tag tag : task.getTags()) {
-                addTaskTag((int)id, tag.getId());
+        SQLiteStatement insertTask = db.compileStatement(SQL_INSERT_TASK);
+        SQLiteStatement insertTaskTag = db.compileStatement(SQL_INSERT_TASK_TAG);
+
+        // Task row and its tag links commit together
+        db.beginTransaction();
+        try {
+            long id = insertTask(insertTask, insertTaskTag, task);
+            saveWidgetSnapshot(db);
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+            insertTask.close();
+            insertTaskTag.close();
+        }
+    }
+
+    // Bulk import: every task and tag link in one transaction (one journal sync).
+    // Assigns the new ids to the given tasks and returns how many rows were inserted.
+    public int addTasks(List<Task> tasks) {
+        if (tasks == null || tasks.isEmpty()) {
+            return 0;
+        }
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement insertTask = db.compileStatement(SQL_INSERT_TASK);
+        SQLiteStatement insertTaskTag = db.compileStatement(SQL_INSERT_TASK_TAG);
+
+        int inserted = 0;
+        db.beginTransaction();
+        try {
+            for (Task task : tasks) {
+                long id = insertTask(insertTask, insertTaskTag, task);
+                if (id > 0) {
+                    task.setId((int) id);
+                    inserted++;
+                }
             }
+            saveWidgetSnapshot(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insertTask.close();
+            insertTaskTag.close();
+        }
+        return inserted;
+    }
+
+    // Caller owns the transaction
+    private long insertTask(SQLiteStatement insertTask, SQLiteStatement insertTaskTag, Task task) {
+        insertTask.clearBindings();
+        bindStringOrNull(insertTask, 1, task.getTitle());
+        bindStringOrNull(insertTask, 2, task.getDescription());
+        bindStringOrNull(insertTask, 3, task.getTopic());
+        insertTask.bindLong(4, task.isCompleted() ? 1 : 0);
+        bindStringOrNull(insertTask, 5, task.getCreatedDate());
+        bindStringOrNull(insertTask, 6, task.getDeadline());
+        insertTask.bindLong(7, task.isReminderEnabled() ? 1 : 0);
+        bindStringOrNull(insertTask, 8, task.getReminderTime());
+        bindStringOrNull(insertTask, 9, task.getCompletedDate());
+        bindMillisOrNull(insertTask, 10, task.getCreatedAt());
+        bindMillisOrNull(insertTask, 11, task.getDeadlineAt());
+        bindMillisOrNull(insertTask, 12, task.getReminderAt());
+        bindMillisOrNull(insertTask, 13, task.isCompleted() ? task.getCompletedAt() : TaskDates.NO_DATE);
+        bindPolicyOrNull(insertTask, 14, task.getReminderPolicy());
+        bindStringOrNull(insertTask, 15, TaskDates.formatDay(task.getCreatedAt()));
+        bindStringOrNull(insertTask, 16, completedDay(task));
+        bindStringOrNull(insertTask, 17, TaskDates.formatDay(task.getDeadlineAt()));
+
+        long id = insertTask.executeInsert();
+
+        // Add tags if task has any
+        if (id > 0) {
+            insertTaskTags(insertTaskTag, id, task.getTags());
         }
-        
-        db.close();
         return id;
     }
 
-    public List<Task> getAllTasks(int limit, int offset) {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " ORDER BY " + COLUMN_ID + " DESC LIMIT ? OFFSET ?";
+    private void insertTaskTags(SQLiteStatement insertTaskTag, long taskId, List<Tag> tags) {
+        if (tags == null) {
+            return;
+        }
+        for (Tag tag : tags) {
+            insertTaskTag.bindLong(1, taskId);
+            insertTaskTag.bindLong(2, tag.getId());
+            insertTaskTag.executeInsert();
+        }
+    }
+
+    // SQLiteStatement.bindString rejects null
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void bindMillisOrNull(SQLiteStatement statement, int index, long millis) {
+        if (millis == TaskDates.NO_DATE) {
+            statement.bindNull(index);
+        } else {
+            statement.bindLong(index, millis);
+        }
+    }
+
+    // Day the task counts as completed in daily_stats; a completion without a time counts on the creation day
+    private static String completedDay(Task task) {
+        if (!task.isCompleted()) {
+            return null;
+        }
+        long completedAt = task.getCompletedAt() != TaskDates.NO_DATE ? task.getCompletedAt() : task.getCreatedAt();
+        return TaskDates.formatDay(completedAt);
+    }
+
+    private static void bindPolicyOrNull(SQLiteStatement statement, int index, ReminderPolicy policy) {
+        bindStringOrNull(statement, index, policy != null ? policy.format() : null);
+    }
+
+    // Keyset page of tasks carrying the given tags, walked newest first through task_tags. The task_tags
+    // primary key makes COUNT(*) the number of distinct matched tags; the page is cut before tasks is read.
+    // The CAST is needed because rawQuery binds text and COUNT(*) has no affinity to convert it.
+    static String tasksByTagsSql(int tagCount) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < tagCount; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        return "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " IN (SELECT " + COLUMN_TASK_ID + " FROM " + TABLE_TASK_TAGS
+                + " WHERE " + COLUMN_TAG_ID + " IN (" + placeholders + ") AND " + COLUMN_TASK_ID + " < ? GROUP BY " + COLUMN_TASK_ID
+                + " HAVING COUNT(*) >= CAST(? AS INTEGER) ORDER BY " + COLUMN_TASK_ID + " DESC LIMIT ?) ORDER BY " + COLUMN_ID + " DESC";
+    }
+
+    // Newest-first page of tasks with ids below afterId matching the tag filter (pass FIRST_PAGE to start).
+    // An empty tagIds set is no filter at all and pages through every task.
+    public List<Task> getTasksByTags(Set<Integer> tagIds, TagMatchMode mode, int afterId, int limit) {
+        if (tagIds.isEmpty()) {
+            return getTasksPage(null, afterId, limit);
+        }
+        if (tagIds.size() > MAX_SQL_VARIABLES - 3) {
+            throw new IllegalArgumentException("Too many tags in filter: " + tagIds.size());
+        }
+
+        String[] selectionArgs = new String[tagIds.size() + 3];
+        int i = 0;
+        for (Integer tagId : tagIds) {
+            selectionArgs[i++] = String.valueOf(tagId);
+        }
+        selectionArgs[i++] = afterId == FIRST_PAGE ? String.valueOf(Long.MAX_VALUE) : String.valueOf(afterId);
+        selectionArgs[i++] = String.valueOf(mode == TagMatchMode.ALL ? tagIds.size() : 1);
+        selectionArgs[i] = String.valueOf(limit);
+
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(limit), String.valueOf(offset)});
+        return queryTasks(db, tasksByTagsSql(tagIds.size()), selectionArgs);
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
+    // One page of tasks matching every criterion set on query, in its sort order. after is the last task of
+    // the previous page, or null for the first page.
+    public List<Task> getTasks(TaskQuery query, Task after, int limit) {
+        if (query.getTagIds().size() > MAX_SQL_VARIABLES - 10) {
+            throw new IllegalArgumentException("Too many tags in filter: " + query.getTagIds().size());
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+        boolean afterTitleHit = after != null && taskQuerySort(query) == TaskQuery.Sort.RELEVANCE
+                && isTitleHit(db, after.getId(), toMatchExpression(query.getText(), COLUMN_TITLE));
+        return queryTasks(db, taskQuerySql(query, after, afterTitleHit), taskQueryArgs(query, after, afterTitleHit, limit));
+    }
+
+    private static boolean isTitleHit(SQLiteDatabase db, int taskId, String titleMatch) {
+        Cursor cursor = db.rawQuery(SQL_IS_TITLE_HIT, new String[]{String.valueOf(taskId), titleMatch});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // afterTitleHit: after is one of the title hits of a RELEVANCE query
+    static String taskQuerySql(TaskQuery query, Task after, boolean afterTitleHit) {
+        String match = toMatchExpression(query.getText(), null);
+        TaskQuery.Sort sort = taskQuerySort(query);
+        String keyset = taskQueryKeyset(sort, after, afterTitleHit);
+        String shape = (query.getTopic() != null ? "p" : "") + "t" + query.getTagIds().size()
+                + (query.getCompleted() != null ? "c" : "") + (query.hasDeadlineWindow() ? "d" : "")
+                + (match.isEmpty() ? "" : "m") + "|" + sort + "|" + keyset;
+        String sql = taskQuerySqlByShape.get(shape);
+        if (sql == null) {
+            sql = buildTaskQuerySql(query, sort, !match.isEmpty(), keyset);
+            taskQuerySqlByShape.put(shape, sql);
+        }
+        return sql;
+    }
+
+    // RELEVANCE ranks by the text, so without any words to match it is NEWEST
+    private static TaskQuery.Sort taskQuerySort(TaskQuery query) {
+        if (query.getSort() == TaskQuery.Sort.RELEVANCE && toMatchExpression(query.getText(), null).isEmpty()) {
+            return TaskQuery.Sort.NEWEST;
+        }
+        return query.getSort();
+    }
+
+    // Which keyset condition continues after the previous page. NEWEST/OLDEST always bound the id (from the
+    // ends of the range on the first page) so every page is an index range; DEADLINE and RELEVANCE have three
+    // cases each.
+    private static String taskQueryKeyset(TaskQuery.Sort sort, Task after, boolean afterTitleHit) {
+        if (sort != TaskQuery.Sort.DEADLINE && sort != TaskQuery.Sort.RELEVANCE) {
+            return "id";
+        }
+        if (after == null) {
+            return "";
+        }
+        if (sort == TaskQuery.Sort.RELEVANCE) {
+            return afterTitleHit ? "title" : "other";
+        }
+        return after.hasDeadline() ? "deadline" : "undated";
+    }
+
+    // Placeholders are added in the same order taskQueryArgs supplies values
+    private static String buildTaskQuerySql(TaskQuery query, TaskQuery.Sort sort, boolean textMatch, String keyset) {
+        List<String> conditions = new ArrayList<>();
+        if (query.getTopic() != null) {
+            conditions.add(COLUMN_TOPIC + " = ?");
+        }
+        if (!query.getTagIds().isEmpty()) {
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < query.getTagIds().size(); i++) {
+                placeholders.append(i == 0 ? "?" : ",?");
+            }
+            // Checked per candidate row through the task_tags indexes, so a page can stop at LIMIT
+            // instead of collecting every tagged task first
+            conditions.add("(SELECT COUNT(*) FROM " + TABLE_TASK_TAGS + " tt WHERE tt." + COLUMN_TASK_ID + " = " + TABLE_TASKS + "."
+                    + COLUMN_ID + " AND tt." + COLUMN_TAG_ID + " IN (" + placeholders + ")) >= CAST(? AS INTEGER)");
+        }
+        if (query.getCompleted() != null) {
+            conditions.add(COLUMN_IS_COMPLETED + " = ?");
+        }
+        if (query.hasDeadlineWindow()) {
+            conditions.add(COLUMN_DEADLINE_AT + " >= ? AND " + COLUMN_DEADLINE_AT + " <= ?");
+        }
+        if (textMatch) {
+            conditions.add(COLUMN_ID + " IN (SELECT docid FROM " + TABLE_TASKS_FTS + " WHERE " + TABLE_TASKS_FTS + " MATCH ?)");
+        }
+
+        String orderBy;
+        String titleHits = "(SELECT docid FROM " + TABLE_TASKS_FTS + " WHERE " + TABLE_TASKS_FTS + " MATCH ?)";
+        switch (sort) {
+            case OLDEST:
+                conditions.add(COLUMN_ID + " > ?");
+                orderBy = COLUMN_ID;
+                break;
+            case DEADLINE:
+                if ("deadline".equals(keyset)) {
+                    conditions.add("(" + COLUMN_DEADLINE_AT + " > ? OR (" + COLUMN_DEADLINE_AT + " = ? AND " + COLUMN_ID + " > ?) OR "
+                            + COLUMN_DEADLINE_AT + " IS NULL)");
+                    orderBy = COLUMN_DEADLINE_AT + " IS NULL, " + COLUMN_DEADLINE_AT + ", " + COLUMN_ID;
+                } else if ("undated".equals(keyset)) {
+                    // Only undated tasks are left; ordering by id alone lets the deadline index supply the order
+                    conditions.add(COLUMN_DEADLINE_AT + " IS NULL AND " + COLUMN_ID + " > ?");
+                    orderBy = COLUMN_ID;
+                } else {
+                    orderBy = COLUMN_DEADLINE_AT + " IS NULL, " + COLUMN_DEADLINE_AT + ", " + COLUMN_ID;
                 }
-            } while (cursor.moveToNext());
+                break;
+            case RELEVANCE:
+                // Only the matched rows are sorted, the same ones the text condition above already limits to
+                if ("title".equals(keyset)) {
+                    conditions.add("(" + COLUMN_ID + " < ? OR " + COLUMN_ID + " NOT IN " + titleHits + ")");
+                    orderBy = COLUMN_ID + " IN " + titleHits + " DESC, " + COLUMN_ID + " DESC";
+                } else if ("other".equals(keyset)) {
+                    // Past the title hits; the rest is newest first
+                    conditions.add(COLUMN_ID + " NOT IN " + titleHits + " AND " + COLUMN_ID + " < ?");
+                    orderBy = COLUMN_ID + " DESC";
+                } else {
+                    orderBy = COLUMN_ID + " IN " + titleHits + " DESC, " + COLUMN_ID + " DESC";
+                }
+                break;
+            default:
+                conditions.add(COLUMN_ID + " < ?");
+                orderBy = COLUMN_ID + " DESC";
+                break;
         }
-        cursor.close();
-        db.close();
-        return tasks;
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM ").append(TABLE_TASKS);
+        for (int i = 0; i < conditions.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+        }
+        return sql.append(" ORDER BY ").append(orderBy).append(" LIMIT ?").toString();
     }
 
-    public List<Task> getAllTasks() {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " ORDER BY " + COLUMN_ID + " DESC";
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
+    private static String[] taskQueryArgs(TaskQuery query, Task after, boolean afterTitleHit, int limit) {
+        List<String> args = new ArrayList<>();
+        if (query.getTopic() != null) {
+            args.add(query.getTopic());
+        }
+        if (!query.getTagIds().isEmpty()) {
+            for (Integer tagId : query.getTagIds()) {
+                args.add(String.valueOf(tagId));
+            }
+            args.add(String.valueOf(query.getTagMatchMode() == TagMatchMode.ALL ? query.getTagIds().size() : 1));
+        }
+        if (query.getCompleted() != null) {
+            args.add(query.getCompleted() ? "1" : "0");
+        }
+        if (query.hasDeadlineWindow()) {
+            args.add(String.valueOf(query.getDeadlineStart()));
+            args.add(String.valueOf(query.getDeadlineEnd()));
+        }
+        String match = toMatchExpression(query.getText(), null);
+        if (!match.isEmpty()) {
+            args.add(match);
+        }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
+        switch (taskQuerySort(query)) {
+            case OLDEST:
+                args.add(after == null ? "0" : String.valueOf(after.getId()));
+                break;
+            case RELEVANCE:
+                String titleMatch = toMatchExpression(query.getText(), COLUMN_TITLE);
+                if (after != null && afterTitleHit) {
+                    args.add(String.valueOf(after.getId()));
+                    args.add(titleMatch);
+                    args.add(titleMatch);
+                } else if (after != null) {
+                    args.add(titleMatch);
+                    args.add(String.valueOf(after.getId()));
+                } else {
+                    args.add(titleMatch);
                 }
-            } while (cursor.moveToNext());
+                break;
+            case DEADLINE:
+                if (after != null && after.hasDeadline()) {
+                    args.add(String.valueOf(after.getDeadlineAt()));
+                    args.add(String.valueOf(after.getDeadlineAt()));
+                    args.add(String.valueOf(after.getId()));
+                } else if (after != null) {
+                    args.add(String.valueOf(after.getId()));
+                }
+                break;
+            default:
+                args.add(after == null ? String.valueOf(Long.MAX_VALUE) : String.valueOf(after.getId()));
+                break;
         }
-        cursor.close();
-        db.close();
-        return tasks;
+        args.add(String.valueOf(limit));
+        return args.toArray(new String[0]);
     }
 
-    public List<Task> getTasksByTopic(String topic, int limit, int offset) {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ? ORDER BY " + COLUMN_ID + " DESC LIMIT ? OFFSET ?";
+    // Newest-first page of tasks with ids below afterId (pass FIRST_PAGE to start); topic null means all topics
+    public List<Task> getTasksPage(String topic, int afterId, int limit) {
+        String bound = afterId == FIRST_PAGE ? String.valueOf(Long.MAX_VALUE) : String.valueOf(afterId);
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{topic, String.valueOf(limit), String.valueOf(offset)});
+        if (topic == null) {
+            return queryTasks(db, SQL_TASKS_PAGE, new String[]{bound, String.valueOf(limit)});
+        }
+        return queryTasks(db, SQL_TASKS_BY_TOPIC_PAGE, new String[]{topic, bound, String.valueOf(limit)});
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
-                }
-            } while (cursor.moveToNext());
+    // Full-text search over title, description and topic. Every word must match, and words of two or more
+    // characters also match as prefixes ("meet" finds "meeting"). Empty for a query with no letters or digits.
+    public List<Task> searchTasks(String query, int limit) {
+        return searchTasks(query, 0, limit);
+    }
+
+    // Next page of the same search: offset is the number of results already shown
+    public List<Task> searchTasks(String query, int offset, int limit) {
+        String match = toMatchExpression(query, null);
+        if (match.isEmpty()) {
+            return new ArrayList<>();
         }
-        cursor.close();
-        db.close();
-        return tasks;
+        String titleMatch = toMatchExpression(query, COLUMN_TITLE);
+        SQLiteDatabase db = this.getReadableDatabase();
+        return queryTasks(db, SQL_SEARCH_TASKS, new String[]{titleMatch, match, String.valueOf(limit), String.valueOf(offset)});
+    }
+
+    // Only letters and digits reach the MATCH expression, and lower case keeps words like "or"/"not" from
+    // being read as operators, so no user input can produce an FTS syntax error
+    private static String toMatchExpression(String query, String column) {
+        if (query == null) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String word : query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{M}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(word);
+            if (word.length() >= MIN_PREFIX_LENGTH) {
+                match.append('*');
+            }
+        }
+        return match.toString();
+    }
+
+    public List<Task> getAllTasks() {
+        String selectQuery = SQL_ALL_TASKS;
+        SQLiteDatabase db = this.getReadableDatabase();
+        return queryTasks(db, selectQuery, null);
     }
 
     public List<Task> getTasksByTopic(String topic) {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ? ORDER BY " + COLUMN_ID + " DESC";
+        String selectQuery = SQL_TASKS_BY_TOPIC;
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{topic});
+        return queryTasks(db, selectQuery, new String[]{topic});
+    }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
-                }
-            } while (cursor.moveToNext());
+    static String tasksByIdsSql(int idCount) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < idCount; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
         }
-        cursor.close();
-        db.close();
-        return tasks;
+        return "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " IN (" + placeholders + ")";
     }
 
-    public Task getTaskById(int taskId) {
+    // Several tasks in one query per MAX_SQL_VARIABLES ids, in no particular order; ids without a task are skipped
+    public List<Task> getTasksByIds(List<Integer> taskIds) {
+        List<Task> tasks = new ArrayList<>();
         SQLiteDatabase db = this.getReadableDatabase();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_ID + " = ?";
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(taskId)});
+        for (int start = 0; start < taskIds.size(); start += MAX_SQL_VARIABLES) {
+            List<Integer> chunk = taskIds.subList(start, Math.min(taskIds.size(), start + MAX_SQL_VARIABLES));
+            String[] selectionArgs = new String[chunk.size()];
+            for (int i = 0; i < chunk.size(); i++) {
+                selectionArgs[i] = String.valueOf(chunk.get(i));
+            }
+            tasks.addAll(queryTasks(db, tasksByIdsSql(chunk.size()), selectionArgs));
+        }
+        return tasks;
+    }
 
-        Task task = null;
-        if (cursor.moveToFirst()) {
-            task = createTaskFromCursor(cursor);
+    // Served from the task cache when possible; returns a copy the caller may modify
+    public Task getTaskById(int taskId) {
+        Task cached = taskCache.get(taskId);
+        if (cached != null) {
+            return cached;
         }
 
-        cursor.close();
-        db.close();
+        long cacheGeneration = taskCache.generation();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String selectQuery = SQL_TASK_BY_ID;
+        List<Task> tasks = queryTasks(db, selectQuery, new String[]{String.valueOf(taskId)});
+        Task task = tasks.isEmpty() ? null : tasks.get(0);
+        if (task != null) {
+            taskCache.put(task, cacheGeneration);
+        }
         return task;
     }
 
+    public int getTaskCacheHitCount() {
+        return taskCache.hitCount();
+    }
+
+    public int getTaskCacheMissCount() {
+        return taskCache.missCount();
+    }
+
     public int updateTask(Task task) {
         android.util.Log.d("DatabaseHelper", "Updating task with ID: " + task.getId());
-        android.util.Log.d("DatabaseHelper", "New title: " + task.getTitle());
-        android.util.Log.d("DatabaseHelper", "New description: " + task.getDescription());
-        android.util.Log.d("DatabaseHelper", "New topic: " + task.getTopic());
 
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_TITLE, task.getTitle());
-        values.put(COLUMN_DESCRIPTION, task.getDescription());
-        values.put(COLUMN_TOPIC, task.getTopic());
-        values.put(COLUMN_IS_COMPLETED, task.isCompleted() ? 1 : 0);
-        values.put(COLUMN_DEADLINE, task.getDeadline());
-        values.put(COLUMN_REMINDER_ENABLED, task.isReminderEnabled() ? 1 : 0);
-        values.put(COLUMN_REMINDER_TIME, task.getReminderTime());
-        values.put(COLUMN_COMPLETED_DATE, task.getCompletedDate());
-
-        int result = db.update(TABLE_TASKS, values, COLUMN_ID + " = ?",
-                new String[]{String.valueOf(task.getId())});
+        SQLiteStatement updateTask = db.compileStatement(SQL_UPDATE_TASK);
+        SQLiteStatement deleteTaskTags = db.compileStatement(SQL_DELETE_TASK_TAGS);
+        SQLiteStatement insertTaskTag = db.compileStatement(SQL_INSERT_TASK_TAG);
 
-        android.util.Log.d("DatabaseHelper", "Update query result: " + result + " rows affected");
-
-        // Update tags for this task
-        if (result > 0) {
-            updateTaskTags(task.getId(), task.getTags());
+        int result;
+        db.beginTransaction();
+        try {
+            bindStringOrNull(updateTask, 1, task.getTitle());
+            bindStringOrNull(updateTask, 2, task.getDescription());
+            bindStringOrNull(updateTask, 3, task.getTopic());
+            updateTask.bindLong(4, task.isCompleted() ? 1 : 0);
+            bindStringOrNull(updateTask, 5, task.getDeadline());
+            updateTask.bindLong(6, task.isReminderEnabled() ? 1 : 0);
+            bindStringOrNull(updateTask, 7, task.getReminderTime());
+            bindStringOrNull(updateTask, 8, task.getCompletedDate());
+            bindMillisOrNull(updateTask, 9, task.getDeadlineAt());
+            bindMillisOrNull(updateTask, 10, task.getReminderAt());
+            bindMillisOrNull(updateTask, 11, task.isCompleted() ? task.getCompletedAt() : TaskDates.NO_DATE);
+            bindPolicyOrNull(updateTask, 12, task.getReminderPolicy());
+            bindStringOrNull(updateTask, 13, completedDay(task));
+            bindStringOrNull(updateTask, 14, TaskDates.formatDay(task.getDeadlineAt()));
+            updateTask.bindLong(15, task.getId());
+            result = updateTask.executeUpdateDelete();
+
+            // Update tags for this task in the same transaction
+            if (result > 0) {
+                replaceTaskTags(deleteTaskTags, insertTaskTag, task.getId(), task.getTags());
+                saveWidgetSnapshot(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            updateTask.close();
+            deleteTaskTags.close();
+            insertTaskTag.close();
+            taskCache.invalidate(task.getId());
         }
 
-        db.close();
+        android.util.Log.d("DatabaseHelper", "Update query result: " + result + " rows affected");
         return result;
     }
 
     public int deleteTask(int taskId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_TASKS, COLUMN_ID + " = ?", new String[]{String.valueOf(taskId)});
-        db.close();
+        SQLiteStatement deleteTaskTags = db.compileStatement(SQL_DELETE_TASK_TAGS);
+        SQLiteStatement deleteReminders = db.compileStatement(SQL_DELETE_TASK_REMINDERS);
+        SQLiteStatement deleteTask = db.compileStatement(SQL_DELETE_TASK);
+
+        // Foreign keys are not enforced, so drop the tag links and the queued reminder explicitly; a reminder
+        // left behind would keep the alarm armed for a task that no longer exists
+        db.beginTransaction();
+        try {
+            deleteTaskTags.bindLong(1, taskId);
+            deleteTaskTags.executeUpdateDelete();
+            deleteReminders.bindLong(1, taskId);
+            deleteReminders.executeUpdateDelete();
+            deleteTask.bindLong(1, taskId);
+            if (deleteTask.executeUpdateDelete() > 0) {
+                saveWidgetSnapshot(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            deleteTaskTags.close();
+            deleteReminders.close();
+            deleteTask.close();
+            taskCache.invalidate(taskId);
+        }
         return taskId;
     }
 
     public List<String> getAllTopics() {
         List<String> topics = new ArrayList<>();
-        String selectQuery = "SELECT DISTINCT " + COLUMN_TOPIC + " FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " IS NOT NULL";
+        String selectQuery = SQL_ALL_TOPICS;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, null);
 
@@ -370,12 +1471,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return topics;
     }
 
     public int getTotalTaskCount() {
-        String countQuery = "SELECT COUNT(*) FROM " + TABLE_TASKS;
+        String countQuery = SQL_COUNT_TASKS;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(countQuery, null);
         int count = 0;
@@ -383,12 +1483,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             count = cursor.getInt(0);
         }
         cursor.close();
-        db.close();
         return count;
     }
 
     public int getTaskCountByTopic(String topic) {
-        String countQuery = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_TOPIC + " = ?";
+        String countQuery = SQL_COUNT_TASKS_BY_TOPIC;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(countQuery, new String[]{topic});
         int count = 0;
@@ -396,53 +1495,110 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             count = cursor.getInt(0);
         }
         cursor.close();
-        db.close();
         return count;
     }
 
     // Statistics methods for StatisticsActivity
     public List<Task> getCompletedTasks() {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 1 ORDER BY " + COLUMN_ID + " DESC";
+        String selectQuery = SQL_COMPLETED_TASKS;
+        SQLiteDatabase db = this.getReadableDatabase();
+        return queryTasks(db, selectQuery, null);
+    }
+
+    // Tasks completed in [startMillis, endMillis), oldest completion first
+    public List<Task> getTasksCompletedInPeriod(long startMillis, long endMillis) {
+        String selectQuery = SQL_TASKS_COMPLETED_IN_PERIOD;
+        SQLiteDatabase db = this.getReadableDatabase();
+        return queryTasks(db, selectQuery, new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+    }
+
+    // Counts, averages and chart buckets for the statistics screen, read from the daily_stats
+    // rollup; the tasks table itself is not touched
+    public TaskStatistics getTaskStatistics() {
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
 
+        int total = 0;
+        int completed = 0;
+        long durationDays = 0;
+        int durationCount = 0;
+        int withDeadline = 0;
+        int onTime = 0;
+        Cursor cursor = db.rawQuery(SQL_STATS_TOTALS, null);
         if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
-                }
-            } while (cursor.moveToNext());
+            total = cursor.getInt(0);
+            completed = cursor.getInt(1);
+            durationDays = cursor.getLong(2);
+            durationCount = cursor.getInt(3);
+            withDeadline = cursor.getInt(4);
+            onTime = cursor.getInt(5);
         }
         cursor.close();
-        db.close();
-        return tasks;
+        double averageDays = durationCount > 0 ? (double) durationDays / durationCount : 0;
+        double onTimeRate = withDeadline > 0 ? (double) onTime / withDeadline * 100 : 0;
+
+        return new TaskStatistics(total, completed, averageDays, onTimeRate,
+                queryWeeklyCompletions(db), queryMonthlyCompletions(db));
     }
 
-    public List<Task> getTasksCompletedInPeriod(String startDate, String endDate) {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + 
-                " WHERE " + COLUMN_IS_COMPLETED + " = 1 AND " + 
-                COLUMN_CREATED_DATE + " >= ? AND " + COLUMN_CREATED_DATE + " <= ?";
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, new String[]{startDate, endDate});
+    // The last STATS_WEEKS 7-day windows, the newest starting today
+    private Map<String, Integer> queryWeeklyCompletions(SQLiteDatabase db) {
+        int firstWeekOffset = -7 * (STATS_WEEKS - 1);
+        Calendar weekStart = Calendar.getInstance();
+        weekStart.setTimeInMillis(TaskDates.startOfDay(firstWeekOffset));
+
+        SimpleDateFormat labelFormat = new SimpleDateFormat("dd/MM", Locale.getDefault());
+        String[] labels = new String[STATS_WEEKS];
+        Map<String, Integer> weekly = new LinkedHashMap<>();
+        for (int i = 0; i < STATS_WEEKS; i++) {
+            labels[i] = "Tuần " + labelFormat.format(weekStart.getTime());
+            weekly.put(labels[i], 0);
+            weekStart.add(Calendar.DAY_OF_YEAR, 7);
+        }
 
-        if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
-                }
-            } while (cursor.moveToNext());
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        String firstDay = dayFormat.format(TaskDates.startOfDay(firstWeekOffset));
+        String endDay = dayFormat.format(TaskDates.startOfDay(7));
+        Cursor cursor = db.rawQuery(SQL_STATS_WEEKLY, new String[]{firstDay, firstDay, endDay});
+        while (cursor.moveToNext()) {
+            int week = cursor.getInt(0);
+            if (week >= 0 && week < STATS_WEEKS) {
+                weekly.put(labels[week], cursor.getInt(1));
+            }
         }
         cursor.close();
-        db.close();
-        return tasks;
+        return weekly;
+    }
+
+    // The last STATS_MONTHS calendar months including the current one
+    private Map<String, Integer> queryMonthlyCompletions(SQLiteDatabase db) {
+        Calendar month = Calendar.getInstance();
+        month.setTimeInMillis(TaskDates.startOfDay(0));
+        month.set(Calendar.DAY_OF_MONTH, 1);
+        month.add(Calendar.MONTH, -(STATS_MONTHS - 1));
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        String startDay = dayFormat.format(month.getTime());
+
+        SimpleDateFormat labelFormat = new SimpleDateFormat("MM/yyyy", Locale.US);
+        Map<String, Integer> monthly = new LinkedHashMap<>();
+        for (int i = 0; i < STATS_MONTHS; i++) {
+            monthly.put(labelFormat.format(month.getTime()), 0);
+            month.add(Calendar.MONTH, 1);
+        }
+        String endDay = dayFormat.format(month.getTime());
+
+        Cursor cursor = db.rawQuery(SQL_STATS_MONTHLY, new String[]{startDay, endDay});
+        while (cursor.moveToNext()) {
+            String label = cursor.getString(0);
+            if (monthly.containsKey(label)) {
+                monthly.put(label, cursor.getInt(1));
+            }
+        }
+        cursor.close();
+        return monthly;
     }
 
     public int getCompletedTasksCount() {
-        String countQuery = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 1";
+        String countQuery = SQL_COUNT_COMPLETED;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(countQuery, null);
         int count = 0;
@@ -450,12 +1606,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             count = cursor.getInt(0);
         }
         cursor.close();
-        db.close();
         return count;
     }
 
     public int getPendingTasksCount() {
-        String countQuery = "SELECT COUNT(*) FROM " + TABLE_TASKS + " WHERE " + COLUMN_IS_COMPLETED + " = 0";
+        String countQuery = SQL_COUNT_PENDING;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(countQuery, null);
         int count = 0;
@@ -463,27 +1618,217 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             count = cursor.getInt(0);
         }
         cursor.close();
-        db.close();
         return count;
     }
 
     public List<Task> getTasksWithDeadlines() {
-        List<Task> tasks = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TASKS + " WHERE " + COLUMN_DEADLINE + " IS NOT NULL AND " + COLUMN_DEADLINE + " != ''";
+        String selectQuery = SQL_TASKS_WITH_DEADLINES;
         SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery(selectQuery, null);
+        return queryTasks(db, selectQuery, null);
+    }
 
+    // Open tasks due in [startMillis, endMillis], soonest first; pass NO_LIMIT for all of them
+    public List<Task> getIncompleteTasksDueBetween(long startMillis, long endMillis, int limit) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return queryTasks(db, SQL_INCOMPLETE_TASKS_DUE_BETWEEN,
+                new String[]{String.valueOf(startMillis), String.valueOf(endMillis), String.valueOf(limit)});
+    }
+
+    public int countIncompleteTasksDueBetween(long startMillis, long endMillis) {
+        String countQuery = SQL_COUNT_INCOMPLETE_TASKS_DUE_BETWEEN;
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(countQuery, new String[]{String.valueOf(startMillis), String.valueOf(endMillis)});
+        int count = 0;
         if (cursor.moveToFirst()) {
-            do {
-                Task task = createTaskFromCursor(cursor);
-                if (task != null) {
-                    tasks.add(task);
+            count = cursor.getInt(0);
+        }
+        cursor.close();
+        return count;
+    }
+
+    // The widget's content in one primary-key read. Rebuilt first when it is missing or unreadable, or when
+    // it was built on an earlier day: the due window starts today, so it goes stale at midnight without any write.
+    public WidgetSnapshot getWidgetSnapshot() {
+        WidgetSnapshot snapshot = readWidgetSnapshot();
+        if (snapshot != null && snapshot.getDayStart() == TaskDates.startOfDay(0)) {
+            return snapshot;
+        }
+        android.util.Log.d("DatabaseHelper", snapshot == null ? "Building widget snapshot" : "Widget snapshot stale, rebuilding");
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            snapshot = saveWidgetSnapshot(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return snapshot;
+    }
+
+    private WidgetSnapshot readWidgetSnapshot() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_WIDGET_SNAPSHOT, new String[]{String.valueOf(WIDGET_SNAPSHOT_ROW)});
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new WidgetSnapshot(
+                    cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SNAPSHOT_DAY_START)),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_SNAPSHOT_TASK_COUNT)),
+                    WidgetSnapshot.tasksFromJson(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SNAPSHOT_TASKS))),
+                    cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_SNAPSHOT_UPDATED_AT)));
+        } catch (JSONException e) {
+            android.util.Log.e("DatabaseHelper", "Unreadable widget snapshot: " + e.getMessage());
+            return null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Caller owns the transaction. Two index reads on idx_tasks_due, the count only when the list is full.
+    private WidgetSnapshot saveWidgetSnapshot(SQLiteDatabase db) {
+        long dayStart = TaskDates.startOfDay(0);
+        long windowEnd = TaskDates.endOfDay(TaskDates.DUE_SOON_DAYS);
+        String[] window = {String.valueOf(dayStart), String.valueOf(windowEnd)};
+
+        List<WidgetSnapshot.Entry> tasks = new ArrayList<>();
+        Cursor cursor = db.rawQuery(SQL_WIDGET_DUE_TASKS, new String[]{window[0], window[1], String.valueOf(WidgetSnapshot.MAX_TASKS)});
+        while (cursor.moveToNext()) {
+            tasks.add(new WidgetSnapshot.Entry(cursor.getString(0), cursor.getLong(1)));
+        }
+        cursor.close();
+
+        int taskCount = tasks.size();
+        if (taskCount == WidgetSnapshot.MAX_TASKS) {
+            cursor = db.rawQuery(SQL_COUNT_INCOMPLETE_TASKS_DUE_BETWEEN, window);
+            if (cursor.moveToFirst()) {
+                taskCount = cursor.getInt(0);
+            }
+            cursor.close();
+        }
+
+        WidgetSnapshot snapshot = new WidgetSnapshot(dayStart, taskCount, tasks, System.currentTimeMillis());
+        SQLiteStatement save = db.compileStatement(SQL_SAVE_WIDGET_SNAPSHOT);
+        try {
+            save.bindLong(1, WIDGET_SNAPSHOT_ROW);
+            save.bindLong(2, snapshot.getDayStart());
+            save.bindLong(3, snapshot.getTaskCount());
+            save.bindString(4, WidgetSnapshot.tasksToJson(tasks));
+            save.bindLong(5, snapshot.getUpdatedAt());
+            save.executeInsert();
+        } finally {
+            save.close();
+        }
+        return snapshot;
+    }
+
+    // Ids of open tasks with reminders on and a deadline from today on, the only ones that can still have
+    // reminder alarms pending
+    public List<Integer> getReminderTaskIds() {
+        List<Integer> taskIds = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_TASKS_WITH_REMINDERS, new String[]{String.valueOf(TaskDates.startOfDay(0))});
+        try {
+            while (cursor.moveToNext()) {
+                taskIds.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return taskIds;
+    }
+
+    // Reminder queue for ReminderScheduler
+    @Override
+    public void saveReminders(List<ReminderScheduler.Reminder> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement saveReminder = db.compileStatement(SQL_SAVE_REMINDER);
+        SQLiteStatement deleteReminder = db.compileStatement(SQL_DELETE_TASK_REMINDERS);
+        db.beginTransaction();
+        try {
+            for (ReminderScheduler.Reminder reminder : reminders) {
+                if (reminder.getFireAt() == ReminderScheduler.NONE) {
+                    deleteReminder.bindLong(1, reminder.getTaskId());
+                    deleteReminder.executeUpdateDelete();
+                } else {
+                    saveReminder(saveReminder, reminder);
                 }
-            } while (cursor.moveToNext());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            saveReminder.close();
+            deleteReminder.close();
+        }
+    }
+
+    @Override
+    public void deleteReminders(int taskId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement deleteReminders = db.compileStatement(SQL_DELETE_TASK_REMINDERS);
+        try {
+            deleteReminders.bindLong(1, taskId);
+            deleteReminders.executeUpdateDelete();
+        } finally {
+            deleteReminders.close();
+        }
+    }
+
+    @Override
+    public long getNextReminderTime() {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_NEXT_REMINDER_TIME, null);
+        long next = ReminderScheduler.NONE;
+        if (cursor.moveToFirst() && !cursor.isNull(0)) {
+            next = cursor.getLong(0);
         }
         cursor.close();
-        db.close();
-        return tasks;
+        return next;
+    }
+
+    @Override
+    public List<ReminderScheduler.Reminder> getDueReminders(long nowMillis) {
+        List<ReminderScheduler.Reminder> reminders = new ArrayList<>();
+        // Tasks share a handful of policies, so each text is parsed once
+        Map<String, ReminderPolicy> policies = new HashMap<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_DUE_REMINDERS, new String[]{String.valueOf(nowMillis)});
+        try {
+            while (cursor.moveToNext()) {
+                String text = cursor.getString(3);
+                ReminderPolicy policy = policies.get(text);
+                if (policy == null) {
+                    policy = parseReminderPolicy(text);
+                    if (policy == null) {
+                        policy = ReminderPolicy.DEFAULT;
+                    }
+                    policies.put(text, policy);
+                }
+                reminders.add(new ReminderScheduler.Reminder(cursor.getInt(0), cursor.getLong(1), cursor.getLong(2), policy));
+            }
+        } finally {
+            cursor.close();
+        }
+        return reminders;
+    }
+
+    // Stores the tag's reminder policy (null for none). Tasks already scheduled keep their reminder until
+    // rescheduled; ReminderAlarmManager.rescheduleTag does that.
+    public int setTagReminderPolicy(int tagId, ReminderPolicy policy) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        if (policy != null) {
+            values.put(COLUMN_REMINDER_POLICY, policy.format());
+        } else {
+            values.putNull(COLUMN_REMINDER_POLICY);
+        }
+        int result = db.update(TABLE_TAGS, values, COLUMN_TAG_ID + " = ?", new String[]{String.valueOf(tagId)});
+        // Cached tasks carry copies of their tags
+        taskCache.invalidateAll();
+        return result;
     }
 
     // CRUD Operations for Tags
@@ -492,14 +1837,16 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         ContentValues values = new ContentValues();
         values.put(COLUMN_TAG_NAME, tag.getName());
         values.put(COLUMN_TAG_COLOR, tag.getColor());
+        if (tag.getReminderPolicy() != null) {
+            values.put(COLUMN_REMINDER_POLICY, tag.getReminderPolicy().format());
+        }
         long id = db.insert(TABLE_TAGS, null, values);
-        db.close();
         return id;
     }
 
     public Tag getTagById(int tagId) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String selectQuery = "SELECT * FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_ID + " = ?";
+        String selectQuery = SQL_TAG_BY_ID;
         Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(tagId)});
 
         Tag tag = null;
@@ -508,13 +1855,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
 
         cursor.close();
-        db.close();
         return tag;
     }
 
     public List<Tag> getAllTags() {
         List<Tag> tags = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_TAGS + " ORDER BY " + COLUMN_TAG_NAME;
+        String selectQuery = SQL_ALL_TAGS;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, null);
 
@@ -527,10 +1873,28 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return tags;
     }
 
+    // Tags that are on at least one task, by name, with how many tasks carry each
+    public Map<Tag, Integer> getTagUsageCounts() {
+        Map<Tag, Integer> counts = new LinkedHashMap<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_TAG_USAGE_COUNTS, null);
+        try {
+            int countIndex = cursor.getColumnIndexOrThrow(COLUMN_TAG_USAGE_COUNT);
+            while (cursor.moveToNext()) {
+                Tag tag = createTagFromCursor(cursor);
+                if (tag != null) {
+                    counts.put(tag, cursor.getInt(countIndex));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        return counts;
+    }
+
     public int updateTag(Tag tag) {
         android.util.Log.d("DatabaseHelper", "Updating tag with ID: " + tag.getId());
         android.util.Log.d("DatabaseHelper", "New name: " + tag.getName());
@@ -543,39 +1907,56 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
         int result = db.update(TABLE_TAGS, values, COLUMN_TAG_ID + " = ?",
                 new String[]{String.valueOf(tag.getId())});
+        // Cached tasks carry copies of their tags
+        taskCache.invalidateAll();
 
         android.util.Log.d("DatabaseHelper", "Update query result: " + result + " rows affected");
 
-        db.close();
         return result;
     }
 
     public int deleteTag(int tagId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        db.delete(TABLE_TAGS, COLUMN_TAG_ID + " = ?", new String[]{String.valueOf(tagId)});
-        db.close();
+        SQLiteStatement deleteTagLinks = db.compileStatement(SQL_DELETE_TAG_LINKS);
+
+        db.beginTransaction();
+        try {
+            deleteTagLinks.bindLong(1, tagId);
+            deleteTagLinks.executeUpdateDelete();
+            db.delete(TABLE_TAGS, COLUMN_TAG_ID + " = ?", new String[]{String.valueOf(tagId)});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            deleteTagLinks.close();
+            // Cached tasks carry copies of their tags
+            taskCache.invalidateAll();
+        }
         return tagId;
     }
 
     // CRUD Operations for Task_Tags
     public void addTaskTag(int taskId, int tagId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_TASK_ID, taskId);
-        values.put(COLUMN_TAG_ID, tagId);
-        db.insert(TABLE_TASK_TAGS, null, values);
-        db.close();
+        SQLiteStatement insertTaskTag = db.compileStatement(SQL_INSERT_TASK_TAG);
+        try {
+            insertTaskTag.bindLong(1, taskId);
+            insertTaskTag.bindLong(2, tagId);
+            insertTaskTag.executeInsert();
+        } finally {
+            insertTaskTag.close();
+            taskCache.invalidate(taskId);
+        }
     }
 
     public void removeTaskTag(int taskId, int tagId) {
         SQLiteDatabase db = this.getWritableDatabase();
         db.delete(TABLE_TASK_TAGS, COLUMN_TASK_ID + " = ? AND " + COLUMN_TAG_ID + " = ?", new String[]{String.valueOf(taskId), String.valueOf(tagId)});
-        db.close();
+        taskCache.invalidate(taskId);
     }
 
     public List<Tag> getTagsForTask(int taskId) {
         List<Tag> tags = new ArrayList<>();
-        String selectQuery = "SELECT t.* FROM " + TABLE_TAGS + " t JOIN " + TABLE_TASK_TAGS + " tt ON t." + COLUMN_TAG_ID + " = tt." + COLUMN_TAG_ID + " WHERE tt." + COLUMN_TASK_ID + " = ?";
+        String selectQuery = SQL_TAGS_FOR_TASK;
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(taskId)});
 
@@ -588,34 +1969,54 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             } while (cursor.moveToNext());
         }
         cursor.close();
-        db.close();
         return tags;
     }
 
     // Helper method to update tags for a task
     public void updateTaskTags(int taskId, List<Tag> newTags) {
+        Map<Integer, List<Tag>> tagsByTask = new HashMap<>();
+        tagsByTask.put(taskId, newTags);
+        setTagsForTasks(tagsByTask);
+    }
+
+    // Replace the tag set of every task in the map within a single transaction
+    public void setTagsForTasks(Map<Integer, List<Tag>> tagsByTask) {
+        if (tagsByTask == null || tagsByTask.isEmpty()) {
+            return;
+        }
+
         SQLiteDatabase db = this.getWritableDatabase();
-        
-        // Remove all existing tags for this task
-        db.delete(TABLE_TASK_TAGS, COLUMN_TASK_ID + " = ?", new String[]{String.valueOf(taskId)});
-        
-        // Add new tags
-        if (newTags != null && !newTags.isEmpty()) {
-            for (Tag tag : newTags) {
-                ContentValues values = new ContentValues();
-                values.put(COLUMN_TASK_ID, taskId);
-                values.put(COLUMN_TAG_ID, tag.getId());
-                db.insert(TABLE_TASK_TAGS, null, values);
+        SQLiteStatement deleteTaskTags = db.compileStatement(SQL_DELETE_TASK_TAGS);
+        SQLiteStatement insertTaskTag = db.compileStatement(SQL_INSERT_TASK_TAG);
+
+        db.beginTransaction();
+        try {
+            for (Map.Entry<Integer, List<Tag>> entry : tagsByTask.entrySet()) {
+                replaceTaskTags(deleteTaskTags, insertTaskTag, entry.getKey(), entry.getValue());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            deleteTaskTags.close();
+            insertTaskTag.close();
+            for (Integer taskId : tagsByTask.keySet()) {
+                taskCache.invalidate(taskId);
             }
         }
-        
-        db.close();
+    }
+
+    // Caller owns the transaction
+    private void replaceTaskTags(SQLiteStatement deleteTaskTags, SQLiteStatement insertTaskTag, int taskId, List<Tag> newTags) {
+        // Remove all existing tags for this task, then add the new ones
+        deleteTaskTags.bindLong(1, taskId);
+        deleteTaskTags.executeUpdateDelete();
+        insertTaskTags(insertTaskTag, taskId, newTags);
     }
 
     // Helper method to check if tag name already exists
     public boolean isTagNameExists(String tagName) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String selectQuery = "SELECT COUNT(*) FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_NAME + " = ?";
+        String selectQuery = SQL_COUNT_TAGS_BY_NAME;
         Cursor cursor = db.rawQuery(selectQuery, new String[]{tagName});
         
         int count = 0;
@@ -623,7 +2024,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             count = cursor.getInt(0);
         }
         cursor.close();
-        db.close();
         
         return count > 0;
     }
@@ -631,7 +2031,7 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     // Get tag by name
     public Tag getTagByName(String tagName) {
         SQLiteDatabase db = this.getReadableDatabase();
-        String selectQuery = "SELECT * FROM " + TABLE_TAGS + " WHERE " + COLUMN_TAG_NAME + " = ?";
+        String selectQuery = SQL_TAG_BY_NAME;
         Cursor cursor = db.rawQuery(selectQuery, new String[]{tagName});
 
         Tag tag = null;
@@ -640,7 +2040,6 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         }
 
         cursor.close();
-        db.close();
         return tag;
     }
 }
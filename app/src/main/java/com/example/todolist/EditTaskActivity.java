@@ -30,6 +30,8 @@ import java.util.ArrayList;
 
 public class EditTaskActivity extends AppCompatActivity {
     private DatabaseHelper databaseHelper;
+    private TaskRepository repository;
+    private TaskRepository.Request tagSearchRequest;
     private ReminderAlarmManager reminderAlarmManager;
     private TagManager tagManager;
     private EditText editTitle, editDescription, editTopic;
@@ -47,7 +49,8 @@ public class EditTaskActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_edit_task);
 
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = TaskRepository.getInstance(this);
         reminderAlarmManager = new ReminderAlarmManager(this);
         tagManager = TagManager.getInstance(this);
 
@@ -80,27 +83,7 @@ public class EditTaskActivity extends AppCompatActivity {
 
         if (taskId != -1) {
             // Load complete task data from database
-            currentTask = databaseHelper.getTaskById(taskId);
-            
-            if (currentTask != null) {
-                // Set text in EditText fields
-                editTitle.setText(currentTask.getTitle() != null ? currentTask.getTitle() : "");
-                editDescription.setText(currentTask.getDescription() != null ? currentTask.getDescription() : "");
-                editTopic.setText(currentTask.getTopic() != null ? currentTask.getTopic() : "");
-                
-                // Set reminder checkbox - simplified UI
-                checkboxReminder.setChecked(currentTask.isReminderEnabled());
-
-                // Load and display tags
-                selectedTags = new ArrayList<>(currentTask.getTags());
-                updateSelectedTagsDisplay();
-
-                android.util.Log.d("EditTaskActivity", "Task loaded successfully with ID: " + currentTask.getId());
-            } else {
-                android.util.Log.e("EditTaskActivity", "Task not found in database");
-                Toast.makeText(this, "Error: Task not found", Toast.LENGTH_SHORT).show();
-                finish();
-            }
+            repository.getTaskById(this, taskId, this::showTask);
         } else {
             android.util.Log.e("EditTaskActivity", "Invalid task ID: " + taskId);
             Toast.makeText(this, "Error: Invalid task data", Toast.LENGTH_SHORT).show();
@@ -108,6 +91,30 @@ public class EditTaskActivity extends AppCompatActivity {
         }
     }
 
+    private void showTask(Task task) {
+        currentTask = task;
+
+        if (currentTask != null) {
+            // Set text in EditText fields
+            editTitle.setText(currentTask.getTitle() != null ? currentTask.getTitle() : "");
+            editDescription.setText(currentTask.getDescription() != null ? currentTask.getDescription() : "");
+            editTopic.setText(currentTask.getTopic() != null ? currentTask.getTopic() : "");
+            
+            // Set reminder checkbox - simplified UI
+            checkboxReminder.setChecked(currentTask.isReminderEnabled());
+
+            // Load and display tags
+            selectedTags = new ArrayList<>(currentTask.getTags());
+            updateSelectedTagsDisplay();
+
+            android.util.Log.d("EditTaskActivity", "Task loaded successfully with ID: " + currentTask.getId());
+        } else {
+            android.util.Log.e("EditTaskActivity", "Task not found in database");
+            Toast.makeText(this, "Error: Task not found", Toast.LENGTH_SHORT).show();
+            finish();
+        }
+    }
+
     private void setupListeners() {
         findViewById(R.id.button_save).setOnClickListener(v -> saveTask());
         findViewById(R.id.button_cancel).setOnClickListener(v -> showCancelConfirmation());
@@ -134,8 +141,7 @@ public class EditTaskActivity extends AppCompatActivity {
         rvTagsSelector.setAdapter(adapter);
 
         // Load all tags
-        List<Tag> allTags = tagManager.getAllTags();
-        adapter.updateTags(allTags);
+        repository.getAllTags(this, adapter::updateTags);
 
         // Search functionality
         etTagSearch.addTextChangedListener(new android.text.TextWatcher() {
@@ -145,13 +151,18 @@ public class EditTaskActivity extends AppCompatActivity {
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 String query = s.toString().trim();
-                List<Tag> filteredTags = tagManager.searchTagsByName(query);
-                adapter.updateTags(filteredTags);
 
-                // Show/hide create new tag button
-                boolean canCreateNew = !query.isEmpty() && tagManager.isTagNameAvailable(query);
-                btnCreateNewTag.setVisibility(canCreateNew ? View.VISIBLE : View.GONE);
-                btnCreateNewTag.setText("Tạo tag: \"" + query + "\"");
+                // Only the latest keystroke's results matter
+                if (tagSearchRequest != null) {
+                    tagSearchRequest.cancel();
+                }
+                tagSearchRequest = repository.searchTags(EditTaskActivity.this, query, result -> {
+                    adapter.updateTags(result.tags);
+
+                    // Show/hide create new tag button
+                    btnCreateNewTag.setVisibility(result.canCreateNew ? View.VISIBLE : View.GONE);
+                    btnCreateNewTag.setText("Tạo tag: \"" + query + "\"");
+                });
             }
 
             @Override
@@ -163,9 +174,10 @@ public class EditTaskActivity extends AppCompatActivity {
             String tagName = etTagSearch.getText().toString().trim();
             if (!tagName.isEmpty()) {
                 showCreateTagDialog(tagName, (newTag) -> {
-                    List<Tag> updatedTags = tagManager.getAllTags();
-                    adapter.updateTags(updatedTags);
-                    adapter.setTagSelected(newTag, true);
+                    repository.getAllTags(this, updatedTags -> {
+                        adapter.updateTags(updatedTags);
+                        adapter.setTagSelected(newTag, true);
+                    });
                     btnCreateNewTag.setVisibility(View.GONE);
                     etTagSearch.setText("");
                 });
@@ -194,11 +206,7 @@ public class EditTaskActivity extends AppCompatActivity {
             TextView tagName = tagChip.findViewById(R.id.tvTagChipName);
             View removeButton = tagChip.findViewById(R.id.ivRemoveTag);
 
-            try {
-                colorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-            } catch (Exception e) {
-                colorDot.setBackgroundColor(Color.GRAY);
-            }
+            colorDot.setBackgroundColor(tag.getParsedColor());
             
             tagName.setText(tag.getName());
             removeButton.setVisibility(View.VISIBLE);
@@ -213,6 +221,12 @@ public class EditTaskActivity extends AppCompatActivity {
     }
 
     private void showCancelConfirmation() {
+        // Nothing to compare against until the task has loaded
+        if (currentTask == null) {
+            finish();
+            return;
+        }
+
         // Check if there are unsaved changes
         String currentTitle = editTitle.getText().toString().trim();
         String currentDescription = editDescription.getText().toString().trim();
@@ -235,6 +249,12 @@ public class EditTaskActivity extends AppCompatActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll(this);
+        super.onDestroy();
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
@@ -274,39 +294,42 @@ public class EditTaskActivity extends AppCompatActivity {
 
         android.util.Log.d("EditTaskActivity", "Updating task with ID: " + currentTask.getId());
 
-        try {
-            int result = databaseHelper.updateTask(currentTask);
-            android.util.Log.d("EditTaskActivity", "Update result: " + result);
-
-            if (result > 0) {
-                // Update alarm/reminder
-                reminderAlarmManager.updateReminder(currentTask);
-                
-                // Update widget immediately after task update
-                android.util.Log.d("EditTaskActivity", "Triggering widget update after task edit");
-                TaskWidgetProvider.updateAllWidgets(this);
-                
-                Toast.makeText(this, "Task updated successfully", Toast.LENGTH_SHORT).show();
-
-                // Return updated data
-                Intent resultIntent = new Intent();
-                resultIntent.putExtra("updated_task_id", currentTask.getId());
-                resultIntent.putExtra("updated_task_title", currentTask.getTitle());
-                resultIntent.putExtra("updated_task_description", currentTask.getDescription());
-                resultIntent.putExtra("updated_task_topic", currentTask.getTopic());
-                resultIntent.putExtra("updated_task_date", currentTask.getCreatedDate());
-                resultIntent.putExtra("updated_task_completed", currentTask.isCompleted());
-                resultIntent.putExtra("task_updated", true);
-                setResult(RESULT_OK, resultIntent);
-
-                finish();
-            } else {
-                Toast.makeText(this, "Failed to update task", Toast.LENGTH_SHORT).show();
-                android.util.Log.e("EditTaskActivity", "Update failed - no rows affected");
-            }
-        } catch (Exception e) {
+        findViewById(R.id.button_save).setEnabled(false);
+        repository.execute(this, () -> databaseHelper.updateTask(currentTask), this::onTaskSaved, e -> {
+            findViewById(R.id.button_save).setEnabled(true);
             Toast.makeText(this, "Error updating task: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                         android.util.Log.e("EditTaskActivity", "Exception updating task", e);
+        });
+    }
+
+    private void onTaskSaved(int result) {
+        android.util.Log.d("EditTaskActivity", "Update result: " + result);
+
+        if (result > 0) {
+            // Update alarm/reminder
+            reminderAlarmManager.updateReminder(currentTask);
+            
+            // Update widget immediately after task update
+            android.util.Log.d("EditTaskActivity", "Triggering widget update after task edit");
+            TaskWidgetProvider.updateAllWidgets(this);
+            
+            Toast.makeText(this, "Task updated successfully", Toast.LENGTH_SHORT).show();
+
+            // Return updated data
+            Intent resultIntent = new Intent();
+            resultIntent.putExtra("updated_task_id", currentTask.getId());
+            resultIntent.putExtra("updated_task_title", currentTask.getTitle());
+            resultIntent.putExtra("updated_task_description", currentTask.getDescription());
+            resultIntent.putExtra("updated_task_topic", currentTask.getTopic());
+            resultIntent.putExtra("updated_task_date", currentTask.getCreatedDate());
+            resultIntent.putExtra("updated_task_completed", currentTask.isCompleted());
+            resultIntent.putExtra("task_updated", true);
+            setResult(RESULT_OK, resultIntent);
+
+            finish();
+        } else {
+            findViewById(R.id.button_save).setEnabled(true);
+            Toast.makeText(this, "Failed to update task", Toast.LENGTH_SHORT).show();
+            android.util.Log.e("EditTaskActivity", "Update failed - no rows affected");
         }
     }
 
@@ -332,7 +355,10 @@ public class EditTaskActivity extends AppCompatActivity {
         tvPreviewName.setText(initialName.isEmpty() ? "Tag Name" : initialName);
         
         // Set initial button state
-        btnConfirmCreateTag.setEnabled(!initialName.isEmpty() && tagManager.isTagNameAvailable(initialName));
+        btnConfirmCreateTag.setEnabled(false);
+        if (!initialName.isEmpty()) {
+            repository.isTagNameAvailable(this, initialName, btnConfirmCreateTag::setEnabled);
+        }
 
         // Setup color picker
         List<String> colors = Arrays.asList(tagManager.getAllColors());
@@ -366,7 +392,15 @@ public class EditTaskActivity extends AppCompatActivity {
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 String name = s.toString().trim();
                 tvPreviewName.setText(name.isEmpty() ? "Tag Name" : name);
-                btnConfirmCreateTag.setEnabled(!name.isEmpty() && tagManager.isTagNameAvailable(name));
+                btnConfirmCreateTag.setEnabled(false);
+                if (!name.isEmpty()) {
+                    repository.isTagNameAvailable(EditTaskActivity.this, name, available -> {
+                        // Ignore answers for text the user has since changed
+                        if (name.equals(etNewTagName.getText().toString().trim())) {
+                            btnConfirmCreateTag.setEnabled(available);
+                        }
+                    });
+                }
             }
 
             @Override
@@ -379,16 +413,19 @@ public class EditTaskActivity extends AppCompatActivity {
         btnConfirmCreateTag.setOnClickListener(v -> {
             String tagName = etNewTagName.getText().toString().trim();
             String selectedColor = colorAdapter.getSelectedColor();
-            
-            if (!tagName.isEmpty() && tagManager.isTagNameAvailable(tagName)) {
-                Tag newTag = tagManager.createTag(tagName, selectedColor);
-                if (listener != null) {
-                    listener.onTagCreated(newTag);
+
+            btnConfirmCreateTag.setEnabled(false);
+            repository.createTag(this, tagName, selectedColor, newTag -> {
+                if (newTag != null) {
+                    if (listener != null) {
+                        listener.onTagCreated(newTag);
+                    }
+                    dialog.dismiss();
+                } else {
+                    btnConfirmCreateTag.setEnabled(true);
+                    Toast.makeText(this, "Tên tag đã tồn tại hoặc không hợp lệ", Toast.LENGTH_SHORT).show();
                 }
-                dialog.dismiss();
-            } else {
-                Toast.makeText(this, "Tên tag đã tồn tại hoặc không hợp lệ", Toast.LENGTH_SHORT).show();
-            }
+            });
         });
 
         dialog.show();
@@ -33,25 +33,30 @@ import com.google.android.flexbox.FlexboxLayoutManager;
 import android.graphics.Color;
 import android.widget.TextView;
 import java.util.Arrays;
-import java.util.HashMap;
 
-import java.sql.Time;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTaskClickListener {
-    private static final int PAGE_SIZE = 5; // 5 tasks per page
+    // Paging for the main list; see PagedTaskSource
+    private static final int PAGE_SIZE = 30;
+    private static final int PREFETCH_DISTANCE = 40; // tasks fetched ahead of the viewport before a fling
+    private static final int MAX_LOADED_PAGES = 10;
 
     private DatabaseHelper databaseHelper;
     private TagManager tagManager;
+    private TaskRepository repository;
     private TaskAdapter taskAdapter;
     private RecyclerView recyclerView;
     private EditText editTitle, editDescription, editTopic, editDeadline;
     private Button buttonAddTask, buttonClearFilter, btnMainSelectTags;
     private Spinner spinnerTopicFilter;
     private FlexboxLayout flexboxMainSelectedTags;
-    private List<Task> allTasks;
+    private PagedTaskSource taskSource;
     private List<Tag> selectedMainTags = new ArrayList<>();
 
     // Tag filtering
@@ -60,7 +65,8 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
     private Button btnClearFilter;
     private FlexboxLayout flexboxFilterTags;
     private List<Tag> currentFilterTags = new ArrayList<>();
-    private List<Task> originalAllTasks = new ArrayList<>(); // Keep original list
+    private DatabaseHelper.TagMatchMode tagMatchMode = DatabaseHelper.TagMatchMode.ANY;
+    private androidx.appcompat.widget.SwitchCompat switchTagMatchAll;
     
     // Unified filter toggle and components
     private LinearLayout layoutTagFilterHeader, layoutTagFilterContent;
@@ -90,13 +96,17 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
     private ImageView iconTasksDueToggle;
     private boolean isTasksDueNextWeekExpanded = true; // Mặc định mở
 
-    // Pagination variables
-    private int currentPage = 0;
-    private boolean isLoading = false;
-    private boolean hasMoreData = true;
     private String currentFilterTopic = null;
     private boolean initialLoadComplete = false;
 
+    // Task search: while a query is set it narrows the list together with the topic and tag filters
+    private static final long SEARCH_DEBOUNCE_MS = 250;
+    private EditText editSearchTasks;
+    private String currentSearchQuery = null;
+    private final android.os.Handler searchHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    private Runnable pendingSearch;
+    private TaskRepository.Request tagSearchRequest;
+
     private ReminderService reminderService;
     private ReminderAlarmManager reminderAlarmManager;
 
@@ -128,6 +138,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         setupClickListeners();
         setupAddTaskToggle();
         setupTagFilter();
+        setupSearch();
         
         // Initialize filter type UI after all components are set up
         switchToFilterType(currentFilterType);
@@ -139,42 +150,6 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             testReminder();
             return true;
         });
-        
-        // Debug: Single tap on title to test filtering
-        if (getSupportActionBar() != null) {
-            findViewById(R.id.toolbar).setOnClickListener(v -> {
-                debugTestFiltering();
-            });
-        }
-        
-        // Add a simple test: Long press Clear Filter button for instant test
-        buttonClearFilter.setOnLongClickListener(v -> {
-            android.util.Log.d("MainActivity", "Quick filter test triggered");
-            List<String> topics = databaseHelper.getAllTopics();
-            if (!topics.isEmpty()) {
-                String firstTopic = topics.get(0);
-                android.util.Log.d("MainActivity", "Quick test: Filtering by " + firstTopic);
-                currentFilterTopic = firstTopic;
-                applyFilterImmediately();
-                return true;
-            }
-            Toast.makeText(this, "No topics available for quick test", Toast.LENGTH_SHORT).show();
-            return true;
-        });
-        
-        // Normal click clears filter, but also test widget update
-        buttonClearFilter.setOnClickListener(v -> {
-            clearFilter();
-            // Also update widget when clearing filter
-            TaskWidgetProvider.updateAllWidgets(this);
-            Toast.makeText(this, "🔄 Filter cleared & widget updated!", Toast.LENGTH_SHORT).show();
-        });
-        
-        // Triple tap to cycle widget themes
-        buttonClearFilter.setOnLongClickListener(v -> {
-            showWidgetThemeDialog();
-            return true;
-        });
 
         // Move setupTopicFilter to the end and add safety check
         try {
@@ -207,9 +182,6 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         
         // Load initial tasks due next week (adapter is now initialized)
         loadTasksDueNextWeek();
-        
-        // Update widget when app starts
-        TaskWidgetProvider.updateAllWidgets(this);
     }
 
     private void initViews() {
@@ -218,6 +190,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         setSupportActionBar(toolbar);
 
         recyclerView = findViewById(R.id.recycler_tasks);
+        editSearchTasks = findViewById(R.id.edit_search_tasks);
         editTitle = findViewById(R.id.edit_title);
         editDescription = findViewById(R.id.edit_description);
         editTopic = findViewById(R.id.edit_topic);
@@ -232,6 +205,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         rvTagFilter = findViewById(R.id.rvTagFilter);
         btnClearFilter = findViewById(R.id.btnClearFilter);
         flexboxFilterTags = findViewById(R.id.flexboxFilterTags);
+        switchTagMatchAll = findViewById(R.id.switchTagMatchAll);
         
         // Unified filter toggle views
         layoutTagFilterHeader = findViewById(R.id.layout_tag_filter_header);
@@ -259,49 +233,72 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
     }
 
     private void setupDatabase() {
-        databaseHelper = new DatabaseHelper(this);
+        databaseHelper = DatabaseHelper.getInstance(this);
+        repository = TaskRepository.getInstance(this);
     }
 
     private void setupRecyclerView() {
-        allTasks = new ArrayList<>();
-        taskAdapter = new TaskAdapter(this, allTasks);
+        taskAdapter = new TaskAdapter(this, new ArrayList<>());
         taskAdapter.setOnTaskClickListener(this);
 
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(taskAdapter);
 
-        // Improved scroll listener for pagination
+        taskSource = new PagedTaskSource(repository, databaseHelper, this, PAGE_SIZE, PREFETCH_DISTANCE,
+                MAX_LOADED_PAGES, new PagedTaskSource.Listener() {
+            @Override
+            public void onTasksChanged(List<Task> tasks, boolean loadingMore) {
+                taskAdapter.updateTasks(tasks);
+                taskAdapter.setLoading(loadingMore);
+            }
+
+            @Override
+            public void onFirstPageLoaded(List<Task> firstPage) {
+                android.util.Log.d("MainActivity", "Found " + firstPage.size() + " tasks on the first page");
+
+                // Tag counts may have changed along with the tasks
+                loadTagsForFilter();
+
+                // Refresh tasks due next week when main data changes (with null check)
+                if (tasksDueNextWeekAdapter != null) {
+                    loadTasksDueNextWeek();
+                }
+
+                initialLoadComplete = true;
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                initialLoadComplete = true;
+                Toast.makeText(MainActivity.this, "Không tải được danh sách công việc, đang thử lại...",
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        // Every scroll reports the visible range; the source prefetches from it in the background
         recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
             public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
                 super.onScrolled(recyclerView, dx, dy);
-
-                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
-                
-                // Only enable pagination scrolling when NO filter is active
-                boolean isFiltering = (currentFilterTopic != null && !"All Topics".equals(currentFilterTopic));
-                
-                if (layoutManager != null && !isLoading && hasMoreData && !isFiltering) {
-                    int visibleItemCount = layoutManager.getChildCount();
-                    int totalItemCount = layoutManager.getItemCount();
-                    int firstVisibleItemPosition = layoutManager.findFirstVisibleItemPosition();
-
-                    // Load more when user scrolls to near the end (within 2 items)
-                    if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount - 2) {
-                        android.util.Log.d("MainActivity", "Triggering load more - visible: " + visibleItemCount + ", total: " + totalItemCount + ", first: " + firstVisibleItemPosition);
-                        loadMoreTasks();
-                    }
-                } else if (isFiltering) {
-                    android.util.Log.d("MainActivity", "Scroll ignored - filtering active");
-                }
+                taskSource.onScrolled(layoutManager.findFirstVisibleItemPosition(),
+                        layoutManager.findLastVisibleItemPosition());
             }
         });
     }
 
     private void setupClickListeners() {
         buttonAddTask.setOnClickListener(v -> addTask());
-        buttonClearFilter.setOnClickListener(v -> clearFilter());
+        // Clearing the filter also refreshes the widget; a long press picks the widget theme
+        buttonClearFilter.setOnClickListener(v -> {
+            clearFilter();
+            TaskWidgetProvider.updateAllWidgets(this);
+            Toast.makeText(this, "🔄 Filter cleared & widget updated!", Toast.LENGTH_SHORT).show();
+        });
+        buttonClearFilter.setOnLongClickListener(v -> {
+            showWidgetThemeDialog();
+            return true;
+        });
         btnMainSelectTags.setOnClickListener(v -> showMainTagSelectionDialog());
 
         // Add date/time picker for deadline field
@@ -431,12 +428,8 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             tvTagFilterHint.setText("Đang lọc theo " + currentTypeText);
         }
         
-        // Clear existing filters when switching type (only if components are initialized)
-        if (filterType == FilterType.TOPIC) {
-            clearTagFilter();
-        } else {
-            clearTopicFilter();
-        }
+        // Topic and tag filters combine in one TaskQuery, so switching only changes which picker is shown
+        updateFilterDisplay();
     }
 
     private void clearTopicFilter() {
@@ -477,8 +470,17 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         // Set tags if any selected
         task.setTags(new ArrayList<>(selectedMainTags));
 
-        long id = databaseHelper.addTask(task);
+        buttonAddTask.setEnabled(false);
+        repository.execute(this, () -> databaseHelper.addTask(task), id -> {
+            buttonAddTask.setEnabled(true);
+            onTaskAdded(task, id);
+        }, e -> {
+            buttonAddTask.setEnabled(true);
+            Toast.makeText(this, "Failed to add task", Toast.LENGTH_SHORT).show();
+        });
+    }
 
+    private void onTaskAdded(Task task, long id) {
         if (id > 0) {
             task.setId((int) id);
             
@@ -504,9 +506,6 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             if (tasksDueNextWeekAdapter != null) {
                 loadTasksDueNextWeek();
             }
-            
-            // Update widgets
-            TaskWidgetProvider.updateAllWidgets(this);
         } else {
             Toast.makeText(this, "Failed to add task", Toast.LENGTH_SHORT).show();
         }
@@ -539,8 +538,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         rvTagsSelector.setAdapter(adapter);
 
         // Load all tags
-        List<Tag> allTags = tagManager.getAllTags();
-        adapter.updateTags(allTags);
+        repository.getAllTags(this, adapter::updateTags);
 
         // Search functionality
         etTagSearch.addTextChangedListener(new android.text.TextWatcher() {
@@ -550,13 +548,18 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             @Override
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 String query = s.toString().trim();
-                List<Tag> filteredTags = tagManager.searchTagsByName(query);
-                adapter.updateTags(filteredTags);
 
-                // Show/hide create new tag button
-                boolean canCreateNew = !query.isEmpty() && tagManager.isTagNameAvailable(query);
-                btnCreateNewTag.setVisibility(canCreateNew ? View.VISIBLE : View.GONE);
-                btnCreateNewTag.setText("Tạo tag: \"" + query + "\"");
+                // Only the latest keystroke's results matter
+                if (tagSearchRequest != null) {
+                    tagSearchRequest.cancel();
+                }
+                tagSearchRequest = repository.searchTags(MainActivity.this, query, result -> {
+                    adapter.updateTags(result.tags);
+
+                    // Show/hide create new tag button
+                    btnCreateNewTag.setVisibility(result.canCreateNew ? View.VISIBLE : View.GONE);
+                    btnCreateNewTag.setText("Tạo tag: \"" + query + "\"");
+                });
             }
 
             @Override
@@ -568,9 +571,10 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             String tagName = etTagSearch.getText().toString().trim();
             if (!tagName.isEmpty()) {
                 showCreateTagDialog(tagName, (newTag) -> {
-                    List<Tag> updatedTags = tagManager.getAllTags();
-                    adapter.updateTags(updatedTags);
-                    adapter.setTagSelected(newTag, true);
+                    repository.getAllTags(this, updatedTags -> {
+                        adapter.updateTags(updatedTags);
+                        adapter.setTagSelected(newTag, true);
+                    });
                     btnCreateNewTag.setVisibility(View.GONE);
                     etTagSearch.setText("");
                 });
@@ -599,11 +603,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             TextView tagName = tagChip.findViewById(R.id.tvTagChipName);
             View removeButton = tagChip.findViewById(R.id.ivRemoveTag);
 
-            try {
-                colorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-            } catch (Exception e) {
-                colorDot.setBackgroundColor(Color.GRAY);
-            }
+            colorDot.setBackgroundColor(tag.getParsedColor());
             
             tagName.setText(tag.getName());
             removeButton.setVisibility(View.VISIBLE);
@@ -639,7 +639,10 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         tvPreviewName.setText(initialName.isEmpty() ? "Tag Name" : initialName);
         
         // Set initial button state
-        btnConfirmCreateTag.setEnabled(!initialName.isEmpty() && tagManager.isTagNameAvailable(initialName));
+        btnConfirmCreateTag.setEnabled(false);
+        if (!initialName.isEmpty()) {
+            repository.isTagNameAvailable(this, initialName, btnConfirmCreateTag::setEnabled);
+        }
 
         // Setup color picker
         List<String> colors = Arrays.asList(tagManager.getAllColors());
@@ -673,7 +676,15 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             public void onTextChanged(CharSequence s, int start, int before, int count) {
                 String name = s.toString().trim();
                 tvPreviewName.setText(name.isEmpty() ? "Tag Name" : name);
-                btnConfirmCreateTag.setEnabled(!name.isEmpty() && tagManager.isTagNameAvailable(name));
+                btnConfirmCreateTag.setEnabled(false);
+                if (!name.isEmpty()) {
+                    repository.isTagNameAvailable(MainActivity.this, name, available -> {
+                        // Ignore answers for text the user has since changed
+                        if (name.equals(etNewTagName.getText().toString().trim())) {
+                            btnConfirmCreateTag.setEnabled(available);
+                        }
+                    });
+                }
             }
 
             @Override
@@ -686,16 +697,19 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         btnConfirmCreateTag.setOnClickListener(v -> {
             String tagName = etNewTagName.getText().toString().trim();
             String selectedColor = colorAdapter.getSelectedColor();
-            
-            if (!tagName.isEmpty() && tagManager.isTagNameAvailable(tagName)) {
-                Tag newTag = tagManager.createTag(tagName, selectedColor);
-                if (listener != null) {
-                    listener.onTagCreated(newTag);
+
+            btnConfirmCreateTag.setEnabled(false);
+            repository.createTag(this, tagName, selectedColor, newTag -> {
+                if (newTag != null) {
+                    if (listener != null) {
+                        listener.onTagCreated(newTag);
+                    }
+                    dialog.dismiss();
+                } else {
+                    btnConfirmCreateTag.setEnabled(true);
+                    Toast.makeText(this, "Tên tag đã tồn tại hoặc không hợp lệ", Toast.LENGTH_SHORT).show();
                 }
-                dialog.dismiss();
-            } else {
-                Toast.makeText(this, "Tên tag đã tồn tại hoặc không hợp lệ", Toast.LENGTH_SHORT).show();
-            }
+            });
         });
 
         dialog.show();
@@ -739,67 +753,49 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             btnClearFilter.setOnClickListener(v -> clearTagFilter());
         }
 
+        // OR by default; switched on, tasks must carry every selected tag
+        if (switchTagMatchAll != null) {
+            switchTagMatchAll.setOnCheckedChangeListener((buttonView, isChecked) -> {
+                tagMatchMode = isChecked ? DatabaseHelper.TagMatchMode.ALL : DatabaseHelper.TagMatchMode.ANY;
+                if (currentFilterTags.size() > 1) {
+                    updateFilteredTasks();
+                }
+            });
+        }
+
         // Load initial tag data
         loadTagsForFilter();
     }
 
     private void loadTagsForFilter() {
         // Only load if components are initialized
-        if (tagFilterAdapter == null || originalAllTasks == null || tagManager == null) {
+        if (tagFilterAdapter == null) {
             return;
         }
         
-        List<Tag> allTags = tagManager.getAllTags();
-        List<TagFilterAdapter.TagWithCount> tagsWithCount = new ArrayList<>();
+        repository.getTagUsageCounts(this, this::showTagsForFilter);
+    }
 
-        // Count tasks for each tag
-        for (Tag tag : allTags) {
-            int taskCount = 0;
-            for (Task task : originalAllTasks) {
-                if (task.hasTag(tag)) {
-                    taskCount++;
-                }
-            }
-            if (taskCount > 0) { // Only show tags that have tasks
-                tagsWithCount.add(new TagFilterAdapter.TagWithCount(tag, taskCount));
-            }
+    // Counts come from the tags.usage_count counters and cover every task, loaded or not
+    private void showTagsForFilter(Map<Tag, Integer> usageCounts) {
+        List<TagFilterAdapter.TagWithCount> tagsWithCount = new ArrayList<>();
+        for (Map.Entry<Tag, Integer> entry : usageCounts.entrySet()) {
+            tagsWithCount.add(new TagFilterAdapter.TagWithCount(entry.getKey(), entry.getValue()));
         }
-
         tagFilterAdapter.updateTagsWithCount(tagsWithCount);
     }
 
     private void updateFilteredTasks() {
-        // Only apply tag filtering when in TAG mode and components are initialized
-        if (currentFilterType == FilterType.TAG && taskAdapter != null && allTasks != null && originalAllTasks != null) {
-            if (currentFilterTags.isEmpty()) {
-                // No tag filter - show all tasks
-                allTasks = new ArrayList<>(originalAllTasks);
-            } else {
-                // Filter tasks that contain ANY of the selected tags
-                allTasks = new ArrayList<>();
-                for (Task task : originalAllTasks) {
-                    boolean hasMatchingTag = false;
-                    for (Tag filterTag : currentFilterTags) {
-                        if (task.hasTag(filterTag)) {
-                            hasMatchingTag = true;
-                            break;
-                        }
-                    }
-                    if (hasMatchingTag) {
-                        allTasks.add(task);
-                    }
-                }
-            }
-
-            // Update the adapter
-            taskAdapter.updateTasks(allTasks);
+        // Tag filters run in SQL (DatabaseHelper.getTasks) and page like the unfiltered list,
+        // so tasks that are not loaded yet are included
+        if (taskAdapter != null && initialLoadComplete) {
+            applyFilterImmediately();
         }
-        // Topic filtering is handled by applyFilterImmediately() and filterTasksByTopic()
     }
 
     private void updateFilterDisplay() {
-        // Only show tag-related UI when in TAG filter mode and components are initialized
-        if (currentFilterType == FilterType.TAG && !currentFilterTags.isEmpty() && 
+        // Selected tags stay visible in either mode since they keep filtering the list
+        if (!currentFilterTags.isEmpty() && 
             btnClearFilter != null && flexboxFilterTags != null) {
             btnClearFilter.setVisibility(View.VISIBLE);
             flexboxFilterTags.setVisibility(View.VISIBLE);
@@ -820,11 +816,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             TextView tagName = tagChip.findViewById(R.id.tvTagChipName);
             View removeButton = tagChip.findViewById(R.id.ivRemoveTag);
 
-            try {
-                colorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-            } catch (Exception e) {
-                colorDot.setBackgroundColor(Color.GRAY);
-            }
+            colorDot.setBackgroundColor(tag.getParsedColor());
             
             tagName.setText(tag.getName());
             removeButton.setVisibility(View.VISIBLE);
@@ -849,160 +841,94 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         updateFilterDisplay();
     }
 
-    private void loadInitialTasks() {
-        android.util.Log.d("MainActivity", "Loading initial tasks");
-        currentFilterTopic = null; // Reset filter on initial load
-        applyFilterImmediately();
-    }
-
-    private void loadMoreTasks() {
-        if (isLoading || !hasMoreData) return;
-
-        isLoading = true;
-        taskAdapter.setLoading(true);
-
-        // Add debug logging to check pagination
-        android.util.Log.d("MainActivity", "Loading page: " + currentPage + ", offset: " + (currentPage * PAGE_SIZE));
-
-        // Reduced delay for better UX
-        new android.os.Handler().postDelayed(() -> {
-            List<Task> newTasks;
-            int offset = currentPage * PAGE_SIZE;
-
-            try {
-                if (currentFilterTopic == null || "All Topics".equals(currentFilterTopic)) {
-                    newTasks = databaseHelper.getAllTasks(PAGE_SIZE, offset);
-                    android.util.Log.d("MainActivity", "Loaded " + newTasks.size() + " tasks without filter");
-                } else {
-                    newTasks = databaseHelper.getTasksByTopic(currentFilterTopic, PAGE_SIZE, offset);
-                    android.util.Log.d("MainActivity", "Loaded " + newTasks.size() + " tasks with filter: " + currentFilterTopic);
-                }
+    private void setupSearch() {
+        editSearchTasks.addTextChangedListener(new android.text.TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
 
-                // Check if we have fewer tasks than requested (means we reached the end)
-                if (newTasks.size() < PAGE_SIZE) {
-                    hasMoreData = false;
-                    android.util.Log.d("MainActivity", "No more data available");
-                }
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                String query = s.toString().trim();
 
-                // Important: Only add new tasks, don't replace all
-                if (currentPage == 0) {
-                    // First page - replace all data
-                    allTasks.clear();
-                    allTasks.addAll(newTasks);
-                    taskAdapter.updateTasks(allTasks);
-                    android.util.Log.d("MainActivity", "First page loaded, total tasks: " + allTasks.size());
-                } else {
-                    // Subsequent pages - append new data
-                    int oldSize = allTasks.size();
-                    allTasks.addAll(newTasks);
-                    taskAdapter.addTasks(newTasks);
-                    android.util.Log.d("MainActivity", "Page " + currentPage + " loaded, total tasks: " + allTasks.size() + " (added " + newTasks.size() + ")");
+                // Search once typing pauses instead of on every keystroke
+                if (pendingSearch != null) {
+                    searchHandler.removeCallbacks(pendingSearch);
                 }
+                pendingSearch = () -> applySearch(query);
+                searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+            }
 
-                currentPage++;
+            @Override
+            public void afterTextChanged(android.text.Editable s) {}
+        });
+    }
 
-            } catch (Exception e) {
-                android.util.Log.e("MainActivity", "Error loading tasks", e);
-                hasMoreData = false;
-            } finally {
-                isLoading = false;
-                taskAdapter.setLoading(false);
+    private void applySearch(String query) {
+        if (query.isEmpty()) {
+            if (currentSearchQuery != null) {
+                // Back to the normal (topic-filtered) list
+                currentSearchQuery = null;
+                applyFilterImmediately();
             }
-
-        }, 300); // Standard delay for pagination
+            return;
+        }
+        if (query.equals(currentSearchQuery)) {
+            return;
+        }
+        currentSearchQuery = query;
+        applyFilterImmediately();
     }
-    
-    private void forceReloadTaskList() {
-        android.util.Log.d("MainActivity", "Force reloading task list");
-        initialLoadComplete = false;
-        currentPage = 0;
-        hasMoreData = true;
-        isLoading = false;
-        allTasks.clear();
-        taskAdapter.updateTasks(allTasks);
-        taskAdapter.setLoading(true);
-        loadFilteredTasksImmediately();
+
+    private void loadInitialTasks() {
+        android.util.Log.d("MainActivity", "Loading initial tasks");
+        currentFilterTopic = null; // Reset filter on initial load
+        applyFilterImmediately();
     }
-    
+
     private void applyFilterImmediately() {
         android.util.Log.d("MainActivity", "Applying filter immediately: " + currentFilterTopic);
-        
-        // Stop any existing loading
-        isLoading = false;
-        
-        // Get filtered results directly from database
-        List<Task> filteredTasks;
-        
-        if (currentFilterTopic == null || "All Topics".equals(currentFilterTopic)) {
-            android.util.Log.d("MainActivity", "Loading all tasks (no filter)");
-            filteredTasks = databaseHelper.getAllTasks(PAGE_SIZE, 0);
-            hasMoreData = filteredTasks.size() >= PAGE_SIZE;
-            currentPage = 1;
-        } else {
-            android.util.Log.d("MainActivity", "Loading tasks with filter: " + currentFilterTopic);
-            filteredTasks = databaseHelper.getTasksByTopic(currentFilterTopic);
-            hasMoreData = false; // No pagination for filtered results
-            currentPage = 0;
-        }
-        
-        android.util.Log.d("MainActivity", "Found " + filteredTasks.size() + " tasks");
-        
-        // Update UI immediately on main thread
-        runOnUiThread(() -> {
-            android.util.Log.d("MainActivity", "Starting UI update...");
-            
-            // Clear existing data
-            int oldSize = allTasks.size();
-            allTasks.clear();
-            android.util.Log.d("MainActivity", "Cleared " + oldSize + " old tasks");
-            
-            // Add filtered results
-            allTasks.addAll(filteredTasks);
-            android.util.Log.d("MainActivity", "Added " + filteredTasks.size() + " new tasks");
-            
-            // Update original tasks list for tag filtering (always get all tasks)
-            if (currentFilterTopic == null || "All Topics".equals(currentFilterTopic)) {
-                originalAllTasks = new ArrayList<>(allTasks);
-            } else {
-                // For topic filtering, still get all tasks for tag filter basis
-                originalAllTasks = databaseHelper.getAllTasks();
-            }
-            
-            // Force adapter update
-            taskAdapter.updateTasks(allTasks);
-            taskAdapter.notifyDataSetChanged();
-            android.util.Log.d("MainActivity", "Adapter updated and notified");
-            
-                    // Update tag filter data
-        loadTagsForFilter();
-        
-        // Refresh tasks due next week when main data changes (with null check)
-        if (tasksDueNextWeekAdapter != null) {
-            loadTasksDueNextWeek();
-        }
-            
-            // Hide loading
-            taskAdapter.setLoading(false);
-            
-            // Mark as complete
-            initialLoadComplete = true;
-            
-            android.util.Log.d("MainActivity", "UI update completed with " + allTasks.size() + " tasks");
-            
-            // Show result message
-            //String message = currentFilterTopic == null ?
-            //    "✅ All tasks (" + allTasks.size() + ")" :
-            //    "🔍 " + currentFilterTopic + " (" + allTasks.size() + " tasks)";
-            //Toast.makeText(MainActivity.this, message, Toast.LENGTH_LONG).show();
-        });
+
+        // Starts over from the first page; pages still loading for the previous filter are discarded
+        taskSource.setQuery(currentTaskQuery());
+    }
+
+    private void removeLoadedTask(int taskId) {
+        taskSource.removeTask(taskId);
     }
 
     private boolean isFilteringActive() {
         return currentFilterTopic != null && !"All Topics".equals(currentFilterTopic);
     }
 
+    // Topic for the TaskQuery, or null for all topics
+    private String activeTopicFilter() {
+        return isFilteringActive() ? currentFilterTopic : null;
+    }
+
+    // Tag ids for the TaskQuery; empty when no tag is selected
+    private Set<Integer> activeTagFilter() {
+        Set<Integer> tagIds = new HashSet<>();
+        for (Tag tag : currentFilterTags) {
+            tagIds.add(tag.getId());
+        }
+        return tagIds;
+    }
+
+    // The list's query under the current topic, tag and search filters. The filters combine; each one
+    // left unset matches everything. Search results put title matches first; otherwise newest first.
+    private TaskQuery currentTaskQuery() {
+        return new TaskQuery()
+                .topic(activeTopicFilter())
+                .tags(activeTagFilter(), tagMatchMode)
+                .text(currentSearchQuery)
+                .sortBy(TaskQuery.Sort.RELEVANCE);
+    }
+
     private void setupTopicFilter() {
-        List<String> topics = databaseHelper.getAllTopics();
+        repository.getAllTopics(this, this::showTopicFilter);
+    }
+
+    private void showTopicFilter(List<String> topics) {
         topics.add(0, "All Topics");
 
         ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, topics);
@@ -1097,66 +1023,6 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         applyFilterImmediately();
     }
     
-    private void loadFilteredTasksImmediately() {
-        if (isLoading) return;
-        
-        isLoading = true;
-        android.util.Log.d("MainActivity", "Loading filtered tasks immediately - filter: " + currentFilterTopic);
-        
-        // Use immediate execution for filtering - no delay
-        try {
-            List<Task> newTasks;
-            
-            if (currentFilterTopic == null || "All Topics".equals(currentFilterTopic)) {
-                // For "All Topics" or no filter, start with first page for pagination
-                newTasks = databaseHelper.getAllTasks(PAGE_SIZE, 0);
-                android.util.Log.d("MainActivity", "Loaded " + newTasks.size() + " tasks without filter (pagination mode)");
-                
-                // Check if we have fewer tasks than requested (means we reached the end)
-                if (newTasks.size() < PAGE_SIZE) {
-                    hasMoreData = false;
-                } else {
-                    hasMoreData = true; // More pages available
-                }
-                currentPage = 1; // Set to 1 since we loaded first page
-            } else {
-                // For topic filtering, load ALL matching results immediately (no pagination)
-                newTasks = databaseHelper.getTasksByTopic(currentFilterTopic);
-                android.util.Log.d("MainActivity", "Loaded ALL " + newTasks.size() + " tasks with filter: " + currentFilterTopic);
-                
-                // No more data needed since we loaded everything
-                hasMoreData = false;
-                currentPage = 0; // No pagination for filtered results
-            }
-
-            // Update UI with results on main thread
-            runOnUiThread(() -> {
-                allTasks.clear();
-                allTasks.addAll(newTasks);
-                taskAdapter.updateTasks(allTasks);
-                taskAdapter.notifyDataSetChanged(); // Force adapter refresh
-                
-                android.util.Log.d("MainActivity", "UI updated with " + allTasks.size() + " tasks");
-                
-                // Mark initial load as complete
-                initialLoadComplete = true;
-                android.util.Log.d("MainActivity", "Load completed successfully");
-            });
-
-        } catch (Exception e) {
-            android.util.Log.e("MainActivity", "Error loading tasks", e);
-            hasMoreData = false;
-            runOnUiThread(() -> {
-                initialLoadComplete = true;
-            });
-        } finally {
-            isLoading = false;
-            runOnUiThread(() -> {
-                taskAdapter.setLoading(false);
-            });
-        }
-    }
-
     private void clearFilter() {
         android.util.Log.d("MainActivity", "Clearing filter");
         
@@ -1192,25 +1058,26 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
                     // Cancel reminder alarm before deleting
                     reminderAlarmManager.cancelReminder(task.getId());
                     
-                    int result = databaseHelper.deleteTask(task.getId());
-                    if (result > 0) {
-                        taskAdapter.removeTask(task.getId());
-                        Toast.makeText(this, "Task deleted successfully", Toast.LENGTH_SHORT).show();
-                    
-                    // Update widget immediately when task is deleted
-                    TaskWidgetProvider.updateAllWidgets(this);
-                        setupTopicFilter(); // Refresh topic filter
-                        
-                        // Refresh the due next week list (with null check)
-                        if (tasksDueNextWeekAdapter != null) {
-                            loadTasksDueNextWeek();
+                    repository.execute(this, () -> databaseHelper.deleteTask(task.getId()), result -> {
+                        if (result > 0) {
+                            removeLoadedTask(task.getId());
+                            Toast.makeText(this, "Task deleted successfully", Toast.LENGTH_SHORT).show();
+
+                            setupTopicFilter(); // Refresh topic filter
+
+                            // Refresh the due next week list (with null check)
+                            if (tasksDueNextWeekAdapter != null) {
+                                loadTasksDueNextWeek();
+                            }
+
+                            // Update widget immediately after deleting task
+                            TaskWidgetProvider.updateAllWidgets(this);
+                        } else {
+                            Toast.makeText(this, "Failed to delete task", Toast.LENGTH_SHORT).show();
                         }
-
-                        // Update widget immediately after deleting task
-                        TaskWidgetProvider.updateAllWidgets(this);
-                    } else {
-                        Toast.makeText(this, "Failed to delete task", Toast.LENGTH_SHORT).show();
-                    }
+                    }, e -> {
+                        Toast.makeText(this, "Error deleting task: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    });
                 } catch (Exception e) {
                     Toast.makeText(this, "Error deleting task: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     android.util.Log.e("MainActivity", "Error deleting task", e);
@@ -1223,23 +1090,17 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
 
     @Override
     public void onTaskStatusChange(Task task) {
-        try {
-            // Set completed date when task is marked as completed
-            if (task.isCompleted()) {
-                task.setCompletedDate(java.text.DateFormat.getDateTimeInstance().format(new java.util.Date()));
-            } else {
-                task.setCompletedDate(null);
-            }
-            
-            int result = databaseHelper.updateTask(task);
+        // Set completed date when task is marked as completed
+        if (task.isCompleted()) {
+            task.markCompletedAt(System.currentTimeMillis());
+        } else {
+            task.markCompletedAt(TaskDates.NO_DATE);
+        }
+
+        repository.execute(this, () -> databaseHelper.updateTask(task), result -> {
             if (result > 0) {
-                            String message = task.isCompleted() ? "Task marked as completed" : "Task marked as incomplete";
-            
-            // Update widget immediately when task completion status changes
-            android.util.Log.d("MainActivity", "Triggering widget update after task status change");
-            TaskWidgetProvider.updateAllWidgets(this);
-            
-            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+                String message = task.isCompleted() ? "Task marked as completed" : "Task marked as incomplete";
+                Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
                 taskAdapter.updateTask(task);
                 
                 // Handle reminders based on task completion status
@@ -1257,6 +1118,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
                 }
 
                 // Update widget immediately after status change
+                android.util.Log.d("MainActivity", "Triggering widget update after task status change");
                 TaskWidgetProvider.updateAllWidgets(this);
             } else {
                 // Revert the change if update failed
@@ -1264,13 +1126,12 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
                 taskAdapter.updateTask(task);
                 Toast.makeText(this, "Failed to update task status", Toast.LENGTH_SHORT).show();
             }
-        } catch (Exception e) {
+        }, e -> {
             // Revert the change if update failed
             task.setCompleted(!task.isCompleted());
             taskAdapter.updateTask(task);
             Toast.makeText(this, "Error updating task: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            android.util.Log.e("MainActivity", "Error updating task", e);
-        }
+        });
     }
 
     @Override
@@ -1289,7 +1150,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
             // Task was deleted in TaskDetailActivity
             int deletedTaskId = data.getIntExtra("deleted_task_id", -1);
             if (deletedTaskId != -1) {
-                taskAdapter.removeTask(deletedTaskId);
+                removeLoadedTask(deletedTaskId);
                 setupTopicFilter(); // Refresh topic filter
                 
                 // Refresh the due next week list (with null check)
@@ -1314,7 +1175,7 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
                 updatedTask.setCreatedDate(data.getStringExtra("updated_task_date"));
                 updatedTask.setCompleted(data.getBooleanExtra("updated_task_completed", false));
 
-                taskAdapter.updateTask(updatedTask);
+                taskSource.replaceTask(updatedTask);
                 setupTopicFilter(); // Refresh topic filter in case topic changed
                 
                 // Refresh the due next week list (with null check)
@@ -1411,38 +1272,6 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         android.util.Log.d("MainActivity", "Test reminder dialog shown");
     }
     
-    private void debugTestFiltering() {
-        android.util.Log.d("MainActivity", "Debug: Testing filtering");
-        
-        // Get all available topics for testing
-        List<String> topics = databaseHelper.getAllTopics();
-        
-        if (topics.isEmpty()) {
-            Toast.makeText(this, "No topics available for filtering test", Toast.LENGTH_SHORT).show();
-            return;
-        }
-        
-        // Create test dialog with available topics
-        String[] topicArray = topics.toArray(new String[0]);
-        
-        new androidx.appcompat.app.AlertDialog.Builder(this)
-            .setTitle("Debug: Test Filtering")
-            .setItems(topicArray, (dialog, which) -> {
-                String selectedTopic = topicArray[which];
-                android.util.Log.d("MainActivity", "Debug: Manually filtering by: " + selectedTopic);
-                
-                // Force filter manually
-                currentFilterTopic = selectedTopic;
-                applyFilterImmediately();
-            })
-            .setNegativeButton("Clear Filter", (dialog, which) -> {
-                android.util.Log.d("MainActivity", "Debug: Clearing filter");
-                currentFilterTopic = null;
-                applyFilterImmediately();
-            })
-            .show();
-    }
-
     private void showThemeSelectionDialog() {
         String[] themes = {"System Default", "Dark", "Light"};
         int checkedItem = ThemeManager.getInstance(this).getCurrentThemeIndex();
@@ -1460,79 +1289,23 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
     }
 
     private void loadTasksDueNextWeek() {
-        List<Task> tasksDueNextWeek = new ArrayList<>();
-        
-        // Load ALL tasks from database, not just the ones currently loaded in pagination
-        List<Task> allTasksFromDb = databaseHelper.getAllTasks();
-        android.util.Log.d("MainActivity", "=== LOADING TASKS DUE NEXT WEEK ===");
-        android.util.Log.d("MainActivity", "Total tasks from DB: " + allTasksFromDb.size());
-        
-        int filteredCount = 0;
-        int completedCount = 0;
-        int noDeadlineCount = 0;
-        int dueLaterCount = 0;
-        
-        for (Task task : allTasksFromDb) {
-            if (task.getDeadline() != null) {
-                if (task.isCompleted()) {
-                    completedCount++;
-                    android.util.Log.d("MainActivity", "Task filtered - completed: " + task.getTitle());
-                } else if (isWithinNextWeek(task.getDeadline())) {
-                    tasksDueNextWeek.add(task);
-                    filteredCount++;
-                    android.util.Log.d("MainActivity", "Task added - due next week: " + task.getTitle() + " - " + task.getDeadline());
-                } else {
-                    dueLaterCount++;
-                    android.util.Log.d("MainActivity", "Task filtered - due later: " + task.getTitle() + " - " + task.getDeadline());
-                }
+        // Query and date filtering both run off the main thread
+        repository.execute(this, this::queryTasksDueNextWeek, tasksDueNextWeek -> {
+            // Add null check to prevent crash during initialization
+            if (tasksDueNextWeekAdapter != null) {
+                tasksDueNextWeekAdapter.updateTasks(tasksDueNextWeek);
             } else {
-                noDeadlineCount++;
-                android.util.Log.d("MainActivity", "Task filtered - no deadline: " + task.getTitle());
+                android.util.Log.w("MainActivity", "tasksDueNextWeekAdapter is null, skipping update");
             }
-        }
-        
-        android.util.Log.d("MainActivity", "Tasks due next week: " + filteredCount);
-        android.util.Log.d("MainActivity", "Tasks completed: " + completedCount);
-        android.util.Log.d("MainActivity", "Tasks no deadline: " + noDeadlineCount);
-        android.util.Log.d("MainActivity", "Tasks due later: " + dueLaterCount);
-        android.util.Log.d("MainActivity", "Setting adapter with " + tasksDueNextWeek.size() + " tasks");
-        
-        // Add null check to prevent crash during initialization
-        if (tasksDueNextWeekAdapter != null) {
-            tasksDueNextWeekAdapter.updateTasks(tasksDueNextWeek);
-        } else {
-            android.util.Log.w("MainActivity", "tasksDueNextWeekAdapter is null, skipping update");
-        }
+        });
     }
 
-    private boolean isWithinNextWeek(String deadline) {
-        try {
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd");
-            java.util.Date deadlineDate = sdf.parse(deadline);
-            
-            // Get today at start of day (00:00:00)
-            java.util.Calendar todayCalendar = java.util.Calendar.getInstance();
-            todayCalendar.set(java.util.Calendar.HOUR_OF_DAY, 0);
-            todayCalendar.set(java.util.Calendar.MINUTE, 0);
-            todayCalendar.set(java.util.Calendar.SECOND, 0);
-            todayCalendar.set(java.util.Calendar.MILLISECOND, 0);
-            java.util.Date todayStart = todayCalendar.getTime();
-            
-            // Get next week at end of day (23:59:59)
-            java.util.Calendar nextWeekCalendar = java.util.Calendar.getInstance();
-            nextWeekCalendar.add(java.util.Calendar.DAY_OF_YEAR, 7);
-            nextWeekCalendar.set(java.util.Calendar.HOUR_OF_DAY, 23);
-            nextWeekCalendar.set(java.util.Calendar.MINUTE, 59);
-            nextWeekCalendar.set(java.util.Calendar.SECOND, 59);
-            nextWeekCalendar.set(java.util.Calendar.MILLISECOND, 999);
-            java.util.Date nextWeekEnd = nextWeekCalendar.getTime();
-            
-            // Include tasks from today to 7 days from now (inclusive)
-            return !deadlineDate.before(todayStart) && !deadlineDate.after(nextWeekEnd);
-        } catch (java.text.ParseException e) {
-            android.util.Log.e("MainActivity", "Error parsing deadline date: " + deadline, e);
-            return false;
-        }
+    private List<Task> queryTasksDueNextWeek() {
+        // Today through the end of the day a week from now, filtered and ordered in SQL
+        List<Task> tasksDueNextWeek = databaseHelper.getIncompleteTasksDueBetween(
+                TaskDates.startOfDay(0), TaskDates.endOfDay(TaskDates.DUE_SOON_DAYS), DatabaseHelper.NO_LIMIT);
+        android.util.Log.d("MainActivity", "Tasks due next week: " + tasksDueNextWeek.size());
+        return tasksDueNextWeek;
     }
 
     private void showDateTimePicker() {
@@ -1627,4 +1400,13 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.OnTas
         // Update widget when app comes to foreground  
         TaskWidgetProvider.updateAllWidgets(this);
     }
+
+    @Override
+    protected void onDestroy() {
+        // Drop pending database callbacks so they never touch destroyed views
+        searchHandler.removeCallbacksAndMessages(null);
+        taskSource.cancel();
+        repository.cancelAll(this);
+        super.onDestroy();
+    }
 }
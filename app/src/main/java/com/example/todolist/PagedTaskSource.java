@@ -0,0 +1,301 @@
+package com.example.todolist;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Pages the main list through DatabaseHelper.getTasks on the repository's background pool.
+// Pages ahead of the viewport are fetched before they are needed, further ahead the faster the list
+// scrolls, and at most maxLoadedPages pages are held. Pages far from the viewport are dropped to null
+// placeholders and fetched again from their saved keyset cursor if they scroll back into range.
+// A failed load is retried after a delay that doubles with each failure in a row.
+public class PagedTaskSource {
+    private static final String TAG = "PagedTaskSource";
+
+    // How far ahead a scroll is extrapolated when choosing what to prefetch
+    private static final long VELOCITY_LOOKAHEAD_MS = 500;
+
+    private static final long FIRST_RETRY_DELAY_MS = 1_000;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    // Runs getTasks off the main thread and calls back on it; TaskRepository in the app
+    interface PageLoader {
+        TaskRepository.Request load(TaskQuery query, Task after, int limit, TaskRepository.Callback<List<Task>> callback,
+                                    TaskRepository.ErrorCallback errorCallback);
+    }
+
+    public interface Listener {
+        // One entry per known position, null where that page is not in memory. loadingMore is true while
+        // the page after the last known one is being fetched and nothing beyond it can be shown yet.
+        void onTasksChanged(List<Task> tasks, boolean loadingMore);
+
+        void onFirstPageLoaded(List<Task> firstPage);
+
+        // First failure of a run of failed loads; they are retried until one succeeds
+        void onLoadFailed(Exception e);
+    }
+
+    private final PageLoader loader;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxLoadedPages;
+    private final Listener listener;
+
+    private TaskQuery query;
+    // Cursor each page starts after (null for the first page); one more entry than known pages while
+    // the list can still grow
+    private final List<Task> pageCursors = new ArrayList<>();
+    // Task count of every page loaded at least once, which fixes the positions of dropped pages
+    private final List<Integer> pageSizes = new ArrayList<>();
+    private final Map<Integer, List<Task>> loadedPages = new HashMap<>();
+    private final Map<Integer, TaskRepository.Request> inFlight = new HashMap<>();
+    private boolean endReached;
+
+    // Failed loads in a row, and no page is loaded before retryAt (uptime millis)
+    private int failures;
+    private long retryAt;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable retry = this::ensureLoaded;
+
+    private int firstVisible;
+    private int lastVisible;
+    private int lastScrollPosition;
+    private long lastScrollTime;
+    // Items per second, positive towards the end of the list
+    private float velocity;
+
+    public PagedTaskSource(TaskRepository repository, DatabaseHelper databaseHelper, Object owner,
+                           int pageSize, int prefetchDistance, int maxLoadedPages, Listener listener) {
+        this((query, after, limit, callback, errorCallback) -> repository.execute(owner,
+                () -> databaseHelper.getTasks(query, after, limit), callback, errorCallback),
+                pageSize, prefetchDistance, maxLoadedPages, listener);
+    }
+
+    PagedTaskSource(PageLoader loader, int pageSize, int prefetchDistance, int maxLoadedPages, Listener listener) {
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        // The viewport plus prefetch on both sides must fit, or pages would be dropped as soon as loaded
+        this.maxLoadedPages = Math.max(maxLoadedPages, 2 * (prefetchDistance / pageSize + 2));
+        this.listener = listener;
+    }
+
+    // Starts over from the first page; results still in flight for the previous query are discarded
+    public void setQuery(TaskQuery query) {
+        for (TaskRepository.Request request : inFlight.values()) {
+            request.cancel();
+        }
+        inFlight.clear();
+        handler.removeCallbacks(retry);
+        failures = 0;
+        retryAt = 0;
+        loadedPages.clear();
+        pageSizes.clear();
+        pageCursors.clear();
+        pageCursors.add(null);
+        endReached = false;
+        firstVisible = 0;
+        lastVisible = 0;
+        velocity = 0;
+        lastScrollTime = 0;
+        this.query = query;
+        loadPage(0);
+    }
+
+    // Stops loading for good, e.g. when the screen is destroyed
+    public void cancel() {
+        for (TaskRepository.Request request : inFlight.values()) {
+            request.cancel();
+        }
+        inFlight.clear();
+        handler.removeCallbacks(retry);
+    }
+
+    // Reports the visible range after each scroll; fetches what the viewport is heading towards
+    public void onScrolled(int firstVisiblePosition, int lastVisiblePosition) {
+        if (firstVisiblePosition < 0 || lastVisiblePosition < firstVisiblePosition) {
+            return;
+        }
+        long now = SystemClock.uptimeMillis();
+        if (lastScrollTime > 0 && now > lastScrollTime) {
+            float sample = (firstVisiblePosition - lastScrollPosition) * 1000f / (now - lastScrollTime);
+            // Smoothed, so a single uneven frame does not swing the prefetch range
+            velocity = velocity * 0.5f + sample * 0.5f;
+        }
+        lastScrollTime = now;
+        lastScrollPosition = firstVisiblePosition;
+        firstVisible = firstVisiblePosition;
+        lastVisible = lastVisiblePosition;
+        ensureLoaded();
+    }
+
+    public void removeTask(int taskId) {
+        for (Map.Entry<Integer, List<Task>> entry : loadedPages.entrySet()) {
+            List<Task> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).getId() == taskId) {
+                    page.remove(i);
+                    pageSizes.set(entry.getKey(), page.size());
+                    publish();
+                    return;
+                }
+            }
+        }
+    }
+
+    public void replaceTask(Task task) {
+        for (List<Task> page : loadedPages.values()) {
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).getId() == task.getId()) {
+                    page.set(i, task);
+                    publish();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (SystemClock.uptimeMillis() < retryAt) {
+            // The retry callback loads what is in range then
+            return;
+        }
+        int ahead = prefetchDistance;
+        int behind = prefetchDistance;
+        int flingItems = (int) (Math.abs(velocity) * VELOCITY_LOOKAHEAD_MS / 1000);
+        if (velocity > 0) {
+            ahead += flingItems;
+        } else {
+            behind += flingItems;
+        }
+        int wantedFirst = pageAt(Math.max(0, firstVisible - behind));
+        int wantedLast = pageAt(lastVisible + ahead);
+
+        int lastPage = endReached ? pageSizes.size() - 1 : pageCursors.size() - 1;
+        for (int page = wantedFirst; page <= wantedLast && page <= lastPage; page++) {
+            if (!loadedPages.containsKey(page) && !inFlight.containsKey(page)) {
+                loadPage(page);
+            }
+        }
+    }
+
+    // Page holding a position; positions past the known pages map to the pages that would follow
+    int pageAt(int position) {
+        int start = 0;
+        for (int page = 0; page < pageSizes.size(); page++) {
+            start += pageSizes.get(page);
+            if (position < start) {
+                return page;
+            }
+        }
+        return pageSizes.size() + (position - start) / pageSize;
+    }
+
+    private void loadPage(int page) {
+        TaskQuery pageQuery = query;
+        Task after = pageCursors.get(page);
+        inFlight.put(page, loader.load(pageQuery, after, pageSize, tasks -> {
+            inFlight.remove(page);
+            failures = 0;
+            onPageLoaded(page, tasks);
+        }, e -> {
+            inFlight.remove(page);
+            onPageFailed(page, e);
+        }));
+        if (page == pageSizes.size()) {
+            // A spinner row only for the page at the end; refetched pages show as placeholders
+            publish();
+        }
+    }
+
+    private void onPageLoaded(int page, List<Task> tasks) {
+        Log.d(TAG, "Page " + page + ": " + tasks.size() + " tasks");
+        loadedPages.put(page, new ArrayList<>(tasks));
+        boolean newPage = page == pageSizes.size();
+        if (!newPage) {
+            pageSizes.set(page, tasks.size());
+        } else {
+            pageSizes.add(tasks.size());
+            if (tasks.size() < pageSize) {
+                endReached = true;
+            } else {
+                pageCursors.add(cursorAfter(tasks.get(tasks.size() - 1)));
+            }
+        }
+        dropFarPages();
+        publish();
+        if (newPage && page == 0) {
+            listener.onFirstPageLoaded(tasks);
+        }
+        // The next page may already be in range, e.g. during a fast fling
+        ensureLoaded();
+    }
+
+    // The list may still go on, so paging stops only until the retry; the end spinner goes away meanwhile
+    private void onPageFailed(int page, Exception e) {
+        failures++;
+        long delay = Math.min(MAX_RETRY_DELAY_MS, FIRST_RETRY_DELAY_MS << Math.min(failures - 1, 5));
+        Log.w(TAG, "Page " + page + " failed (" + failures + " in a row), retrying in " + delay + " ms", e);
+        retryAt = SystemClock.uptimeMillis() + delay;
+        handler.removeCallbacks(retry);
+        handler.postDelayed(retry, delay);
+        publish();
+        if (failures == 1) {
+            listener.onLoadFailed(e);
+        }
+    }
+
+    // Just the fields getTasks pages on, so a kept cursor does not pin a whole task with its tags
+    private static Task cursorAfter(Task last) {
+        Task cursor = new Task();
+        cursor.setId(last.getId());
+        cursor.setDeadlineAt(last.getDeadlineAt());
+        return cursor;
+    }
+
+    // Drops the loaded pages farthest from the viewport until the window fits
+    private void dropFarPages() {
+        int center = pageAt((firstVisible + lastVisible) / 2);
+        while (loadedPages.size() > maxLoadedPages) {
+            int farthest = -1;
+            for (int page : loadedPages.keySet()) {
+                if (farthest < 0 || Math.abs(page - center) > Math.abs(farthest - center)) {
+                    farthest = page;
+                }
+            }
+            loadedPages.remove(farthest);
+        }
+        Iterator<Map.Entry<Integer, TaskRepository.Request>> requests = inFlight.entrySet().iterator();
+        while (requests.hasNext()) {
+            Map.Entry<Integer, TaskRepository.Request> entry = requests.next();
+            // A refetch that would be dropped again on arrival is not worth finishing
+            if (entry.getKey() < pageSizes.size() && Math.abs(entry.getKey() - center) > maxLoadedPages / 2) {
+                entry.getValue().cancel();
+                requests.remove();
+            }
+        }
+    }
+
+    private void publish() {
+        List<Task> tasks = new ArrayList<>();
+        for (int page = 0; page < pageSizes.size(); page++) {
+            List<Task> loaded = loadedPages.get(page);
+            if (loaded != null) {
+                tasks.addAll(loaded);
+            } else {
+                for (int i = 0; i < pageSizes.get(page); i++) {
+                    tasks.add(null);
+                }
+            }
+        }
+        boolean loadingMore = !endReached && inFlight.containsKey(pageSizes.size());
+        listener.onTasksChanged(tasks, loadingMore);
+    }
+}
@@ -4,17 +4,29 @@ import android.app.NotificationManager;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import android.widget.Toast;
+import androidx.annotation.VisibleForTesting;
 import java.util.Calendar;
 
 public class ReminderActionReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
-        String action = intent.getAction();
         int taskId = intent.getIntExtra("task_id", -1);
         
         if (taskId == -1) return;
-        
+
+        // The task update and reminder cancel go to the database, so they run off the main thread
+        final PendingResult pendingResult = goAsync();
+        TaskRepository.getInstance(context).runForReceiver(pendingResult, "ReminderActionReceiver",
+                () -> handleAction(context, intent, taskId));
+    }
+
+    private void handleAction(Context context, Intent intent, int taskId) {
+        String action = intent.getAction();
+        if (action == null) return;
+
         NotificationManager notificationManager = (NotificationManager) 
             context.getSystemService(Context.NOTIFICATION_SERVICE);
         
@@ -39,30 +51,39 @@ public class ReminderActionReceiver extends BroadcastReceiver {
     
     private void markTaskComplete(Context context, int taskId) {
         try {
-            DatabaseHelper dbHelper = new DatabaseHelper(context);
-            Task task = dbHelper.getTaskById(taskId);
+            Task task = completeTask(DatabaseHelper.getInstance(context), taskId, System.currentTimeMillis());
             
             if (task != null) {
-                task.setCompleted(true);
-                int result = dbHelper.updateTask(task);
+                // Cancel all future reminders for this task
+                ReminderAlarmManager reminderManager = new ReminderAlarmManager(context);
+                reminderManager.cancelReminder(taskId);
                 
-                if (result > 0) {
-                    // Cancel all future reminders for this task
-                    ReminderAlarmManager reminderManager = new ReminderAlarmManager(context);
-                    reminderManager.cancelReminder(taskId);
-                    
-                    // Update widget immediately after task completion
-                    TaskWidgetProvider.updateAllWidgets(context);
-                    
-                    Toast.makeText(context, "✅ Task completed: " + task.getTitle(), 
-                        Toast.LENGTH_LONG).show();
-                    android.util.Log.d("ReminderAction", "Task marked complete: " + task.getTitle());
-                }
+                // Update widget after task completion; coalesced, and drawn from the snapshot updateTask just wrote
+                TaskWidgetProvider.updateAllWidgets(context);
+                
+                showToast(context, "✅ Task completed: " + task.getTitle());
+                android.util.Log.d("ReminderAction", "Task marked complete: " + task.getTitle());
             }
         } catch (Exception e) {
             android.util.Log.e("ReminderAction", "Error marking task complete", e);
         }
     }
+
+    // Completes the task with its completion time, as the list and detail screens do, so daily_stats and the
+    // completed-in-period queries see it. A task completed already keeps its time. Returns null when the task
+    // is gone or was not updated.
+    @VisibleForTesting
+    static Task completeTask(DatabaseHelper dbHelper, int taskId, long nowMillis) {
+        Task task = dbHelper.getTaskById(taskId);
+        if (task == null) {
+            return null;
+        }
+        if (!task.isCompleted()) {
+            task.setCompleted(true);
+            task.markCompletedAt(nowMillis);
+        }
+        return dbHelper.updateTask(task) > 0 ? task : null;
+    }
     
     private void snoozeReminder(Context context, Intent intent, int taskId) {
         try {
@@ -88,12 +109,17 @@ public class ReminderActionReceiver extends BroadcastReceiver {
                     java.util.Locale.getDefault());
                 String snoozeTimeStr = timeFormat.format(snoozeTime.getTime());
                 
-                Toast.makeText(context, "⏰ Reminder snoozed until " + snoozeTimeStr, 
-                    Toast.LENGTH_LONG).show();
+                showToast(context, "⏰ Reminder snoozed until " + snoozeTimeStr);
                 android.util.Log.d("ReminderAction", "Task snoozed until: " + snoozeTimeStr);
             }
         } catch (Exception e) {
             android.util.Log.e("ReminderAction", "Error snoozing reminder", e);
         }
     }
-} 
\ No newline at end of file
+
+    // Toasts need a looper; this receiver's work runs on a background thread
+    private void showToast(Context context, String message) {
+        Context appContext = context.getApplicationContext();
+        new Handler(Looper.getMainLooper()).post(() -> Toast.makeText(appContext, message, Toast.LENGTH_LONG).show());
+    }
+}
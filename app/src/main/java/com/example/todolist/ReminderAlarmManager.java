@@ -4,14 +4,41 @@ import android.app.AlarmManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
 import java.util.Locale;
 
 public class ReminderAlarmManager {
     private static final String TAG = "ReminderAlarmManager";
+
+    // Broadcast of the single reminder alarm; ReminderReceiver then takes the due reminders from the scheduler
+    static final String ACTION_REMINDERS_DUE = "com.example.todolist.REMINDERS_DUE";
+    private static final int REMINDER_ALARM_REQUEST = 1;
+
+    // Reminder wakeups and reminders delivered on the current day; the totals are logged once the day is over
+    private static final String STATS_PREFS = "reminder_stats";
+    private static final String KEY_STATS_DAY = "day";
+    private static final String KEY_WAKEUPS = "wakeups";
+    private static final String KEY_REMINDERS = "reminders";
+
+    // Before the reminders table every reminder had its own alarm, request code taskId * 100 + i for up to
+    // LEGACY_ALARMS_PER_TASK of them. Test and snooze reminders use taskId * 1000 with the same intent.
+    private static final int LEGACY_ALARMS_PER_TASK = 25;
+    private static final String ALARM_PREFS = "reminder_alarms";
+    private static final String KEY_LEGACY_ALARMS_CANCELLED = "legacy_alarms_cancelled";
+
+    // Tasks loaded per query when a tag's policy changes
+    private static final int RESCHEDULE_PAGE_SIZE = 200;
+
+    private static ReminderScheduler scheduler;
+
     private Context context;
     private AlarmManager alarmManager;
 
@@ -20,116 +47,194 @@ public class ReminderAlarmManager {
         this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
     }
 
+    // Reminders live in the reminders table; only the earliest one has an alarm
+    static synchronized ReminderScheduler getScheduler(Context context) {
+        if (scheduler == null) {
+            Context appContext = context.getApplicationContext();
+            scheduler = new ReminderScheduler(DatabaseHelper.getInstance(appContext), new SystemAlarm(appContext),
+                    System::currentTimeMillis);
+        }
+        return scheduler;
+    }
+
     public void setReminder(Task task) {
-        if (!task.isReminderEnabled() || task.getDeadline() == null || task.isCompleted()) {
+        if (!task.isReminderEnabled() || !task.hasDeadline() || task.isCompleted()) {
             Log.d(TAG, "Reminder not enabled, no deadline, or task completed for task: " + task.getId());
             return;
         }
 
-        try {
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Calendar deadlineCalendar = Calendar.getInstance();
-            deadlineCalendar.setTime(sdf.parse(task.getDeadline()));
-            
-            // Set deadline to end of day (23:59:59)
-            deadlineCalendar.set(Calendar.HOUR_OF_DAY, 23);
-            deadlineCalendar.set(Calendar.MINUTE, 59);
-            deadlineCalendar.set(Calendar.SECOND, 59);
+        int taskId = task.getId();
+        long deadlineAt = task.getDeadlineAt();
+        ReminderPolicy policy = ReminderPolicy.forTask(task);
+        runInOrder("ReminderAlarmManager.setReminder", () -> {
+            getScheduler(context).schedule(taskId, deadlineAt, policy);
+            Log.d(TAG, "Scheduled reminders (" + policy + ") for task " + taskId + " until deadline: " + task.getDeadline());
+        });
+    }
 
-            Calendar now = Calendar.getInstance();
-            
-            // Calculate one week before deadline
-            Calendar oneWeekBefore = (Calendar) deadlineCalendar.clone();
-            oneWeekBefore.add(Calendar.DAY_OF_YEAR, -7);
+    public void cancelReminder(int taskId) {
+        runInOrder("ReminderAlarmManager.cancelReminder", () -> {
+            getScheduler(context).cancel(taskId);
+            Log.d(TAG, "All reminders cancelled for task: " + taskId);
+        });
+    }
 
-            // Daily reminder times: 9:00 AM, 2:00 PM, 6:00 PM
-            int[] reminderHours = {9, 14, 18};
-            
-            // Cancel any existing reminders first
+    public void updateReminder(Task task) {
+        // Scheduling replaces the task's reminders, so only a task losing them needs a cancel
+        if (task.isReminderEnabled() && task.hasDeadline() && !task.isCompleted()) {
+            setReminder(task);
+        } else {
             cancelReminder(task.getId());
-            
-            int alarmId = task.getId() * 100; // Base ID for this task
-            int alarmsSet = 0;
-
-            // Set reminders for each day in the week before deadline
-            for (Calendar currentDay = (Calendar) oneWeekBefore.clone(); 
-                 !currentDay.after(deadlineCalendar); 
-                 currentDay.add(Calendar.DAY_OF_YEAR, 1)) {
-                
-                // Set 3 reminders per day (9 AM, 2 PM, 6 PM)
-                for (int hour : reminderHours) {
-                    Calendar reminderTime = (Calendar) currentDay.clone();
-                    reminderTime.set(Calendar.HOUR_OF_DAY, hour);
-                    reminderTime.set(Calendar.MINUTE, 43);
-                    reminderTime.set(Calendar.SECOND, 0);
-                    reminderTime.set(Calendar.MILLISECOND, 0);
-
-                    // Only set reminder if it's in the future
-                    if (reminderTime.after(now)) {
-                        Intent intent = new Intent(context, ReminderReceiver.class);
-                        intent.putExtra("task_id", task.getId());
-                        intent.putExtra("task_title", task.getTitle());
-                        intent.putExtra("task_description", task.getDescription());
-                        intent.putExtra("reminder_type", "daily_reminder");
-
-                        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                            context,
-                            alarmId++, // Unique ID for each reminder
-                            intent,
-                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                        );
-
-                        long triggerTime = reminderTime.getTimeInMillis();
-
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                        } else {
-                            alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerTime, pendingIntent);
-                        }
-                        
-                        alarmsSet++;
+        }
+    }
+
+    // After a tag's reminder policy changed: schedules its open tasks again, so those without a policy of
+    // their own follow the new one
+    public void rescheduleTag(int tagId) {
+        runInOrder("ReminderAlarmManager.rescheduleTag", () -> {
+            DatabaseHelper databaseHelper = DatabaseHelper.getInstance(context);
+            ReminderScheduler scheduler = getScheduler(context);
+            TaskQuery query = new TaskQuery()
+                    .tags(Collections.singleton(tagId), DatabaseHelper.TagMatchMode.ANY)
+                    .completed(false);
+            int rescheduled = 0;
+            Task after = null;
+            List<Task> page;
+            do {
+                page = databaseHelper.getTasks(query, after, RESCHEDULE_PAGE_SIZE);
+                for (Task task : page) {
+                    if (task.isReminderEnabled() && task.hasDeadline()) {
+                        scheduler.schedule(task.getId(), task.getDeadlineAt(), ReminderPolicy.forTask(task));
+                        rescheduled++;
                     }
                 }
-            }
+                after = page.isEmpty() ? null : page.get(page.size() - 1);
+            } while (page.size() == RESCHEDULE_PAGE_SIZE);
+            Log.d(TAG, "Rescheduled reminders of " + rescheduled + " tasks with tag " + tagId);
+        });
+    }
 
-            Log.d(TAG, "Set " + alarmsSet + " daily reminders for task " + task.getId() + " until deadline: " + task.getDeadline());
-        } catch (Exception e) {
-            Log.e(TAG, "Error setting reminders for task " + task.getId(), e);
+    // Counts one reminder alarm wakeup that delivered reminderCount reminders
+    static synchronized void recordWakeup(Context context, int reminderCount) {
+        SharedPreferences prefs = context.getSharedPreferences(STATS_PREFS, Context.MODE_PRIVATE);
+        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.US).format(new Date());
+        String day = prefs.getString(KEY_STATS_DAY, today);
+        int wakeups = prefs.getInt(KEY_WAKEUPS, 0);
+        int reminders = prefs.getInt(KEY_REMINDERS, 0);
+        if (!day.equals(today)) {
+            Log.i(TAG, "Reminder wakeups on " + day + ": " + wakeups + " (" + reminders + " reminders)");
+            wakeups = 0;
+            reminders = 0;
         }
+        wakeups++;
+        reminders += reminderCount;
+        prefs.edit()
+                .putString(KEY_STATS_DAY, today)
+                .putInt(KEY_WAKEUPS, wakeups)
+                .putInt(KEY_REMINDERS, reminders)
+                .apply();
+        Log.i(TAG, "Reminder wakeup " + wakeups + " today, " + reminderCount + " reminders (" + reminders + " today)");
     }
 
-    public void cancelReminder(int taskId) {
-        // Cancel all possible reminders for this task
-        // We use up to 21 reminders per task (7 days * 3 times per day = 21 max reminders)
-        int baseAlarmId = taskId * 100;
-        
-        for (int i = 0; i < 25; i++) { // Extra buffer to ensure all are cancelled
-            Intent intent = new Intent(context, ReminderReceiver.class);
-            PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                context,
-                baseAlarmId + i,
-                intent,
-                PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE
-            );
+    // Re-arms the reminder alarm from the reminders table after a reboot or app update; onDone runs afterwards
+    // on the reminder thread, also if restoring failed, or straight away if it could not be queued
+    public void restore(Runnable onDone) {
+        boolean queued = runInOrder("ReminderAlarmManager.restore", () -> {
+            try {
+                long start = SystemClock.elapsedRealtime();
+                getScheduler(context).restore();
+                Log.i(TAG, "Reminder alarm restored in " + (SystemClock.elapsedRealtime() - start) + " ms");
+            } finally {
+                onDone.run();
+            }
+        });
+        if (!queued) {
+            onDone.run();
+        }
+    }
+
+    // Cancels the per-reminder alarms left from before the reminders table, once. Until they ran out they would
+    // count against the app's alarm limit (500 from Android 12), and at the limit arming the reminder alarm fails.
+    public void cancelLegacyAlarms() {
+        runInOrder("ReminderAlarmManager.cancelLegacyAlarms", () -> {
+            SharedPreferences prefs = context.getSharedPreferences(ALARM_PREFS, Context.MODE_PRIVATE);
+            if (prefs.getBoolean(KEY_LEGACY_ALARMS_CANCELLED, false)) {
+                return;
+            }
+            int cancelled = 0;
+            for (int taskId : DatabaseHelper.getInstance(context).getReminderTaskIds()) {
+                for (int i = 0; i < LEGACY_ALARMS_PER_TASK; i++) {
+                    int requestCode = taskId * 100 + i;
+                    if (requestCode % 1000 == 0) {
+                        // Also another task's snooze alarm, which must stay
+                        continue;
+                    }
+                    Intent intent = new Intent(context, ReminderReceiver.class);
+                    PendingIntent pendingIntent = PendingIntent.getBroadcast(context, requestCode, intent,
+                            PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_IMMUTABLE);
+                    if (pendingIntent != null) {
+                        alarmManager.cancel(pendingIntent);
+                        pendingIntent.cancel();
+                        cancelled++;
+                    }
+                }
+            }
+            prefs.edit().putBoolean(KEY_LEGACY_ALARMS_CANCELLED, true).apply();
+            Log.i(TAG, "Cancelled " + cancelled + " legacy reminder alarms");
+        });
+    }
+
+    // Arms the alarm again for the earliest stored reminder even if it looks armed, e.g. when the broadcast of
+    // the alarm that just fired timed out; an earliest reminder already due fires straight away
+    public void rearm() {
+        runInOrder("ReminderAlarmManager.rearm", () -> getScheduler(context).restore());
+    }
+
+    // Reminder writes go to the database, so they run off the caller's thread on TaskRepository's reminder
+    // thread, one at a time in call order
+    private boolean runInOrder(String name, Runnable work) {
+        return TaskRepository.getInstance(context).runInOrder(name, work);
+    }
+
+    // The one exact alarm behind every scheduled reminder
+    private static class SystemAlarm implements ReminderScheduler.Alarm {
+        private final Context context;
+        private final AlarmManager alarmManager;
 
+        SystemAlarm(Context context) {
+            this.context = context;
+            this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        }
+
+        @Override
+        public void arm(long triggerAtMillis) {
+            PendingIntent pendingIntent = reminderIntent(PendingIntent.FLAG_UPDATE_CURRENT);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent);
+            } else {
+                alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAtMillis, pendingIntent);
+            }
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+            Log.d(TAG, "Reminder alarm armed for " + sdf.format(new Date(triggerAtMillis)));
+        }
+
+        @Override
+        public void disarm() {
+            PendingIntent pendingIntent = reminderIntent(PendingIntent.FLAG_NO_CREATE);
             if (pendingIntent != null) {
                 alarmManager.cancel(pendingIntent);
+                pendingIntent.cancel();
             }
+            Log.d(TAG, "No reminders left, alarm disarmed");
         }
-        
-        Log.d(TAG, "All reminders cancelled for task: " + taskId);
-    }
 
-    public void updateReminder(Task task) {
-        // Cancel existing reminder
-        cancelReminder(task.getId());
-        
-        // Set new reminder if enabled
-        if (task.isReminderEnabled()) {
-            setReminder(task);
+        private PendingIntent reminderIntent(int flags) {
+            Intent intent = new Intent(context, ReminderReceiver.class);
+            intent.setAction(ACTION_REMINDERS_DUE);
+            return PendingIntent.getBroadcast(context, REMINDER_ALARM_REQUEST, intent, flags | PendingIntent.FLAG_IMMUTABLE);
         }
     }
-    
+
     // Test method - set immediate reminder for testing
     public void setTestReminder(Task task, int hour, int minute) {
         Log.d(TAG, "Setting test reminder for task " + task.getId() + " at " + hour + ":" + minute);
@@ -0,0 +1,367 @@
+package com.example.todolist;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+// When a task's reminders fire, relative to its deadline: one-off reminders some minutes before it, daily
+// reminders at fixed times over the last days, and an escalation that repeats at an interval in the last
+// stretch. Reminders in quiet hours wait for them to end. Only the next fire time after a given instant is
+// ever computed, so a task keeps one pending reminder however many its policy describes. Stored on a task or
+// a tag as the text of format(); each setter returns a changed copy:
+//   ReminderPolicy.DEFAULT.before(60).quietHours(22 * 60, 7 * 60).escalate(180, 30)
+public final class ReminderPolicy {
+
+    // Every day from a week before the deadline through the deadline day, at 9:43, 14:43 and 18:43
+    public static final ReminderPolicy DEFAULT = new ReminderPolicy().daily(7, 9 * 60 + 43, 14 * 60 + 43, 18 * 60 + 43);
+
+    // Shorter repeats would fall inside ReminderScheduler's delivery window and arrive as one anyway
+    static final int MIN_REPEAT_MINUTES = 5;
+
+    private static final long MINUTE = 60 * 1000L;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private int[] beforeMinutes = new int[0];
+    private int dailyDays;
+    private int[] dailyMinutes = new int[0];
+    private int escalateMinutes;
+    private int repeatMinutes;
+    // Minutes of the day; equal when there are no quiet hours. The start may be after the end (22:00-07:00).
+    private int quietStart;
+    private int quietEnd;
+
+    public ReminderPolicy() {
+    }
+
+    private ReminderPolicy(ReminderPolicy other) {
+        this.beforeMinutes = other.beforeMinutes;
+        this.dailyDays = other.dailyDays;
+        this.dailyMinutes = other.dailyMinutes;
+        this.escalateMinutes = other.escalateMinutes;
+        this.repeatMinutes = other.repeatMinutes;
+        this.quietStart = other.quietStart;
+        this.quietEnd = other.quietEnd;
+    }
+
+    // One reminder this many minutes before the deadline, for each value
+    public ReminderPolicy before(int... minutes) {
+        for (int minute : minutes) {
+            if (minute < 0) {
+                throw new IllegalArgumentException("Negative offset: " + minute);
+            }
+        }
+        ReminderPolicy copy = new ReminderPolicy(this);
+        copy.beforeMinutes = sorted(minutes);
+        return copy;
+    }
+
+    // Reminders at these minutes of the day on every day from `days` days before the deadline day through it
+    public ReminderPolicy daily(int days, int... minutesOfDay) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Negative days: " + days);
+        }
+        for (int minute : minutesOfDay) {
+            checkMinuteOfDay(minute);
+        }
+        ReminderPolicy copy = new ReminderPolicy(this);
+        copy.dailyDays = days;
+        copy.dailyMinutes = sorted(minutesOfDay);
+        return copy;
+    }
+
+    // A reminder every repeatMinutes during the last withinMinutes before the deadline; 0 turns it off
+    public ReminderPolicy escalate(int withinMinutes, int repeatMinutes) {
+        if (withinMinutes < 0 || (withinMinutes > 0 && repeatMinutes < MIN_REPEAT_MINUTES)) {
+            throw new IllegalArgumentException("Bad escalation: " + withinMinutes + "/" + repeatMinutes);
+        }
+        ReminderPolicy copy = new ReminderPolicy(this);
+        copy.escalateMinutes = withinMinutes;
+        copy.repeatMinutes = withinMinutes > 0 ? repeatMinutes : 0;
+        return copy;
+    }
+
+    // No reminders from startMinute to endMinute of the day; equal values turn quiet hours off
+    public ReminderPolicy quietHours(int startMinute, int endMinute) {
+        checkMinuteOfDay(startMinute);
+        checkMinuteOfDay(endMinute);
+        ReminderPolicy copy = new ReminderPolicy(this);
+        copy.quietStart = startMinute;
+        copy.quietEnd = endMinute;
+        return copy;
+    }
+
+    // The task's own policy, else that of its tag with the lowest id that has one, else DEFAULT
+    public static ReminderPolicy forTask(Task task) {
+        if (task.getReminderPolicy() != null) {
+            return task.getReminderPolicy();
+        }
+        Tag chosen = null;
+        for (Tag tag : task.getTags()) {
+            if (tag.getReminderPolicy() != null && (chosen == null || tag.getId() < chosen.getId())) {
+                chosen = tag;
+            }
+        }
+        return chosen != null ? chosen.getReminderPolicy() : DEFAULT;
+    }
+
+    // First fire time after afterMillis for a deadline, or ReminderScheduler.NONE when none is left. Looks at
+    // most two days of daily slots, whatever the policy spans.
+    public long nextFireTime(long deadlineAt, long afterMillis) {
+        if (deadlineAt == TaskDates.NO_DATE) {
+            return ReminderScheduler.NONE;
+        }
+        long next = earliest(nextBefore(deadlineAt, afterMillis), nextDaily(deadlineAt, afterMillis));
+        next = earliest(next, nextEscalation(deadlineAt, afterMillis));
+        if (next == ReminderScheduler.NONE) {
+            return next;
+        }
+        return afterQuietHours(next, deadlineAt);
+    }
+
+    // Every fire time after afterMillis, in order; for tests and logging, scheduling only needs the next one
+    List<Long> fireTimes(long deadlineAt, long afterMillis) {
+        List<Long> times = new ArrayList<>();
+        long next = nextFireTime(deadlineAt, afterMillis);
+        while (next != ReminderScheduler.NONE) {
+            times.add(next);
+            next = nextFireTime(deadlineAt, next);
+        }
+        return times;
+    }
+
+    private long nextBefore(long deadlineAt, long afterMillis) {
+        // Sorted ascending, so the latest offset is the earliest time
+        for (int i = beforeMinutes.length - 1; i >= 0; i--) {
+            long fireAt = deadlineAt - beforeMinutes[i] * MINUTE;
+            if (fireAt > afterMillis) {
+                return fireAt;
+            }
+        }
+        return ReminderScheduler.NONE;
+    }
+
+    // The deadline counts as its whole day, as daily reminders always have
+    private long nextDaily(long deadlineAt, long afterMillis) {
+        if (dailyMinutes.length == 0) {
+            return ReminderScheduler.NONE;
+        }
+        Calendar lastDay = startOfDay(deadlineAt);
+        Calendar day = startOfDay(deadlineAt);
+        day.add(Calendar.DAY_OF_YEAR, -dailyDays);
+        if (afterMillis >= day.getTimeInMillis()) {
+            day = startOfDay(afterMillis);
+        }
+        for (; !day.after(lastDay); day.add(Calendar.DAY_OF_YEAR, 1)) {
+            for (int minute : dailyMinutes) {
+                long fireAt = atMinute(day, minute);
+                if (fireAt > afterMillis) {
+                    return fireAt;
+                }
+            }
+        }
+        return ReminderScheduler.NONE;
+    }
+
+    private long nextEscalation(long deadlineAt, long afterMillis) {
+        if (escalateMinutes == 0) {
+            return ReminderScheduler.NONE;
+        }
+        long start = deadlineAt - escalateMinutes * MINUTE;
+        long repeat = repeatMinutes * MINUTE;
+        long fireAt = afterMillis < start ? start : start + ((afterMillis - start) / repeat + 1) * repeat;
+        return fireAt <= deadlineAt ? fireAt : ReminderScheduler.NONE;
+    }
+
+    // A reminder in quiet hours moves to their end, unless that is after the deadline. Every reminder due in
+    // the same quiet stretch moves to the same time, so they arrive as one.
+    private long afterQuietHours(long fireAt, long deadlineAt) {
+        if (quietStart == quietEnd) {
+            return fireAt;
+        }
+        Calendar time = Calendar.getInstance();
+        time.setTimeInMillis(fireAt);
+        int minute = time.get(Calendar.HOUR_OF_DAY) * 60 + time.get(Calendar.MINUTE);
+        boolean quiet = quietStart < quietEnd
+                ? minute >= quietStart && minute < quietEnd
+                : minute >= quietStart || minute < quietEnd;
+        if (!quiet) {
+            return fireAt;
+        }
+        Calendar end = startOfDay(fireAt);
+        if (minute >= quietEnd) {
+            end.add(Calendar.DAY_OF_YEAR, 1);
+        }
+        long endAt = atMinute(end, quietEnd);
+        return endAt <= deadlineAt ? endAt : fireAt;
+    }
+
+    // Text form, e.g. "before=60,1440;daily=7@09:43,14:43,18:43;escalate=180/30;quiet=22:00-07:00"
+    public String format() {
+        List<String> parts = new ArrayList<>();
+        if (beforeMinutes.length > 0) {
+            StringBuilder before = new StringBuilder("before=");
+            for (int i = 0; i < beforeMinutes.length; i++) {
+                before.append(i == 0 ? "" : ",").append(beforeMinutes[i]);
+            }
+            parts.add(before.toString());
+        }
+        if (dailyMinutes.length > 0) {
+            StringBuilder daily = new StringBuilder("daily=").append(dailyDays).append('@');
+            for (int i = 0; i < dailyMinutes.length; i++) {
+                daily.append(i == 0 ? "" : ",").append(formatMinute(dailyMinutes[i]));
+            }
+            parts.add(daily.toString());
+        }
+        if (escalateMinutes > 0) {
+            parts.add("escalate=" + escalateMinutes + "/" + repeatMinutes);
+        }
+        if (quietStart != quietEnd) {
+            parts.add("quiet=" + formatMinute(quietStart) + "-" + formatMinute(quietEnd));
+        }
+        StringBuilder text = new StringBuilder();
+        for (String part : parts) {
+            text.append(text.length() == 0 ? "" : ";").append(part);
+        }
+        return text.toString();
+    }
+
+    // Reads format()'s text; null for null or empty text. Throws IllegalArgumentException for anything else
+    // it cannot read.
+    public static ReminderPolicy parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        ReminderPolicy policy = new ReminderPolicy();
+        try {
+            for (String part : text.split(";")) {
+                int equals = part.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Bad reminder policy part: " + part);
+                }
+                String key = part.substring(0, equals).trim();
+                String value = part.substring(equals + 1).trim();
+                switch (key) {
+                    case "before":
+                        policy = policy.before(parseInts(value));
+                        break;
+                    case "daily": {
+                        int at = value.indexOf('@');
+                        String[] times = value.substring(at + 1).split(",");
+                        int[] minutes = new int[times.length];
+                        for (int i = 0; i < times.length; i++) {
+                            minutes[i] = parseMinute(times[i]);
+                        }
+                        policy = policy.daily(Integer.parseInt(value.substring(0, at).trim()), minutes);
+                        break;
+                    }
+                    case "escalate": {
+                        int[] values = parseInts(value.replace('/', ','));
+                        if (values.length != 2) {
+                            throw new IllegalArgumentException("Bad escalation: " + value);
+                        }
+                        policy = policy.escalate(values[0], values[1]);
+                        break;
+                    }
+                    case "quiet": {
+                        String[] range = value.split("-");
+                        if (range.length != 2) {
+                            throw new IllegalArgumentException("Bad quiet hours: " + value);
+                        }
+                        policy = policy.quietHours(parseMinute(range[0]), parseMinute(range[1]));
+                        break;
+                    }
+                    default:
+                        throw new IllegalArgumentException("Unknown reminder policy part: " + key);
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // NumberFormatException is already an IllegalArgumentException
+            throw new IllegalArgumentException("Bad reminder policy: " + text, e);
+        }
+        return policy;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ReminderPolicy other = (ReminderPolicy) obj;
+        return Arrays.equals(beforeMinutes, other.beforeMinutes) && dailyDays == other.dailyDays
+                && Arrays.equals(dailyMinutes, other.dailyMinutes) && escalateMinutes == other.escalateMinutes
+                && repeatMinutes == other.repeatMinutes && quietStart == other.quietStart && quietEnd == other.quietEnd;
+    }
+
+    @Override
+    public int hashCode() {
+        return format().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+
+    private static long earliest(long a, long b) {
+        if (a == ReminderScheduler.NONE) return b;
+        if (b == ReminderScheduler.NONE) return a;
+        return Math.min(a, b);
+    }
+
+    private static Calendar startOfDay(long millis) {
+        Calendar day = Calendar.getInstance();
+        day.setTimeInMillis(millis);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        return day;
+    }
+
+    // Set through the calendar rather than added as millis, so the time of day holds across DST changes
+    private static long atMinute(Calendar day, int minuteOfDay) {
+        Calendar time = (Calendar) day.clone();
+        time.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        time.set(Calendar.MINUTE, minuteOfDay % 60);
+        return time.getTimeInMillis();
+    }
+
+    private static int[] sorted(int[] values) {
+        int[] copy = values.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static void checkMinuteOfDay(int minute) {
+        if (minute < 0 || minute >= MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Not a minute of the day: " + minute);
+        }
+    }
+
+    private static int[] parseInts(String text) {
+        String[] parts = text.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    private static String formatMinute(int minuteOfDay) {
+        return String.format(Locale.US, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private static int parseMinute(String text) {
+        String[] parts = text.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Bad time: " + text);
+        }
+        int hour = Integer.parseInt(parts[0]);
+        int minute = Integer.parseInt(parts[1]);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Bad time: " + text);
+        }
+        return hour * 60 + minute;
+    }
+}
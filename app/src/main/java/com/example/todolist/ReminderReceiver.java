@@ -9,13 +9,40 @@ import android.content.Intent;
 import android.os.Build;
 import androidx.core.app.NotificationCompat;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 public class ReminderReceiver extends BroadcastReceiver {
     private static final String CHANNEL_ID = "task_reminder_channel";
     private static final String CHANNEL_NAME = "Task Reminders";
     private static final String CHANNEL_DESCRIPTION = "Notifications for task reminders";
 
+    // Reminders delivered together share a group under one summary notification
+    private static final String REMINDER_GROUP = "com.example.todolist.REMINDERS";
+    // Task ids start at 1, so the summary cannot clash with a task's notification
+    private static final int REMINDER_SUMMARY_ID = 0;
+    // Soonest deadlines get their own notification (with actions); the rest are only in the summary
+    private static final int MAX_GROUPED_NOTIFICATIONS = 8;
+    private static final int SUMMARY_LINES = 5;
+
     @Override
     public void onReceive(Context context, Intent intent) {
+        // Task lookups, reminder queue updates and notification building all run off the main thread. If the
+        // broadcast has to be let go first, the alarm is armed again so the reminders are not stranded.
+        final PendingResult pendingResult = goAsync();
+        TaskRepository.getInstance(context).runForReceiver(pendingResult, "ReminderReceiver",
+                () -> handleReminder(context, intent), () -> new ReminderAlarmManager(context).rearm());
+    }
+
+    private void handleReminder(Context context, Intent intent) {
+        if (ReminderAlarmManager.ACTION_REMINDERS_DUE.equals(intent.getAction())) {
+            showDueReminders(context);
+            return;
+        }
+
         int taskId = intent.getIntExtra("task_id", -1);
         String taskTitle = intent.getStringExtra("task_title");
         String taskDescription = intent.getStringExtra("task_description");
@@ -31,26 +58,66 @@ public class ReminderReceiver extends BroadcastReceiver {
         if (isTestReminder) {
             // For test reminders, always show notification
             createNotificationChannel(context);
-            showNotification(context, taskId, taskTitle + " [TEST]", taskDescription, null);
+            showNotification(context, taskId, taskTitle + " [TEST]", taskDescription, null, false);
             android.util.Log.d("ReminderReceiver", "Showing test reminder: " + taskTitle);
         } else {
+            // One of the per-reminder alarms set before the reminders table; the table holds those
+            // reminders now and ReminderAlarmManager.cancelLegacyAlarms cancels the rest after the update
+            android.util.Log.d("ReminderReceiver", "Ignoring legacy reminder alarm: " + taskTitle);
+        }
+    }
+
+    // The reminder alarm went off: every reminder due in this window is handled in this one wakeup, with one
+    // task lookup for the batch. Only once the notifications are posted do the reminders move on and the
+    // scheduler arm the next one, so if the process dies in between they are delivered again.
+    private void showDueReminders(Context context) {
+        ReminderScheduler scheduler = ReminderAlarmManager.getScheduler(context);
+        List<ReminderScheduler.Reminder> due = scheduler.getDueReminders();
+        List<Integer> dueTaskIds = new ArrayList<>(due.size());
+        for (ReminderScheduler.Reminder reminder : due) {
+            dueTaskIds.add(reminder.getTaskId());
+        }
+        ReminderAlarmManager.recordWakeup(context, dueTaskIds.size());
+        if (!dueTaskIds.isEmpty()) {
+            notifyDueTasks(context, scheduler, dueTaskIds);
+        }
+        scheduler.acknowledge(due);
+    }
+
+    private void notifyDueTasks(Context context, ReminderScheduler scheduler, List<Integer> dueTaskIds) {
+        List<Task> tasks = new ArrayList<>();
+        Set<Integer> skipped = new HashSet<>(dueTaskIds);
+        for (Task task : DatabaseHelper.getInstance(context).getTasksByIds(dueTaskIds)) {
             // Check if task is still incomplete before showing notification
-            DatabaseHelper dbHelper = new DatabaseHelper(context);
-            Task task = dbHelper.getTaskById(taskId);
-            
-            if (task != null && !task.isCompleted() && task.isReminderEnabled()) {
-                createNotificationChannel(context);
-                showNotification(context, taskId, taskTitle, taskDescription, task);
-            } else {
-                android.util.Log.d("ReminderReceiver", "Skipping reminder - task completed or reminder disabled: " + taskTitle);
-                
-                // Cancel all future reminders for this completed task
-                if (task != null && task.isCompleted()) {
-                    ReminderAlarmManager reminderManager = new ReminderAlarmManager(context);
-                    reminderManager.cancelReminder(taskId);
-                }
+            if (!task.isCompleted() && task.isReminderEnabled()) {
+                tasks.add(task);
+                skipped.remove(task.getId());
             }
         }
+        for (int taskId : skipped) {
+            android.util.Log.d("ReminderReceiver", "Skipping reminder - task deleted, completed or reminder disabled: " + taskId);
+            // Cancel all future reminders for this task
+            scheduler.cancel(taskId);
+        }
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        createNotificationChannel(context);
+        if (tasks.size() == 1) {
+            Task task = tasks.get(0);
+            showNotification(context, task.getId(), task.getTitle(), task.getDescription(), task, false);
+            return;
+        }
+
+        // Soonest deadline first; undated tasks last
+        Collections.sort(tasks, (a, b) -> Long.compare(
+                a.hasDeadline() ? a.getDeadlineAt() : Long.MAX_VALUE, b.hasDeadline() ? b.getDeadlineAt() : Long.MAX_VALUE));
+        for (int i = 0; i < tasks.size() && i < MAX_GROUPED_NOTIFICATIONS; i++) {
+            Task task = tasks.get(i);
+            showNotification(context, task.getId(), task.getTitle(), task.getDescription(), task, true);
+        }
+        showReminderSummary(context, tasks);
     }
 
     private void createNotificationChannel(Context context) {
@@ -77,7 +144,8 @@ public class ReminderReceiver extends BroadcastReceiver {
         }
     }
 
-    private void showNotification(Context context, int taskId, String title, String description, Task task) {
+    // Grouped notifications stay silent; their summary alerts once for the whole batch
+    private void showNotification(Context context, int taskId, String title, String description, Task task, boolean grouped) {
         NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         if (manager == null) return;
 
@@ -124,32 +192,28 @@ public class ReminderReceiver extends BroadcastReceiver {
         String urgencyEmoji = "⏰";
         int notificationColor = 0xFF2196F3; // Default blue
         
-        if (task != null && task.getDeadline() != null && !task.getDeadline().isEmpty()) {
-            try {
-                java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault());
-                java.text.SimpleDateFormat displaySdf = new java.text.SimpleDateFormat("MMM dd", java.util.Locale.getDefault());
-                java.util.Date deadlineDate = sdf.parse(task.getDeadline());
-                
-                long timeDiff = deadlineDate.getTime() - System.currentTimeMillis();
-                long daysDiff = timeDiff / (1000 * 60 * 60 * 24);
-                
-                if (daysDiff < 0) {
-                    urgencyEmoji = "🚨";
-                    deadlineInfo = " • Overdue!";
-                    notificationColor = 0xFFE53935; // Red for overdue
-                } else if (daysDiff == 0) {
-                    urgencyEmoji = "⚠️";
-                    deadlineInfo = " • Due today!";
-                    notificationColor = 0xFFFF9800; // Orange for today
-                } else if (daysDiff <= 3) {
-                    urgencyEmoji = "⏳";
-                    deadlineInfo = " • Due " + displaySdf.format(deadlineDate);
-                    notificationColor = 0xFFFF9800; // Orange for soon
-                } else {
-                    deadlineInfo = " • Due " + displaySdf.format(deadlineDate);
-                }
-            } catch (Exception e) {
-                android.util.Log.e("ReminderReceiver", "Error parsing deadline", e);
+        if (task != null && task.hasDeadline()) {
+            // Epoch millis from the task row; no date text is parsed
+            long deadlineAt = task.getDeadlineAt();
+            java.text.SimpleDateFormat displaySdf = new java.text.SimpleDateFormat("MMM dd", java.util.Locale.getDefault());
+            
+            long timeDiff = deadlineAt - System.currentTimeMillis();
+            long daysDiff = timeDiff / (1000 * 60 * 60 * 24);
+            
+            if (daysDiff < 0) {
+                urgencyEmoji = "🚨";
+                deadlineInfo = " • Overdue!";
+                notificationColor = 0xFFE53935; // Red for overdue
+            } else if (daysDiff == 0) {
+                urgencyEmoji = "⚠️";
+                deadlineInfo = " • Due today!";
+                notificationColor = 0xFFFF9800; // Orange for today
+            } else if (daysDiff <= 3) {
+                urgencyEmoji = "⏳";
+                deadlineInfo = " • Due " + displaySdf.format(new java.util.Date(deadlineAt));
+                notificationColor = 0xFFFF9800; // Orange for soon
+            } else {
+                deadlineInfo = " • Due " + displaySdf.format(new java.util.Date(deadlineAt));
             }
         }
 
@@ -194,8 +258,58 @@ public class ReminderReceiver extends BroadcastReceiver {
             .setShowWhen(true)
             .setOnlyAlertOnce(false)
             .setNumber(1); // Show badge number
+        if (grouped) {
+            builder.setGroup(REMINDER_GROUP)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY);
+        }
 
         // Show notification with unique ID based on task ID
         manager.notify(taskId, builder.build());
     }
+
+    // Inbox-style summary over a batch of reminders, most urgent first
+    private void showReminderSummary(Context context, List<Task> tasks) {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) return;
+
+        Intent appIntent = new Intent(context, MainActivity.class);
+        appIntent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            REMINDER_SUMMARY_ID,
+            appIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        String title = "⏰ " + tasks.size() + " task reminders";
+        NotificationCompat.InboxStyle inboxStyle = new NotificationCompat.InboxStyle()
+            .setBigContentTitle("📋 " + tasks.size() + " tasks to complete");
+        StringBuilder contentText = new StringBuilder();
+        for (int i = 0; i < tasks.size() && i < SUMMARY_LINES; i++) {
+            inboxStyle.addLine("📌 " + tasks.get(i).getTitle());
+            contentText.append(i == 0 ? "" : ", ").append(tasks.get(i).getTitle());
+        }
+        if (tasks.size() > SUMMARY_LINES) {
+            inboxStyle.setSummaryText("+" + (tasks.size() - SUMMARY_LINES) + " more");
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(R.drawable.ic_task)
+            .setContentTitle(title)
+            .setContentText(contentText)
+            .setStyle(inboxStyle)
+            .setGroup(REMINDER_GROUP)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_SUMMARY)
+            .setPriority(NotificationCompat.PRIORITY_HIGH)
+            .setCategory(NotificationCompat.CATEGORY_REMINDER)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent)
+            .setVibrate(new long[]{0, 300, 200, 300})
+            .setWhen(System.currentTimeMillis())
+            .setShowWhen(true)
+            .setNumber(tasks.size());
+
+        manager.notify(REMINDER_SUMMARY_ID, builder.build());
+    }
 }
@@ -0,0 +1,28 @@
+package com.example.todolist;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+// The reminder alarm is lost on reboot and when the app is updated. The reminders themselves are in the
+// reminders table, so restoring is one indexed read for the earliest one; no task is read or parsed.
+public class ReminderRestoreReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action) && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            return;
+        }
+
+        android.util.Log.d("ReminderRestore", "Restoring reminder alarm after " + action);
+        // After an update this may also be the first database open, which runs the upgrade
+        final PendingResult pendingResult = goAsync();
+        ReminderAlarmManager alarmManager = new ReminderAlarmManager(context);
+        if (Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            // Queued first: at the alarm limit, leftover alarms would make arming the reminder alarm fail
+            alarmManager.cancelLegacyAlarms();
+        }
+        alarmManager.restore(pendingResult::finish);
+    }
+}
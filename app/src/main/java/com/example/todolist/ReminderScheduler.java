@@ -0,0 +1,161 @@
+package com.example.todolist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps each task's next reminder in a store ordered by fire time, with exactly one alarm armed: the
+// earliest reminder's. Once the reminders due when it fires are delivered, they move on to the next time
+// their ReminderPolicy gives, so the store never holds more than one reminder per task. Holds no Android types,
+// so the JVM tests can drive it with a fake clock.
+public class ReminderScheduler {
+
+    // Persistent reminders; DatabaseHelper keeps them in the reminders table
+    public interface Store {
+        // Stores each task's reminder in place of the one it had, or deletes it when its fire time is NONE.
+        // All in one transaction.
+        void saveReminders(List<Reminder> reminders);
+
+        void deleteReminders(int taskId);
+
+        // Earliest fire time in the store, or NONE when it is empty
+        long getNextReminderTime();
+
+        // Reminders due at or before nowMillis in fire order. Reading them changes nothing: they stay stored
+        // until ReminderScheduler.acknowledge saves them with their next time, so a crash before that delivers
+        // them again rather than losing them.
+        List<Reminder> getDueReminders(long nowMillis);
+    }
+
+    // The single wakeup alarm; arming again replaces the previous one
+    public interface Alarm {
+        void arm(long triggerAtMillis);
+
+        void disarm();
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    // A task's next reminder, with the deadline and policy that give the one after it
+    public static class Reminder {
+        private final int taskId;
+        private final long fireAt;
+        private final long deadlineAt;
+        private final ReminderPolicy policy;
+
+        public Reminder(int taskId, long fireAt, long deadlineAt, ReminderPolicy policy) {
+            this.taskId = taskId;
+            this.fireAt = fireAt;
+            this.deadlineAt = deadlineAt;
+            this.policy = policy;
+        }
+
+        public int getTaskId() {
+            return taskId;
+        }
+
+        public long getFireAt() {
+            return fireAt;
+        }
+
+        public long getDeadlineAt() {
+            return deadlineAt;
+        }
+
+        public ReminderPolicy getPolicy() {
+            return policy;
+        }
+
+        // The task's reminder after afterMillis; its fire time is NONE when the policy has none left
+        Reminder next(long afterMillis) {
+            return new Reminder(taskId, policy.nextFireTime(deadlineAt, afterMillis), deadlineAt, policy);
+        }
+    }
+
+    public static final long NONE = -1;
+
+    // Reminders due this soon after the alarm go out with it instead of waking the device again
+    static final long DELIVERY_WINDOW_MS = 60 * 1000;
+
+    // Not known yet, e.g. right after the process started; the next rearm always arms
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final Store store;
+    private final Alarm alarm;
+    private final Clock clock;
+
+    // Trigger time of the armed alarm, NONE when disarmed
+    private long armedAt = UNKNOWN;
+
+    public ReminderScheduler(Store store, Alarm alarm, Clock clock) {
+        this.store = store;
+        this.alarm = alarm;
+        this.clock = clock;
+    }
+
+    // Replaces the task's reminder with the first one still ahead of now under this policy
+    public synchronized void schedule(int taskId, long deadlineAt, ReminderPolicy policy) {
+        Reminder reminder = new Reminder(taskId, NONE, deadlineAt, policy).next(clock.now());
+        store.saveReminders(Collections.singletonList(reminder));
+        rearm();
+    }
+
+    public synchronized void cancel(int taskId) {
+        store.deleteReminders(taskId);
+        rearm();
+    }
+
+    // Called when the alarm goes off: the reminders due within the delivery window, in fire order. Nothing is
+    // written; they stay stored until passed to acknowledge once delivered.
+    public synchronized List<Reminder> getDueReminders() {
+        armedAt = UNKNOWN;
+        return store.getDueReminders(clock.now() + DELIVERY_WINDOW_MS);
+    }
+
+    // After delivering what getDueReminders returned: moves those reminders on to their next time after the
+    // window, so a task is delivered once even if several of its reminders were missed (device off, alarm
+    // delayed in doze), then arms the alarm for the next one. A reminder cancelled or rescheduled since it was
+    // read is left as it now is.
+    public synchronized void acknowledge(List<Reminder> delivered) {
+        long deliveredUntil = clock.now() + DELIVERY_WINDOW_MS;
+        Map<Integer, Reminder> stored = new HashMap<>();
+        for (Reminder reminder : store.getDueReminders(deliveredUntil)) {
+            stored.put(reminder.getTaskId(), reminder);
+        }
+        List<Reminder> next = new ArrayList<>(delivered.size());
+        for (Reminder reminder : delivered) {
+            Reminder current = stored.get(reminder.getTaskId());
+            if (current != null && current.getFireAt() == reminder.getFireAt()
+                    && current.getDeadlineAt() == reminder.getDeadlineAt()) {
+                next.add(current.next(deliveredUntil));
+            }
+        }
+        store.saveReminders(next);
+        rearm();
+    }
+
+    // Alarms do not survive a reboot or an app update: arms again for the earliest stored reminder, even if
+    // this process believes that one is armed. One indexed read, however many tasks have reminders.
+    public synchronized void restore() {
+        armedAt = UNKNOWN;
+        rearm();
+    }
+
+    // Points the alarm at the earliest stored reminder; arms nothing when that is already armed
+    public synchronized void rearm() {
+        long next = store.getNextReminderTime();
+        if (next == armedAt) {
+            return;
+        }
+        if (next == NONE) {
+            alarm.disarm();
+        } else {
+            alarm.arm(next);
+        }
+        armedAt = next;
+    }
+}
@@ -1,9 +1,22 @@
 package com.example.todolist;
 
+import android.graphics.Color;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class Tag {
+    // Tags share a handful of palette colors, and tag copies are made for every loaded task,
+    // so parsed values are kept per color string rather than only per instance
+    private static final Map<String, Integer> PARSED_COLORS = new ConcurrentHashMap<>();
+
     private int id;
     private String name;
     private String color; // Hex color code (e.g., "#FF5722")
+    // Reminder policy of tasks carrying this tag that have none of their own; null for the default
+    private ReminderPolicy reminderPolicy;
+    private boolean colorParsed;
+    private int parsedColor;
 
     public Tag() {}
 
@@ -18,6 +31,11 @@ public class Tag {
         this.color = color;
     }
 
+    public Tag(Tag other) {
+        this(other.id, other.name, other.color);
+        this.reminderPolicy = other.reminderPolicy;
+    }
+
     // Getters and Setters
     public int getId() {
         return id;
@@ -41,6 +59,40 @@ public class Tag {
 
     public void setColor(String color) {
         this.color = color;
+        this.colorParsed = false;
+    }
+
+    public ReminderPolicy getReminderPolicy() {
+        return reminderPolicy;
+    }
+
+    public void setReminderPolicy(ReminderPolicy reminderPolicy) {
+        this.reminderPolicy = reminderPolicy;
+    }
+
+    // color as an ARGB int, parsed once; invalid or missing colors show as gray
+    public int getParsedColor() {
+        if (!colorParsed) {
+            parsedColor = parseColor(color);
+            colorParsed = true;
+        }
+        return parsedColor;
+    }
+
+    private static int parseColor(String color) {
+        if (color == null) {
+            return Color.GRAY;
+        }
+        Integer cached = PARSED_COLORS.get(color);
+        if (cached == null) {
+            try {
+                cached = Color.parseColor(color);
+            } catch (Exception e) {
+                cached = Color.GRAY;
+            }
+            PARSED_COLORS.put(color, cached);
+        }
+        return cached;
     }
 
     @Override
@@ -7,14 +7,32 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import android.content.Context;
 import android.content.res.TypedArray;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Objects;
 
 public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagFilterViewHolder> {
-    private List<TagWithCount> tagsWithCount = new ArrayList<>();
+    private static final DiffUtil.ItemCallback<TagWithCount> DIFF_CALLBACK = new DiffUtil.ItemCallback<TagWithCount>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull TagWithCount oldItem, @NonNull TagWithCount newItem) {
+            return oldItem.getTag().getId() == newItem.getTag().getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull TagWithCount oldItem, @NonNull TagWithCount newItem) {
+            return oldItem.getTaskCount() == newItem.getTaskCount()
+                    && Objects.equals(oldItem.getTag().getName(), newItem.getTag().getName())
+                    && Objects.equals(oldItem.getTag().getColor(), newItem.getTag().getColor());
+        }
+    };
+
+    private final AsyncListDiffer<TagWithCount> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private List<Tag> selectedTags = new ArrayList<>();
     private OnTagFilterListener listener;
 
@@ -35,20 +53,24 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
         public int getTaskCount() { return taskCount; }
     }
 
-    public TagFilterAdapter() {}
+    public TagFilterAdapter() {
+        setHasStableIds(true);
+    }
 
     public void setOnTagFilterListener(OnTagFilterListener listener) {
         this.listener = listener;
     }
 
+    // Counts refresh after every filter change; only tags whose count, name or color changed are rebound
     public void updateTagsWithCount(List<TagWithCount> tagsWithCount) {
-        this.tagsWithCount = new ArrayList<>(tagsWithCount);
-        notifyDataSetChanged();
+        differ.submitList(new ArrayList<>(tagsWithCount));
     }
 
     public void setSelectedTags(List<Tag> selectedTags) {
+        List<Tag> previous = this.selectedTags;
         this.selectedTags = new ArrayList<>(selectedTags);
-        notifyDataSetChanged();
+        notifySelectionChanged(previous);
+        notifySelectionChanged(this.selectedTags);
     }
 
     public List<Tag> getSelectedTags() {
@@ -56,8 +78,9 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
     }
 
     public void clearSelection() {
-        selectedTags.clear();
-        notifyDataSetChanged();
+        List<Tag> previous = selectedTags;
+        selectedTags = new ArrayList<>();
+        notifySelectionChanged(previous);
         if (listener != null) {
             listener.onTagFilterChanged(selectedTags);
         }
@@ -86,12 +109,32 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
             selectedTags.add(tag);
         }
         
-        notifyDataSetChanged();
+        notifySelectionChanged(Collections.singletonList(tag));
         if (listener != null) {
             listener.onTagFilterChanged(selectedTags);
         }
     }
 
+    // Rebinds the rows of these tags so their selected state is redrawn
+    private void notifySelectionChanged(List<Tag> tags) {
+        for (Tag tag : tags) {
+            int position = positionOf(tag.getId());
+            if (position != RecyclerView.NO_POSITION) {
+                notifyItemChanged(position);
+            }
+        }
+    }
+
+    private int positionOf(int tagId) {
+        List<TagWithCount> items = differ.getCurrentList();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getTag().getId() == tagId) {
+                return i;
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
     @NonNull
     @Override
     public TagFilterViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -102,7 +145,7 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
 
     @Override
     public void onBindViewHolder(@NonNull TagFilterViewHolder holder, int position) {
-        TagWithCount tagWithCount = tagsWithCount.get(position);
+        TagWithCount tagWithCount = differ.getCurrentList().get(position);
         Tag tag = tagWithCount.getTag();
         boolean isSelected = isTagSelected(tag);
 
@@ -113,11 +156,7 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
         holder.tvTaskCount.setText("(" + tagWithCount.getTaskCount() + ")");
         
         // Set color dot
-        try {
-            holder.viewTagColorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-        } catch (Exception e) {
-            holder.viewTagColorDot.setBackgroundColor(Color.GRAY);
-        }
+        holder.viewTagColorDot.setBackgroundColor(tag.getParsedColor());
         
         // Set selected state
         holder.itemView.setSelected(isSelected);
@@ -138,9 +177,14 @@ public class TagFilterAdapter extends RecyclerView.Adapter<TagFilterAdapter.TagF
         holder.itemView.setOnClickListener(v -> toggleTagSelection(tag));
     }
 
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).getTag().getId();
+    }
+
     @Override
     public int getItemCount() {
-        return tagsWithCount.size();
+        return differ.getCurrentList().size();
     }
 
     /**
@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Random;
 
 public class TagManager {
+    private Context context;
     private DatabaseHelper dbHelper;
     private static TagManager instance;
 
@@ -28,7 +29,8 @@ public class TagManager {
     };
 
     private TagManager(Context context) {
-        this.dbHelper = new DatabaseHelper(context);
+        this.context = context;
+        this.dbHelper = DatabaseHelper.getInstance(context);
     }
 
     public static synchronized TagManager getInstance(Context context) {
@@ -93,6 +95,15 @@ public class TagManager {
         return dbHelper.updateTag(tag) > 0;
     }
 
+    // Reminder policy for the tag's tasks that have none of their own; null goes back to the default
+    public boolean setReminderPolicy(int tagId, ReminderPolicy policy) {
+        if (dbHelper.setTagReminderPolicy(tagId, policy) == 0) {
+            return false;
+        }
+        new ReminderAlarmManager(context).rescheduleTag(tagId);
+        return true;
+    }
+
     // Delete tag
     public boolean deleteTag(int tagId) {
         return dbHelper.deleteTag(tagId) > 0;
@@ -1,6 +1,5 @@
 package com.example.todolist;
 
-import android.graphics.Color;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -35,11 +34,7 @@ public class TagSelectionAdapter extends RecyclerView.Adapter<TagSelectionAdapte
         holder.tvTagName.setText(tag.getName());
         
         // Set tag color
-        try {
-            holder.viewTagColor.setBackgroundColor(Color.parseColor(tag.getColor()));
-        } catch (Exception e) {
-            holder.viewTagColor.setBackgroundColor(Color.GRAY);
-        }
+        holder.viewTagColor.setBackgroundColor(tag.getParsedColor());
         
         // Set checkbox state
         boolean isSelected = isTagSelected(tag);
@@ -4,6 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Task {
+    // Marks an epoch-millis field below whose text was set but not yet parsed
+    private static final long NOT_PARSED = -1;
+
     private int id;
     private String title;
     private String description;
@@ -13,9 +16,17 @@ public class Task {
     private String deadline;
     private boolean reminderEnabled;
     private String reminderTime; // Format: "yyyy-MM-dd HH:mm"
+    private ReminderPolicy reminderPolicy; // null: follow the tags' policy or the default, see ReminderPolicy.forTask
     private String completedDate; // Date when task was completed
     private List<Tag> tags; // List of tags associated with this task
 
+    // Epoch-millis copies of the dates above (TaskDates.NO_DATE when unset). Loaded straight from
+    // the INTEGER columns; after a text setter they are re-derived from the text on first access.
+    private long createdAt = TaskDates.NO_DATE;
+    private long deadlineAt = TaskDates.NO_DATE;
+    private long reminderAt = TaskDates.NO_DATE;
+    private long completedAt = TaskDates.NO_DATE;
+
     public Task() {
         this.tags = new ArrayList<>();
     }
@@ -26,10 +37,36 @@ public class Task {
         this.topic = topic;
         this.isCompleted = false;
         this.reminderEnabled = false;
-        this.createdDate = java.text.DateFormat.getDateTimeInstance().format(new java.util.Date());
+        this.createdAt = System.currentTimeMillis();
+        this.createdDate = TaskDates.formatTimestamp(createdAt);
         this.tags = new ArrayList<>();
     }
 
+    // Independent copy, including its tag list and tags, for caches that hand out tasks callers may modify
+    public Task(Task other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.topic = other.topic;
+        this.isCompleted = other.isCompleted;
+        this.createdDate = other.createdDate;
+        this.deadline = other.deadline;
+        this.reminderEnabled = other.reminderEnabled;
+        this.reminderTime = other.reminderTime;
+        this.reminderPolicy = other.reminderPolicy;
+        this.completedDate = other.completedDate;
+        this.createdAt = other.createdAt;
+        this.deadlineAt = other.deadlineAt;
+        this.reminderAt = other.reminderAt;
+        this.completedAt = other.completedAt;
+        this.tags = new ArrayList<>();
+        if (other.tags != null) {
+            for (Tag tag : other.tags) {
+                this.tags.add(new Tag(tag));
+            }
+        }
+    }
+
     // Getters and Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -47,7 +84,19 @@ public class Task {
     public void setCompleted(boolean completed) { isCompleted = completed; }
 
     public String getCreatedDate() { return createdDate; }
-    public void setCreatedDate(String createdDate) { this.createdDate = createdDate; }
+    public void setCreatedDate(String createdDate) {
+        this.createdDate = createdDate;
+        this.createdAt = NOT_PARSED;
+    }
+
+    public long getCreatedAt() {
+        if (createdAt == NOT_PARSED) {
+            createdAt = TaskDates.parseTimestamp(createdDate);
+        }
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
 
     public String getDeadline() {
         return deadline;
@@ -55,6 +104,22 @@ public class Task {
 
     public void setDeadline(String deadline) {
         this.deadline = deadline;
+        this.deadlineAt = NOT_PARSED;
+    }
+
+    public long getDeadlineAt() {
+        if (deadlineAt == NOT_PARSED) {
+            deadlineAt = TaskDates.parseDeadline(deadline);
+        }
+        return deadlineAt;
+    }
+
+    public void setDeadlineAt(long deadlineAt) {
+        this.deadlineAt = deadlineAt;
+    }
+
+    public boolean hasDeadline() {
+        return getDeadlineAt() != TaskDates.NO_DATE;
     }
 
     public boolean isReminderEnabled() {
@@ -71,6 +136,27 @@ public class Task {
 
     public void setReminderTime(String reminderTime) {
         this.reminderTime = reminderTime;
+        this.reminderAt = NOT_PARSED;
+    }
+
+    // reminder_time uses the same "yyyy-MM-dd HH:mm" text as deadlines
+    public long getReminderAt() {
+        if (reminderAt == NOT_PARSED) {
+            reminderAt = TaskDates.parseDeadline(reminderTime);
+        }
+        return reminderAt;
+    }
+
+    public void setReminderAt(long reminderAt) {
+        this.reminderAt = reminderAt;
+    }
+
+    public ReminderPolicy getReminderPolicy() {
+        return reminderPolicy;
+    }
+
+    public void setReminderPolicy(ReminderPolicy reminderPolicy) {
+        this.reminderPolicy = reminderPolicy;
     }
 
     public String getCompletedDate() {
@@ -79,6 +165,28 @@ public class Task {
 
     public void setCompletedDate(String completedDate) {
         this.completedDate = completedDate;
+        this.completedAt = NOT_PARSED;
+    }
+
+    public long getCompletedAt() {
+        if (completedAt == NOT_PARSED) {
+            completedAt = TaskDates.parseTimestamp(completedDate);
+        }
+        return completedAt;
+    }
+
+    public void setCompletedAt(long completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    // Sets both the display text and the millis; NO_DATE clears them
+    public void markCompletedAt(long millis) {
+        if (millis == TaskDates.NO_DATE) {
+            this.completedDate = null;
+        } else {
+            this.completedDate = TaskDates.formatTimestamp(millis);
+        }
+        this.completedAt = millis;
     }
 
     public List<Tag> getTags() {
@@ -6,20 +6,52 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.CheckBox;
+import android.widget.CompoundButton;
 import android.widget.ImageButton;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.flexbox.FlexboxLayout;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final int TYPE_TASK = 0;
     private static final int TYPE_LOADING = 1;
+    // Task ids are positive, so the loading row and placeholders can never collide with one
+    private static final long LOADING_ITEM_ID = Long.MIN_VALUE;
+    // Chips shown per row; the rest are summarized as "+N more"
+    private static final int MAX_TAGS_SHOWN = 3;
+    private static final String[] MORE_TAGS_LABELS = new String[16];
+
+    // Same id = same row; rows whose shown fields are unchanged are not rebound
+    private static final DiffUtil.ItemCallback<Task> DIFF_CALLBACK = new DiffUtil.ItemCallback<Task>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return oldTask.getId() == newTask.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Task oldTask, @NonNull Task newTask) {
+            return Objects.equals(oldTask.getTitle(), newTask.getTitle())
+                    && Objects.equals(oldTask.getDescription(), newTask.getDescription())
+                    && Objects.equals(oldTask.getTopic(), newTask.getTopic())
+                    && Objects.equals(oldTask.getCreatedDate(), newTask.getCreatedDate())
+                    && oldTask.isCompleted() == newTask.isCompleted()
+                    && sameTags(oldTask.getTags(), newTask.getTags());
+        }
+    };
 
     private final Context context;
-    private List<Task> tasks;
+    // Lists are diffed off the main thread; the current list is only ever replaced, never mutated.
+    // A null entry is a task that is not loaded (see PagedTaskSource) and shows as a loading row.
+    private final AsyncListDiffer<Task> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
+    // Last list handed to the differ; edits build on it so they are not lost while a diff is pending
+    private List<Task> latestTasks;
     private OnTaskClickListener listener;
     private boolean isLoading = false;
 
@@ -31,59 +63,71 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     public TaskAdapter(Context context, List<Task> tasks) {
         this.context = context;
-        this.tasks = tasks;
+        setHasStableIds(true);
+        submit(new ArrayList<>(tasks));
     }
 
     public void setOnTaskClickListener(OnTaskClickListener listener) {
         this.listener = listener;
     }
 
+    // Replaces the list; only rows that were added, moved, removed or changed are touched
     public void updateTasks(List<Task> newTasks) {
-        this.tasks = newTasks;
-        notifyDataSetChanged();
+        submit(new ArrayList<>(newTasks));
     }
 
     public void addTasks(List<Task> newTasks) {
         if (newTasks != null && !newTasks.isEmpty()) {
-            int startPosition = tasks.size();
-            // Remove loading item if it exists
-            if (isLoading && startPosition > 0) {
-                isLoading = false;
-                notifyItemRemoved(startPosition);
-            }
-            this.tasks.addAll(newTasks);
-            notifyItemRangeInserted(startPosition, newTasks.size());
+            List<Task> tasks = new ArrayList<>(latestTasks);
+            tasks.addAll(newTasks);
+            submit(tasks);
         }
     }
 
+    private void submit(List<Task> tasks) {
+        latestTasks = tasks;
+        differ.submitList(tasks);
+    }
+
     public void setLoading(boolean loading) {
         boolean wasLoading = isLoading;
         isLoading = loading;
 
+        int footerPosition = differ.getCurrentList().size();
         if (loading && !wasLoading) {
             // Add loading item
-            notifyItemInserted(tasks.size());
+            notifyItemInserted(footerPosition);
         } else if (!loading && wasLoading) {
             // Remove loading item
-            notifyItemRemoved(tasks.size());
+            notifyItemRemoved(footerPosition);
         }
     }
 
     public void removeTask(int taskId) {
+        List<Task> tasks = new ArrayList<>(latestTasks);
         for (int i = 0; i < tasks.size(); i++) {
-            if (tasks.get(i).getId() == taskId) {
+            if (tasks.get(i) != null && tasks.get(i).getId() == taskId) {
                 tasks.remove(i);
-                notifyItemRemoved(i);
+                submit(tasks);
                 break;
             }
         }
     }
 
     public void updateTask(Task updatedTask) {
+        List<Task> tasks = new ArrayList<>(latestTasks);
         for (int i = 0; i < tasks.size(); i++) {
-            if (tasks.get(i).getId() == updatedTask.getId()) {
+            if (tasks.get(i) != null && tasks.get(i).getId() == updatedTask.getId()) {
+                if (tasks.get(i) == updatedTask) {
+                    // Changed in place (e.g. a reverted checkbox), so a diff would see nothing to do
+                    List<Task> shown = differ.getCurrentList();
+                    if (i < shown.size() && shown.get(i) == updatedTask) {
+                        notifyItemChanged(i);
+                    }
+                    break;
+                }
                 tasks.set(i, updatedTask);
-                notifyItemChanged(i);
+                submit(tasks);
                 break;
             }
         }
@@ -91,15 +135,26 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     @Override
     public int getItemViewType(int position) {
-        if (isLoading && position == tasks.size()) {
+        List<Task> tasks = differ.getCurrentList();
+        if (position == tasks.size() || tasks.get(position) == null) {
             return TYPE_LOADING;
         }
         return TYPE_TASK;
     }
 
+    @Override
+    public long getItemId(int position) {
+        List<Task> tasks = differ.getCurrentList();
+        if (position == tasks.size()) {
+            return LOADING_ITEM_ID;
+        }
+        Task task = tasks.get(position);
+        return task != null ? task.getId() : LOADING_ITEM_ID + 1 + position;
+    }
+
     @Override
     public int getItemCount() {
-        return tasks.size() + (isLoading ? 1 : 0);
+        return differ.getCurrentList().size() + (isLoading ? 1 : 0);
     }
 
     @NonNull
@@ -110,15 +165,48 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             return new LoadingViewHolder(view);
         } else {
             View view = LayoutInflater.from(context).inflate(R.layout.item_task, parent, false);
-            return new TaskViewHolder(view);
+            TaskViewHolder holder = new TaskViewHolder(view);
+
+            // Listeners are made once per holder and look the task up by position, so binds allocate none
+            holder.completedListener = (buttonView, isChecked) -> {
+                Task task = taskAt(holder);
+                if (task != null) {
+                    task.setCompleted(isChecked);
+                    if (listener != null) {
+                        listener.onTaskStatusChange(task);
+                    }
+                }
+            };
+            holder.itemView.setOnClickListener(v -> {
+                Task task = taskAt(holder);
+                if (task != null && listener != null) {
+                    listener.onTaskClick(task);
+                }
+            });
+            holder.buttonDelete.setOnClickListener(v -> {
+                Task task = taskAt(holder);
+                if (task != null && listener != null) {
+                    listener.onTaskDelete(task);
+                }
+            });
+            return holder;
+        }
+    }
+
+    private Task taskAt(TaskViewHolder holder) {
+        int position = holder.getBindingAdapterPosition();
+        List<Task> tasks = differ.getCurrentList();
+        if (position == RecyclerView.NO_POSITION || position >= tasks.size()) {
+            return null;
         }
+        return tasks.get(position);
     }
 
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
         if (getItemViewType(position) == TYPE_TASK) {
             TaskViewHolder taskHolder = (TaskViewHolder) holder;
-            Task task = tasks.get(position);
+            Task task = differ.getCurrentList().get(position);
 
             taskHolder.textTitle.setText(task.getTitle());
             taskHolder.textDescription.setText(task.getDescription() != null && !task.getDescription().isEmpty()
@@ -139,72 +227,91 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
             // Set checkbox state without triggering listener
             taskHolder.checkboxCompleted.setOnCheckedChangeListener(null);
             taskHolder.checkboxCompleted.setChecked(task.isCompleted());
-
-            // Set checkbox listener
-            taskHolder.checkboxCompleted.setOnCheckedChangeListener((buttonView, isChecked) -> {
-                task.setCompleted(isChecked);
-                if (listener != null) {
-                    listener.onTaskStatusChange(task);
-                }
-            });
-
-            // Set click listeners
-            taskHolder.itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onTaskClick(task);
-                }
-            });
-
-            taskHolder.buttonDelete.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onTaskDelete(task);
-                }
-            });
+            taskHolder.checkboxCompleted.setOnCheckedChangeListener(taskHolder.completedListener);
         }
         // Loading items don't need binding
     }
 
+    // Rebinds the holder's own chip views; each chip is inflated at most once per holder
     private void displayTaskTags(TaskViewHolder holder, Task task) {
-        holder.flexboxTags.removeAllViews();
-
-        if (task.getTags() != null && !task.getTags().isEmpty()) {
-            holder.flexboxTags.setVisibility(View.VISIBLE);
-
-            // Limit to first 3 tags to avoid cluttering the UI
-            int maxTagsToShow = Math.min(task.getTags().size(), 3);
-            
-            for (int i = 0; i < maxTagsToShow; i++) {
-                Tag tag = task.getTags().get(i);
-                View tagChip = LayoutInflater.from(context).inflate(R.layout.item_tag_chip, holder.flexboxTags, false);
-                
-                View colorDot = tagChip.findViewById(R.id.viewTagColorDot);
-                TextView tagName = tagChip.findViewById(R.id.tvTagChipName);
-                View removeButton = tagChip.findViewById(R.id.ivRemoveTag);
-
-                try {
-                    colorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-                } catch (Exception e) {
-                    colorDot.setBackgroundColor(Color.GRAY);
+        List<Tag> tags = task.getTags();
+        int tagCount = tags != null ? tags.size() : 0;
+        if (tagCount == 0) {
+            holder.flexboxTags.setVisibility(View.GONE);
+            return;
+        }
+        holder.flexboxTags.setVisibility(View.VISIBLE);
+
+        // Limit to first 3 tags to avoid cluttering the UI
+        int maxTagsToShow = Math.min(tagCount, MAX_TAGS_SHOWN);
+        for (int i = 0; i < MAX_TAGS_SHOWN; i++) {
+            TagChip chip = holder.tagChips[i];
+            if (i >= maxTagsToShow) {
+                if (chip != null) {
+                    chip.root.setVisibility(View.GONE);
                 }
-                
-                tagName.setText(tag.getName());
-                removeButton.setVisibility(View.GONE); // Don't show remove button in list view
+                continue;
+            }
+            if (chip == null) {
+                chip = inflateTagChip(holder.flexboxTags);
+                holder.tagChips[i] = chip;
+            }
+            Tag tag = tags.get(i);
+            chip.colorDot.setBackgroundColor(tag.getParsedColor());
+            chip.name.setText(tag.getName());
+            chip.root.setVisibility(View.VISIBLE);
+        }
 
-                holder.flexboxTags.addView(tagChip);
+        // Show "+N more" if there are more tags
+        if (tagCount > maxTagsToShow) {
+            if (holder.moreText == null) {
+                holder.moreText = new TextView(context);
+                holder.moreText.setTextSize(10);
+                holder.moreText.setTextColor(Color.GRAY);
+                holder.moreText.setPadding(8, 4, 8, 4);
+                holder.flexboxTags.addView(holder.moreText);
             }
+            holder.moreText.setText(moreTagsLabel(tagCount - maxTagsToShow));
+            holder.moreText.setVisibility(View.VISIBLE);
+        } else if (holder.moreText != null) {
+            holder.moreText.setVisibility(View.GONE);
+        }
+    }
+
+    private TagChip inflateTagChip(FlexboxLayout parent) {
+        View root = LayoutInflater.from(context).inflate(R.layout.item_tag_chip, parent, false);
+        root.findViewById(R.id.ivRemoveTag).setVisibility(View.GONE); // Don't show remove button in list view
+        // Chips come before the "+N more" label, which is only added once all chips exist
+        parent.addView(root);
+        return new TagChip(root);
+    }
 
-            // Show "+N more" if there are more tags
-            if (task.getTags().size() > maxTagsToShow) {
-                TextView moreText = new TextView(context);
-                moreText.setText("+" + (task.getTags().size() - maxTagsToShow) + " more");
-                moreText.setTextSize(10);
-                moreText.setTextColor(Color.GRAY);
-                moreText.setPadding(8, 4, 8, 4);
-                holder.flexboxTags.addView(moreText);
+    private static String moreTagsLabel(int hidden) {
+        if (hidden >= MORE_TAGS_LABELS.length) {
+            return "+" + hidden + " more";
+        }
+        if (MORE_TAGS_LABELS[hidden] == null) {
+            MORE_TAGS_LABELS[hidden] = "+" + hidden + " more";
+        }
+        return MORE_TAGS_LABELS[hidden];
+    }
+
+    private static boolean sameTags(List<Tag> oldTags, List<Tag> newTags) {
+        if (oldTags == null || newTags == null) {
+            return oldTags == newTags;
+        }
+        if (oldTags.size() != newTags.size()) {
+            return false;
+        }
+        for (int i = 0; i < oldTags.size(); i++) {
+            Tag oldTag = oldTags.get(i);
+            Tag newTag = newTags.get(i);
+            if (oldTag.getId() != newTag.getId() || !Objects.equals(oldTag.getName(), newTag.getName())
+                    || !Objects.equals(oldTag.getColor(), newTag.getColor())) {
+                return false;
             }
-        } else {
-            holder.flexboxTags.setVisibility(View.GONE);
         }
+        return true;
     }
 
     static class TaskViewHolder extends RecyclerView.ViewHolder {
@@ -212,6 +319,10 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         CheckBox checkboxCompleted;
         ImageButton buttonDelete;
         FlexboxLayout flexboxTags;
+        CompoundButton.OnCheckedChangeListener completedListener;
+        // Chip views owned by this row, inflated on first use and rebound afterwards
+        final TagChip[] tagChips = new TagChip[MAX_TAGS_SHOWN];
+        TextView moreText;
 
         TaskViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -225,6 +336,18 @@ public class TaskAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
         }
     }
 
+    static class TagChip {
+        final View root;
+        final View colorDot;
+        final TextView name;
+
+        TagChip(View root) {
+            this.root = root;
+            this.colorDot = root.findViewById(R.id.viewTagColorDot);
+            this.name = root.findViewById(R.id.tvTagChipName);
+        }
+    }
+
     static class LoadingViewHolder extends RecyclerView.ViewHolder {
         ProgressBar progressBar;
 
@@ -0,0 +1,56 @@
+package com.example.todolist;
+
+import android.util.LruCache;
+
+// Process-wide LRU of tasks by id, owned by DatabaseHelper. It stores private copies and hands out
+// copies, so callers can modify what they get without touching the cache.
+class TaskCache {
+    private final LruCache<Integer, Task> tasks;
+
+    // Bumped by every invalidation. A read that started before a write committed carries the old
+    // generation and is not cached, so a slow reader cannot put back a row the write just replaced.
+    private long generation;
+
+    TaskCache(int maxTasks) {
+        tasks = new LruCache<>(maxTasks);
+    }
+
+    // Copy of the cached task, or null on a miss
+    synchronized Task get(int taskId) {
+        Task task = tasks.get(taskId);
+        return task != null ? new Task(task) : null;
+    }
+
+    // Take before reading from the database and pass to put()
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized void put(Task task, long readGeneration) {
+        if (readGeneration == generation) {
+            tasks.put(task.getId(), new Task(task));
+        }
+    }
+
+    synchronized void invalidate(int taskId) {
+        generation++;
+        tasks.remove(taskId);
+    }
+
+    synchronized void invalidateAll() {
+        generation++;
+        tasks.evictAll();
+    }
+
+    synchronized int hitCount() {
+        return tasks.hitCount();
+    }
+
+    synchronized int missCount() {
+        return tasks.missCount();
+    }
+
+    synchronized int size() {
+        return tasks.size();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.todolist;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+// Conversions between the text dates stored before schema version 7 and epoch millis.
+// Only used when a date is entered or migrated; reads use the INTEGER columns directly.
+public final class TaskDates {
+    // Value of the *_at columns/accessors when a task has no such date
+    public static final long NO_DATE = 0;
+
+    // The dashboard "due next week" section and the widget cover today plus this many days
+    public static final int DUE_SOON_DAYS = 7;
+
+    // Deadlines are typed by the user as a day, optionally with a time
+    private static final String DEADLINE_DATE_TIME = "yyyy-MM-dd HH:mm";
+    private static final String DEADLINE_DATE = "yyyy-MM-dd";
+
+    // created_date/completed_date were written by DateFormat.getDateTimeInstance(); older rows
+    // from an English-locale device look like this regardless of the current locale
+    private static final String LEGACY_TIMESTAMP = "MMM dd, yyyy hh:mm:ss a";
+
+    private TaskDates() {
+    }
+
+    // Display text for created_date/completed_date, same format the app has always written
+    public static String formatTimestamp(long millis) {
+        return DateFormat.getDateTimeInstance().format(new Date(millis));
+    }
+
+    public static long parseTimestamp(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_DATE;
+        }
+        // Newer ICU data puts a narrow no-break space before AM/PM
+        String normalized = text.replace('\u202F', ' ').replace('\u00A0', ' ');
+        long millis = parse(DateFormat.getDateTimeInstance(), text);
+        if (millis == NO_DATE && !normalized.equals(text)) {
+            millis = parse(DateFormat.getDateTimeInstance(), normalized);
+        }
+        if (millis == NO_DATE) {
+            millis = parse(new SimpleDateFormat(LEGACY_TIMESTAMP, Locale.ENGLISH), normalized);
+        }
+        return millis;
+    }
+
+    // Date-only deadlines resolve to the start of that day
+    public static long parseDeadline(String text) {
+        if (text == null || text.isEmpty()) {
+            return NO_DATE;
+        }
+        // Try the longer pattern first: "yyyy-MM-dd" would accept "2024-05-01 10:00" and drop the time
+        long millis = parse(new SimpleDateFormat(DEADLINE_DATE_TIME, Locale.US), text);
+        if (millis == NO_DATE) {
+            millis = parse(new SimpleDateFormat(DEADLINE_DATE, Locale.US), text);
+        }
+        return millis;
+    }
+
+    // Local calendar day of the time as 'yyyy-MM-dd', the key daily_stats counts by; null for NO_DATE
+    public static String formatDay(long millis) {
+        if (millis == NO_DATE) {
+            return null;
+        }
+        return new SimpleDateFormat(DEADLINE_DATE, Locale.US).format(new Date(millis));
+    }
+
+    // 00:00:00.000 local time, daysFromToday days from now
+    public static long startOfDay(int daysFromToday) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_YEAR, daysFromToday);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar.getTimeInMillis();
+    }
+
+    // 23:59:59.999 local time, daysFromToday days from now
+    public static long endOfDay(int daysFromToday) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.DAY_OF_YEAR, daysFromToday);
+        calendar.set(Calendar.HOUR_OF_DAY, 23);
+        calendar.set(Calendar.MINUTE, 59);
+        calendar.set(Calendar.SECOND, 59);
+        calendar.set(Calendar.MILLISECOND, 999);
+        return calendar.getTimeInMillis();
+    }
+
+    private static long parse(DateFormat format, String text) {
+        try {
+            Date date = format.parse(text);
+            return date != null ? date.getTime() : NO_DATE;
+        } catch (ParseException e) {
+            return NO_DATE;
+        }
+    }
+}
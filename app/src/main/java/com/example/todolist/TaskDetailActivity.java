@@ -13,12 +13,11 @@ import androidx.cardview.widget.CardView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.flexbox.FlexboxLayout;
 import android.view.View;
-import android.graphics.Color;
 
 public class TaskDetailActivity extends AppCompatActivity {
     private static final int EDIT_TASK_REQUEST_CODE = 100;
 
-    private DatabaseHelper databaseHelper;
+    private TaskRepository repository;
     private ReminderAlarmManager reminderAlarmManager;
     private Task currentTask;
 
@@ -37,7 +36,7 @@ public class TaskDetailActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_task_detail);
 
-        databaseHelper = new DatabaseHelper(this);
+        repository = TaskRepository.getInstance(this);
         reminderAlarmManager = new ReminderAlarmManager(this);
 
         // Setup toolbar
@@ -50,7 +49,6 @@ public class TaskDetailActivity extends AppCompatActivity {
 
         initViews();
         loadTaskData();
-        setupListeners();
     }
 
     private void initViews() {
@@ -81,16 +79,19 @@ public class TaskDetailActivity extends AppCompatActivity {
         }
 
         // Load complete task data from database
-        currentTask = databaseHelper.getTaskById(taskId);
-        
-        if (currentTask == null) {
-            Toast.makeText(this, "Error: Task not found", Toast.LENGTH_SHORT).show();
-            finish();
-            return;
-        }
+        repository.getTaskById(this, taskId, task -> {
+            currentTask = task;
+
+            if (currentTask == null) {
+                Toast.makeText(this, "Error: Task not found", Toast.LENGTH_SHORT).show();
+                finish();
+                return;
+            }
 
-        // Update UI
-        updateUI();
+            // Update UI, then attach listeners so filling the checkbox doesn't count as a user change
+            updateUI();
+            setupListeners();
+        });
     }
 
     private void updateUI() {
@@ -143,51 +144,42 @@ public class TaskDetailActivity extends AppCompatActivity {
     }
 
     private void updateDeadlineStatus() {
-        if (currentTask.getDeadline() == null || currentTask.getDeadline().isEmpty()) {
+        if (!currentTask.hasDeadline()) {
             textDeadlineStatus.setVisibility(android.view.View.GONE);
             return;
         }
 
-        try {
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm", java.util.Locale.getDefault());
-            java.util.Date deadlineDate = sdf.parse(currentTask.getDeadline());
-            java.util.Date now = new java.util.Date();
-            
-            long timeDiff = deadlineDate.getTime() - now.getTime();
-            long daysDiff = timeDiff / (1000 * 60 * 60 * 24);
-            long hoursDiff = timeDiff / (1000 * 60 * 60);
-            
-            if (timeDiff < 0) {
-                // Overdue
-                long daysOverdue = Math.abs(daysDiff);
-                if (daysOverdue > 0) {
-                    textDeadlineStatus.setText("Overdue by " + daysOverdue + " day(s)");
-                } else {
-                    long hoursOverdue = Math.abs(hoursDiff);
-                    textDeadlineStatus.setText("Overdue by " + hoursOverdue + " hour(s)");
-                }
-                textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_red_dark, getTheme()));
-                textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
-            } else if (daysDiff <= 1) {
-                // Due within 1 day
-                if (daysDiff == 0) {
-                    textDeadlineStatus.setText("Due today!");
-                } else {
-                    textDeadlineStatus.setText("Due in " + hoursDiff + " hour(s)");
-                }
-                textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_orange_dark, getTheme()));
-                textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
-            } else if (daysDiff <= 7) {
-                // Due within a week
-                textDeadlineStatus.setText("Due in " + daysDiff + " day(s)");
-                textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_blue_dark, getTheme()));
-                textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
+        long timeDiff = currentTask.getDeadlineAt() - System.currentTimeMillis();
+        long daysDiff = timeDiff / (1000 * 60 * 60 * 24);
+        long hoursDiff = timeDiff / (1000 * 60 * 60);
+        
+        if (timeDiff < 0) {
+            // Overdue
+            long daysOverdue = Math.abs(daysDiff);
+            if (daysOverdue > 0) {
+                textDeadlineStatus.setText("Overdue by " + daysOverdue + " day(s)");
             } else {
-                // More than a week away
-                textDeadlineStatus.setVisibility(android.view.View.GONE);
+                long hoursOverdue = Math.abs(hoursDiff);
+                textDeadlineStatus.setText("Overdue by " + hoursOverdue + " hour(s)");
             }
-        } catch (java.text.ParseException e) {
-            e.printStackTrace();
+            textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_red_dark, getTheme()));
+            textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
+        } else if (daysDiff <= 1) {
+            // Due within 1 day
+            if (daysDiff == 0) {
+                textDeadlineStatus.setText("Due today!");
+            } else {
+                textDeadlineStatus.setText("Due in " + hoursDiff + " hour(s)");
+            }
+            textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_orange_dark, getTheme()));
+            textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
+        } else if (daysDiff <= 7) {
+            // Due within a week
+            textDeadlineStatus.setText("Due in " + daysDiff + " day(s)");
+            textDeadlineStatus.setTextColor(getResources().getColor(android.R.color.holo_blue_dark, getTheme()));
+            textDeadlineStatus.setVisibility(android.view.View.VISIBLE);
+        } else {
+            // More than a week away
             textDeadlineStatus.setVisibility(android.view.View.GONE);
         }
     }
@@ -205,11 +197,7 @@ public class TaskDetailActivity extends AppCompatActivity {
                 TextView tagName = tagChip.findViewById(R.id.tvTagChipName);
                 View removeButton = tagChip.findViewById(R.id.ivRemoveTag);
 
-                try {
-                    colorDot.setBackgroundColor(Color.parseColor(tag.getColor()));
-                } catch (Exception e) {
-                    colorDot.setBackgroundColor(Color.GRAY);
-                }
+                colorDot.setBackgroundColor(tag.getParsedColor());
                 
                 tagName.setText(tag.getName());
                 removeButton.setVisibility(View.GONE); // Don't show remove button in detail view
@@ -229,40 +217,15 @@ public class TaskDetailActivity extends AppCompatActivity {
                 
                 // Set completed date when task is marked as completed
                 if (isChecked) {
-                    currentTask.setCompletedDate(java.text.DateFormat.getDateTimeInstance().format(new java.util.Date()));
+                    currentTask.markCompletedAt(System.currentTimeMillis());
                 } else {
-                    currentTask.setCompletedDate(null);
+                    currentTask.markCompletedAt(TaskDates.NO_DATE);
                 }
                 
                 updateStatusText();
 
                 // Update in database
-                int result = databaseHelper.updateTask(currentTask);
-                if (result > 0) {
-                    String message = isChecked ? "Task marked as completed" : "Task marked as incomplete";
-                    Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
-
-                    // Handle reminders based on task completion status
-                    if (isChecked) {
-                        // Cancel all reminders when task is completed
-                        reminderAlarmManager.cancelReminder(currentTask.getId());
-                    } else if (currentTask.isReminderEnabled()) {
-                        // Re-enable reminders if task is unmarked and has reminders enabled
-                        reminderAlarmManager.setReminder(currentTask);
-                    }
-
-                    // Update widget immediately when task status changes
-                    TaskWidgetProvider.updateAllWidgets(this);
-
-                    // Send result back to MainActivity
-                    setResultAndNotifyChange();
-                } else {
-                    // Revert checkbox if update failed
-                    checkboxCompleted.setChecked(!isChecked);
-                    currentTask.setCompleted(!isChecked);
-                    updateStatusText();
-                    Toast.makeText(this, "Failed to update task status", Toast.LENGTH_SHORT).show();
-                }
+                repository.updateTask(this, currentTask, result -> onStatusSaved(isChecked, result));
             }
         });
 
@@ -273,6 +236,34 @@ public class TaskDetailActivity extends AppCompatActivity {
         buttonDelete.setOnClickListener(v -> showDeleteConfirmation());
     }
 
+    private void onStatusSaved(boolean isChecked, int result) {
+        if (result > 0) {
+            String message = isChecked ? "Task marked as completed" : "Task marked as incomplete";
+            Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+
+            // Handle reminders based on task completion status
+            if (isChecked) {
+                // Cancel all reminders when task is completed
+                reminderAlarmManager.cancelReminder(currentTask.getId());
+            } else if (currentTask.isReminderEnabled()) {
+                // Re-enable reminders if task is unmarked and has reminders enabled
+                reminderAlarmManager.setReminder(currentTask);
+            }
+
+            // Update widget immediately when task status changes
+            TaskWidgetProvider.updateAllWidgets(this);
+
+            // Send result back to MainActivity
+            setResultAndNotifyChange();
+        } else {
+            // Revert checkbox if update failed
+            checkboxCompleted.setChecked(!isChecked);
+            currentTask.setCompleted(!isChecked);
+            updateStatusText();
+            Toast.makeText(this, "Failed to update task status", Toast.LENGTH_SHORT).show();
+        }
+    }
+
     private void openEditActivity() {
         Intent intent = new Intent(this, EditTaskActivity.class);
         intent.putExtra("task_id", currentTask.getId());
@@ -305,23 +296,26 @@ public class TaskDetailActivity extends AppCompatActivity {
             // Cancel reminder alarm before deleting
             reminderAlarmManager.cancelReminder(currentTask.getId());
             
-            int result = databaseHelper.deleteTask(currentTask.getId());
-            if (result > 0) {
-                // Update widget immediately after task deletion
-                TaskWidgetProvider.updateAllWidgets(this);
-                
-                Toast.makeText(this, "Task deleted successfully", Toast.LENGTH_SHORT).show();
+            buttonDelete.setEnabled(false);
+            repository.deleteTask(this, currentTask.getId(), result -> {
+                if (result > 0) {
+                    // Update widget immediately after task deletion
+                    TaskWidgetProvider.updateAllWidgets(this);
 
-                // Send result back to MainActivity
-                Intent resultIntent = new Intent();
-                resultIntent.putExtra("task_deleted", true);
-                resultIntent.putExtra("deleted_task_id", currentTask.getId());
-                setResult(RESULT_OK, resultIntent);
+                    Toast.makeText(this, "Task deleted successfully", Toast.LENGTH_SHORT).show();
 
-                finish();
-            } else {
-                Toast.makeText(this, "Failed to delete task", Toast.LENGTH_SHORT).show();
-            }
+                    // Send result back to MainActivity
+                    Intent resultIntent = new Intent();
+                    resultIntent.putExtra("task_deleted", true);
+                    resultIntent.putExtra("deleted_task_id", currentTask.getId());
+                    setResult(RESULT_OK, resultIntent);
+
+                    finish();
+                } else {
+                    buttonDelete.setEnabled(true);
+                    Toast.makeText(this, "Failed to delete task", Toast.LENGTH_SHORT).show();
+                }
+            });
         } catch (Exception e) {
             Toast.makeText(this, "Error deleting task: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             android.util.Log.e("TaskDetailActivity", "Error deleting task", e);
@@ -349,23 +343,31 @@ public class TaskDetailActivity extends AppCompatActivity {
             if (data.getBooleanExtra("task_updated", false)) {
                 // Reload complete task data from database to get all updated fields including deadline and reminder
                 int taskId = currentTask.getId();
-                currentTask = databaseHelper.getTaskById(taskId);
-                
-                if (currentTask != null) {
-                    // Update UI with new data
-                    updateUI();
+                repository.getTaskById(this, taskId, task -> {
+                    if (task != null) {
+                        currentTask = task;
 
-                    // Notify MainActivity about the changes
-                    setResultAndNotifyChange();
+                        // Update UI with new data
+                        updateUI();
 
-                    Toast.makeText(this, "Task updated successfully", Toast.LENGTH_SHORT).show();
-                } else {
-                    Toast.makeText(this, "Error: Could not reload task data", Toast.LENGTH_SHORT).show();
-                }
+                        // Notify MainActivity about the changes
+                        setResultAndNotifyChange();
+
+                        Toast.makeText(this, "Task updated successfully", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Error: Could not reload task data", Toast.LENGTH_SHORT).show();
+                    }
+                });
             }
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        repository.cancelAll(this);
+        super.onDestroy();
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
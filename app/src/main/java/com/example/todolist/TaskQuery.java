@@ -0,0 +1,105 @@
+package com.example.todolist;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+// Criteria for DatabaseHelper.getTasks, combined with AND. Criteria that are never set do not restrict
+// the result; each setter returns this so a query reads as one chain:
+//   new TaskQuery().topic("Work").completed(false).deadlineBetween(start, end).sortBy(TaskQuery.Sort.DEADLINE)
+public class TaskQuery {
+
+    public enum Sort {
+        // Highest id first, the order of the main list
+        NEWEST,
+        OLDEST,
+        // Earliest deadline first; tasks without a deadline come last
+        DEADLINE,
+        // Tasks whose title matches text first, then the other matches, each newest first (the order of
+        // searchTasks). Without text the same as NEWEST.
+        RELEVANCE
+    }
+
+    private String topic;
+    private Set<Integer> tagIds = Collections.emptySet();
+    private DatabaseHelper.TagMatchMode tagMatchMode = DatabaseHelper.TagMatchMode.ANY;
+    private Boolean completed;
+    private boolean hasDeadlineWindow;
+    private long deadlineStart;
+    private long deadlineEnd;
+    private String text;
+    private Sort sort = Sort.NEWEST;
+
+    // Exact topic; null matches every topic
+    public TaskQuery topic(String topic) {
+        this.topic = topic;
+        return this;
+    }
+
+    // Tasks with any/all of these tags; an empty set matches every task
+    public TaskQuery tags(Set<Integer> tagIds, DatabaseHelper.TagMatchMode mode) {
+        this.tagIds = new LinkedHashSet<>(tagIds);
+        this.tagMatchMode = mode;
+        return this;
+    }
+
+    public TaskQuery completed(boolean completed) {
+        this.completed = completed;
+        return this;
+    }
+
+    // Deadline within [startMillis, endMillis]; tasks without a deadline never match
+    public TaskQuery deadlineBetween(long startMillis, long endMillis) {
+        this.hasDeadlineWindow = true;
+        this.deadlineStart = startMillis;
+        this.deadlineEnd = endMillis;
+        return this;
+    }
+
+    // Full-text match on title, description and topic, with the same word/prefix rules as searchTasks
+    public TaskQuery text(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public TaskQuery sortBy(Sort sort) {
+        this.sort = sort;
+        return this;
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    Set<Integer> getTagIds() {
+        return tagIds;
+    }
+
+    DatabaseHelper.TagMatchMode getTagMatchMode() {
+        return tagMatchMode;
+    }
+
+    Boolean getCompleted() {
+        return completed;
+    }
+
+    boolean hasDeadlineWindow() {
+        return hasDeadlineWindow;
+    }
+
+    long getDeadlineStart() {
+        return deadlineStart;
+    }
+
+    long getDeadlineEnd() {
+        return deadlineEnd;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    Sort getSort() {
+        return sort;
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.todolist;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Runs DatabaseHelper/TagManager work on a small background pool and delivers results on the main thread
+public class TaskRepository {
+    private static final String TAG = "TaskRepository";
+
+    // SQLite serialises writers anyway; two threads let a read proceed while a write is in flight
+    private static final int IO_THREADS = 2;
+    // Requests waiting for a thread; past this new ones are refused (error callback) rather than piling up
+    private static final int MAX_QUEUED = 64;
+    private static final int MAX_QUEUED_RECEIVERS = 16;
+    private static final int MAX_QUEUED_REMINDERS = 32;
+
+    // A broadcast held with goAsync counts as an ANR after about 10 s; receiver work is let go before that
+    private static final long RECEIVER_TIMEOUT_MS = 8_000;
+
+    private static TaskRepository instance;
+
+    private final DatabaseHelper databaseHelper;
+    private final TagManager tagManager;
+    private final ThreadPoolExecutor executor;
+    // Receiver work gets its own thread so a due reminder never waits behind list page loads
+    private final ThreadPoolExecutor receiverExecutor;
+    // Reminder queue writes run one at a time in submit order, so a cancel never overtakes the schedule before it
+    private final ThreadPoolExecutor reminderExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Outstanding requests per owner (usually an Activity) so they can be cancelled together
+    private final Map<Object, List<Request>> pendingByOwner = new HashMap<>();
+
+    // Latency per name: receivers from onReceive to finish, reminder work from submit to done
+    private final Map<String, LatencyStats> latencyStats = new HashMap<>();
+
+    private static class LatencyStats {
+        int count;
+        int timeouts;
+        long totalMs;
+        long maxMs;
+    }
+
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    // Handle for a submitted request; cancelling it guarantees the callbacks will not run
+    public static class Request {
+        private final Object owner;
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        Request(Object owner) {
+            this.owner = owner;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private TaskRepository(Context context) {
+        databaseHelper = DatabaseHelper.getInstance(context);
+        tagManager = TagManager.getInstance(context);
+
+        executor = newExecutor(IO_THREADS, MAX_QUEUED, "todo-db-", Thread.NORM_PRIORITY - 1);
+        receiverExecutor = newExecutor(1, MAX_QUEUED_RECEIVERS, "todo-receiver-", Thread.NORM_PRIORITY);
+        reminderExecutor = newExecutor(1, MAX_QUEUED_REMINDERS, "todo-reminder-", Thread.NORM_PRIORITY);
+    }
+
+    private static ThreadPoolExecutor newExecutor(int threads, int maxQueued, String name, int priority) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + threadCount.incrementAndGet());
+            thread.setPriority(priority);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxQueued), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    public static synchronized TaskRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TaskRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Run work in the background and deliver its result on the main thread unless cancelled first
+    public <T> Request execute(Object owner, Callable<T> work, Callback<T> callback) {
+        return execute(owner, work, callback, null);
+    }
+
+    public <T> Request execute(Object owner, Callable<T> work, Callback<T> callback, ErrorCallback errorCallback) {
+        Request request = new Request(owner);
+        track(request);
+        try {
+            request.future = submit(request, work, callback, errorCallback);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Background queue full, request refused");
+            mainHandler.post(() -> {
+                untrack(request);
+                if (!request.isCancelled() && errorCallback != null) {
+                    errorCallback.onError(e);
+                }
+            });
+        }
+        return request;
+    }
+
+    private <T> Future<?> submit(Request request, Callable<T> work, Callback<T> callback, ErrorCallback errorCallback) {
+        return executor.submit(() -> {
+            if (request.isCancelled()) {
+                untrack(request);
+                return;
+            }
+            try {
+                T result = work.call();
+                mainHandler.post(() -> {
+                    untrack(request);
+                    if (!request.isCancelled() && callback != null) {
+                        callback.onResult(result);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Background request failed", e);
+                mainHandler.post(() -> {
+                    untrack(request);
+                    if (!request.isCancelled() && errorCallback != null) {
+                        errorCallback.onError(e);
+                    }
+                });
+            }
+        });
+    }
+
+    // Fire-and-forget background work with no main-thread delivery (widgets, receivers)
+    public void runInBackground(Runnable work) {
+        try {
+            executor.execute(() -> {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    Log.e(TAG, "Background work failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Background queue full, work dropped", e);
+        }
+    }
+
+    // Work for a BroadcastReceiver that called goAsync(): runs on the receiver thread and finishes the broadcast
+    // when done. After RECEIVER_TIMEOUT_MS the broadcast is finished anyway so a slow database cannot turn into
+    // a receiver ANR, but the work is left to complete. Each run's latency is logged under name.
+    public void runForReceiver(BroadcastReceiver.PendingResult pendingResult, String name, Runnable work) {
+        runForReceiver(pendingResult, name, work, null);
+    }
+
+    // As above; onTimeout runs on the main thread if the broadcast had to be finished early, or if the work
+    // could not be queued at all. It must not block.
+    public void runForReceiver(BroadcastReceiver.PendingResult pendingResult, String name, Runnable work,
+                               Runnable onTimeout) {
+        long receivedAt = SystemClock.elapsedRealtime();
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable timeout = () -> {
+            if (finished.compareAndSet(false, true)) {
+                pendingResult.finish();
+                recordLatency(name, SystemClock.elapsedRealtime() - receivedAt, true);
+                if (onTimeout != null) {
+                    onTimeout.run();
+                }
+            }
+        };
+        try {
+            receiverExecutor.execute(() -> {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    Log.e(TAG, name + " failed", e);
+                } finally {
+                    if (finished.compareAndSet(false, true)) {
+                        mainHandler.removeCallbacks(timeout);
+                        pendingResult.finish();
+                        recordLatency(name, SystemClock.elapsedRealtime() - receivedAt, false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, name + " refused, receiver queue full", e);
+            mainHandler.post(timeout);
+            return;
+        }
+        mainHandler.postDelayed(timeout, RECEIVER_TIMEOUT_MS);
+    }
+
+    // Reminder queue work (ReminderAlarmManager): runs on the reminder thread after everything submitted before
+    // it, with its latency logged under name. Returns false if it could not be queued; it will not run then.
+    public boolean runInOrder(String name, Runnable work) {
+        long queuedAt = SystemClock.elapsedRealtime();
+        try {
+            reminderExecutor.execute(() -> {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    Log.e(TAG, name + " failed", e);
+                } finally {
+                    recordLatency(name, SystemClock.elapsedRealtime() - queuedAt, false);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            Log.e(TAG, name + " refused, reminder queue full", e);
+            return false;
+        }
+    }
+
+    private void recordLatency(String name, long latencyMs, boolean timedOut) {
+        synchronized (latencyStats) {
+            LatencyStats stats = latencyStats.get(name);
+            if (stats == null) {
+                stats = new LatencyStats();
+                latencyStats.put(name, stats);
+            }
+            stats.count++;
+            stats.totalMs += latencyMs;
+            stats.maxMs = Math.max(stats.maxMs, latencyMs);
+            if (timedOut) {
+                stats.timeouts++;
+            }
+            String summary = name + (timedOut ? " timed out after " : " finished in ") + latencyMs + " ms; avg "
+                    + stats.totalMs / stats.count + " ms, max " + stats.maxMs + " ms, " + stats.timeouts
+                    + " timeouts over " + stats.count + " runs";
+            if (timedOut) {
+                Log.w(TAG, summary);
+            } else {
+                Log.d(TAG, summary);
+            }
+        }
+    }
+
+    // Cancel everything an owner still has in flight; call from onDestroy
+    public void cancelAll(Object owner) {
+        List<Request> requests;
+        synchronized (pendingByOwner) {
+            requests = pendingByOwner.remove(owner);
+        }
+        if (requests != null) {
+            for (Request request : requests) {
+                request.cancel();
+            }
+        }
+    }
+
+    private void track(Request request) {
+        if (request.owner == null) return;
+        synchronized (pendingByOwner) {
+            List<Request> requests = pendingByOwner.get(request.owner);
+            if (requests == null) {
+                requests = new ArrayList<>();
+                pendingByOwner.put(request.owner, requests);
+            }
+            requests.add(request);
+        }
+    }
+
+    private void untrack(Request request) {
+        if (request.owner == null) return;
+        synchronized (pendingByOwner) {
+            List<Request> requests = pendingByOwner.get(request.owner);
+            if (requests != null) {
+                requests.remove(request);
+                if (requests.isEmpty()) {
+                    pendingByOwner.remove(request.owner);
+                }
+            }
+        }
+    }
+
+    // Task reads
+    public Request getAllTasks(Object owner, Callback<List<Task>> callback) {
+        return execute(owner, databaseHelper::getAllTasks, callback);
+    }
+
+    public Request getTaskById(Object owner, int taskId, Callback<Task> callback) {
+        return execute(owner, () -> databaseHelper.getTaskById(taskId), callback);
+    }
+
+    public Request getAllTopics(Object owner, Callback<List<String>> callback) {
+        return execute(owner, databaseHelper::getAllTopics, callback);
+    }
+
+    // Task writes; callbacks receive the same values DatabaseHelper returns
+    public Request addTask(Object owner, Task task, Callback<Long> callback) {
+        return execute(owner, () -> databaseHelper.addTask(task), callback);
+    }
+
+    public Request updateTask(Object owner, Task task, Callback<Integer> callback) {
+        return execute(owner, () -> databaseHelper.updateTask(task), callback);
+    }
+
+    public Request deleteTask(Object owner, int taskId, Callback<Integer> callback) {
+        return execute(owner, () -> databaseHelper.deleteTask(taskId), callback);
+    }
+
+    // Tags
+    public Request getAllTags(Object owner, Callback<List<Tag>> callback) {
+        return execute(owner, tagManager::getAllTags, callback);
+    }
+
+    public Request getTagUsageCounts(Object owner, Callback<Map<Tag, Integer>> callback) {
+        return execute(owner, databaseHelper::getTagUsageCounts, callback);
+    }
+
+    // Tag picker search: matching tags plus whether the query is free to become a new tag
+    public static class TagSearchResult {
+        public final List<Tag> tags;
+        public final boolean canCreateNew;
+
+        TagSearchResult(List<Tag> tags, boolean canCreateNew) {
+            this.tags = tags;
+            this.canCreateNew = canCreateNew;
+        }
+    }
+
+    public Request searchTags(Object owner, String query, Callback<TagSearchResult> callback) {
+        return execute(owner, () -> new TagSearchResult(tagManager.searchTagsByName(query),
+                !query.isEmpty() && tagManager.isTagNameAvailable(query)), callback);
+    }
+
+    public Request isTagNameAvailable(Object owner, String name, Callback<Boolean> callback) {
+        return execute(owner, () -> tagManager.isTagNameAvailable(name), callback);
+    }
+
+    // Resolves to null when the name is empty or already taken
+    public Request createTag(Object owner, String name, String color, Callback<Tag> callback) {
+        return execute(owner, () -> {
+            if (name.isEmpty() || !tagManager.isTagNameAvailable(name)) {
+                return null;
+            }
+            return tagManager.createTag(name, color);
+        }, callback);
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.todolist;
+
+import java.util.Map;
+
+// Everything the statistics screen shows, aggregated in SQL by DatabaseHelper.getTaskStatistics
+public class TaskStatistics {
+    public final int totalTasks;
+    public final int completedTasks;
+    // Mean whole days between creation and completion
+    public final double averageCompletionDays;
+    // Percent of completed tasks with a deadline that were finished on or before the deadline day
+    public final double onTimeRate;
+    // Completions per bucket in display order, oldest first: "Tuần dd/MM" weeks and "MM/yyyy" months
+    public final Map<String, Integer> weeklyCompletions;
+    public final Map<String, Integer> monthlyCompletions;
+
+    TaskStatistics(int totalTasks, int completedTasks, double averageCompletionDays, double onTimeRate,
+                   Map<String, Integer> weeklyCompletions, Map<String, Integer> monthlyCompletions) {
+        this.totalTasks = totalTasks;
+        this.completedTasks = completedTasks;
+        this.averageCompletionDays = averageCompletionDays;
+        this.onTimeRate = onTimeRate;
+        this.weeklyCompletions = weeklyCompletions;
+        this.monthlyCompletions = monthlyCompletions;
+    }
+}
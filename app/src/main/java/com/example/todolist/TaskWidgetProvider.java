@@ -10,19 +10,30 @@ import android.view.View;
 import android.widget.RemoteViews;
 
 import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class TaskWidgetProvider extends AppWidgetProvider {
 
     public static final String ACTION_UPDATE_WIDGET = "com.example.todolist.UPDATE_WIDGET";
 
+    // Content last pushed to each widget id, so a refresh that would render the same thing is skipped
+    private static final Map<Integer, String> lastPushedContent = new ConcurrentHashMap<>();
+
     @Override
     public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        // System updates (widget added, periodic refresh) always push, even if nothing changed
+        refreshInBackground(context, appWidgetManager, appWidgetIds, true);
+    }
+
+    @Override
+    public void onDeleted(Context context, int[] appWidgetIds) {
         for (int appWidgetId : appWidgetIds) {
-            updateAppWidget(context, appWidgetManager, appWidgetId);
+            lastPushedContent.remove(appWidgetId);
         }
     }
 
@@ -35,236 +46,222 @@ public class TaskWidgetProvider extends AppWidgetProvider {
             AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
             ComponentName componentName = new ComponentName(context, TaskWidgetProvider.class);
             int[] appWidgetIds = appWidgetManager.getAppWidgetIds(componentName);
-            onUpdate(context, appWidgetManager, appWidgetIds);
+            refreshInBackground(context, appWidgetManager, appWidgetIds, false);
         }
     }
 
-    static void updateAppWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
-        try {
-            // Create an Intent to launch MainActivity
-            Intent intent = new Intent(context, MainActivity.class);
-            PendingIntent pendingIntent = PendingIntent.getActivity(
-                context,
-                0,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-
-            // Construct the RemoteViews object
-            RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_list);
-            
-            // Apply selected theme
-            applyWidgetTheme(context, views);
-
-            try {
-                // Get tasks due this week - widget will resize dynamically based on content
-                DatabaseHelper dbHelper = new DatabaseHelper(context);
-                List<Task> allTasks = dbHelper.getAllTasks();
-                android.util.Log.d("TaskWidget", "Loaded " + allTasks.size() + " total tasks from database");
-
-                // Filter tasks due this week
-                int taskCount = 0;
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-                SimpleDateFormat displaySdf = new SimpleDateFormat("dd/MM", Locale.getDefault());
-
-                // Use improved logic for date range
-                Calendar todayCalendar = Calendar.getInstance();
-                todayCalendar.set(Calendar.HOUR_OF_DAY, 0);
-                todayCalendar.set(Calendar.MINUTE, 0);
-                todayCalendar.set(Calendar.SECOND, 0);
-                todayCalendar.set(Calendar.MILLISECOND, 0);
-                Date todayStart = todayCalendar.getTime();
-
-                Calendar nextWeekCalendar = Calendar.getInstance();
-                nextWeekCalendar.add(Calendar.DAY_OF_YEAR, 7);
-                nextWeekCalendar.set(Calendar.HOUR_OF_DAY, 23);
-                nextWeekCalendar.set(Calendar.MINUTE, 59);
-                nextWeekCalendar.set(Calendar.SECOND, 59);
-                nextWeekCalendar.set(Calendar.MILLISECOND, 999);
-                Date nextWeekEnd = nextWeekCalendar.getTime();
-
-                StringBuilder taskText = new StringBuilder();
-                android.util.Log.d("TaskWidget", "=== WIDGET UPDATE START ===");
-                android.util.Log.d("TaskWidget", "Date range: " + sdf.format(todayStart) + " to " + sdf.format(nextWeekEnd));
-
-                for (Task task : allTasks) {
-                    if (task.getDeadline() != null && !task.isCompleted()) {
-                        try {
-                            String deadlineStr = task.getDeadline();
-                            // Handle both date-only and date-time formats
-                            String dateOnlyStr = deadlineStr.contains(" ") ? deadlineStr.split(" ")[0] : deadlineStr;
-                            Date deadlineDate = sdf.parse(dateOnlyStr);
-
-                            if (deadlineDate != null && !deadlineDate.before(todayStart) && !deadlineDate.after(nextWeekEnd)) {
-                                taskCount++;
-                                android.util.Log.d("TaskWidget", "Task " + taskCount + ": " + task.getTitle() + " - " + dateOnlyStr);
-                                
-                                // Show only first 2 tasks in widget for cleaner look
-                                if (taskCount <= 2) {
-                                    // Balanced widget format: clean and proportional
-                                    String taskTitle = task.getTitle();
-                                    if (taskTitle.length() > 28) {
-                                        taskTitle = taskTitle.substring(0, 28) + "...";
-                                    }
-                                    
-                                    // Clean format with icon and status
-                                    taskText.append("📌 ").append(taskTitle);
-                                    
-                                    // Add urgency indicator
-                                    long daysLeft = (deadlineDate.getTime() - todayStart.getTime()) / (1000 * 60 * 60 * 24);
-                                    if (daysLeft <= 0) {
-                                        taskText.append(" 🔴");
-                                    } else if (daysLeft <= 1) {
-                                        taskText.append(" 🟡");
-                                    } else if (daysLeft <= 3) {
-                                        taskText.append(" 🟠");
-                                    }
-                                    
-                                    // Date on same line with proper spacing
-                                    taskText.append("   📅 ").append(displaySdf.format(deadlineDate));
-                                    
-                                    // Add proper spacing between tasks
-                                    if (taskCount < 2) {
-                                        taskText.append("\n\n");
-                                    } else {
-                                        taskText.append("\n");
-                                    }
-                                    
-                                    android.util.Log.d("TaskWidget", "Added task to display: " + task.getTitle());
-                                }
-                            } else {
-                                android.util.Log.d("TaskWidget", "Task filtered out - not in date range: " + task.getTitle() + " - " + dateOnlyStr);
-                            }
-                        } catch (Exception e) {
-                            android.util.Log.e("TaskWidget", "Error parsing task date: " + e.getMessage());
-                        }
-                    } else {
-                        if (task.isCompleted()) {
-                            android.util.Log.d("TaskWidget", "Task filtered out - completed: " + task.getTitle());
-                        } else {
-                            android.util.Log.d("TaskWidget", "Task filtered out - no deadline: " + task.getTitle());
-                        }
-                    }
-                }
+    // Widget content comes from the database, so build it off the main thread
+    private void refreshInBackground(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds,
+                                     boolean force) {
+        if (appWidgetIds.length == 0) {
+            return;
+        }
+        final PendingResult pendingResult = goAsync();
+        TaskRepository.getInstance(context).runForReceiver(pendingResult, "TaskWidgetProvider",
+                () -> pushToWidgets(context, appWidgetManager, appWidgetIds, force));
+    }
 
-                // Set update time
-                SimpleDateFormat timeSdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
-                views.setTextViewText(R.id.widget_update_time, "Cập nhật: " + timeSdf.format(new Date()));
-
-                // Update widget content with better formatting
-                android.util.Log.d("TaskWidget", "Updating widget content - taskCount: " + taskCount);
-                if (taskCount > 0) {
-                    // Set title
-                    views.setTextViewText(R.id.widget_title, "Tuần này");
-                    views.setTextViewText(R.id.widget_subtitle, "Tasks sắp đến hạn");
-                    android.util.Log.d("TaskWidget", "Set title");
-
-                    if (taskText.length() > 0) {
-                        String taskListText = taskText.toString().trim();
-                        views.setTextViewText(R.id.widget_task_text, taskListText);
-                        views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
-                        views.setViewVisibility(R.id.widget_empty_container, View.GONE);
-                        android.util.Log.d("TaskWidget", "Set task list with " + taskListText.length() + " characters, " + Math.min(taskCount, 2) + " tasks displayed");
-                    } else {
-                        views.setTextViewText(R.id.widget_task_text, "Đang tải tasks...");
-                        views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
-                        views.setViewVisibility(R.id.widget_empty_container, View.GONE);
-                        android.util.Log.d("TaskWidget", "Set task list to loading message");
-                    }
-
-                    // Show task count
-                    String countText = String.valueOf(taskCount);
-                    views.setTextViewText(R.id.widget_count, countText);
-                    views.setViewVisibility(R.id.widget_count, View.VISIBLE);
-                    
-                    // Add "View more" section if there are more than 2 tasks
-                    android.util.Log.d("TaskWidget", "Checking view more: taskCount = " + taskCount);
-                    if (taskCount > 2) {
-                        int remainingTasks = taskCount - 2;
-                        String viewMoreText = "Xem thêm " + remainingTasks + " task khác";
-                        views.setTextViewText(R.id.widget_view_more_text, viewMoreText);
-                        views.setViewVisibility(R.id.widget_view_more, View.VISIBLE);
-                        android.util.Log.d("TaskWidget", "Showing view more: " + viewMoreText);
-                    } else {
-                        views.setViewVisibility(R.id.widget_view_more, View.GONE);
-                        android.util.Log.d("TaskWidget", "Hiding view more - only " + taskCount + " tasks");
-                    }
-                } else {
-                    views.setTextViewText(R.id.widget_title, "Tuần này");
-                    views.setTextViewText(R.id.widget_subtitle, "Tasks sắp đến hạn");
-                    views.setViewVisibility(R.id.widget_task_text, View.GONE);
-                    views.setViewVisibility(R.id.widget_view_more, View.GONE);
-                    views.setViewVisibility(R.id.widget_empty_container, View.VISIBLE);
-                    views.setTextViewText(R.id.widget_empty_text, "Không có task nào sắp đến hạn");
-                    views.setViewVisibility(R.id.widget_count, View.GONE);
-                    android.util.Log.d("TaskWidget", "Set empty state content");
-                }
+    // Loads and renders the content once for all ids; ids already showing the same content are left alone
+    static void pushToWidgets(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds, boolean force) {
+        WidgetContent content = loadContent(context);
+        String signature = content.signature();
 
-            } catch (Exception e) {
-                android.util.Log.e("TaskWidget", "Error loading tasks", e);
-                views.setTextViewText(R.id.widget_title, "Tasks sắp đến hạn");
-                views.setTextViewText(R.id.widget_task_text, "❌ Lỗi khi tải dữ liệu\n\nTap để thử lại");
-                views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
-                views.setViewVisibility(R.id.widget_empty_container, View.GONE);
-                views.setViewVisibility(R.id.widget_count, View.GONE);
+        int[] staleIds = new int[appWidgetIds.length];
+        int staleCount = 0;
+        for (int appWidgetId : appWidgetIds) {
+            if (force || !signature.equals(lastPushedContent.get(appWidgetId))) {
+                staleIds[staleCount++] = appWidgetId;
             }
+        }
+        if (staleCount == 0) {
+            android.util.Log.d("TaskWidget", "Widget content unchanged, skipping update");
+            return;
+        }
 
-            // Set click listener to open app and refresh widget
-            views.setOnClickPendingIntent(R.id.widget_container, pendingIntent);
-            
-            // Add refresh intent for widget title (double tap to refresh)
-            Intent refreshIntent = new Intent(context, TaskWidgetProvider.class);
-            refreshIntent.setAction(ACTION_UPDATE_WIDGET);
-            PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(
-                context, 
-                0, 
-                refreshIntent, 
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-            );
-            // Set refresh action on title tap
-            views.setOnClickPendingIntent(R.id.widget_title, refreshPendingIntent);
-
-            // Instruct the widget manager to update the widget
-            appWidgetManager.updateAppWidget(appWidgetId, views);
-
+        try {
+            RemoteViews views = buildViews(context, content);
+            // Instruct the widget manager to update the widgets
+            appWidgetManager.updateAppWidget(Arrays.copyOf(staleIds, staleCount), views);
+            for (int i = 0; i < staleCount; i++) {
+                lastPushedContent.put(staleIds[i], signature);
+            }
+            android.util.Log.d("TaskWidget", "Updated " + staleCount + " of " + appWidgetIds.length + " widgets");
         } catch (Exception e) {
             android.util.Log.e("TaskWidget", "Error updating widget", e);
         }
     }
 
-    // Static method to update all widgets from anywhere in the app
-    public static void updateAllWidgets(Context context) {
+    // Everything the widget shows apart from the update time
+    static class WidgetContent {
+        int theme;
+        boolean failed;
+        int taskCount;
+        int shownCount;
+        String taskText = "";
+        long updatedAt;
+
+        // The update time is left out so an otherwise identical refresh is skipped; the widget then
+        // keeps showing when its content last changed
+        String signature() {
+            return theme + "|" + failed + "|" + taskCount + "|" + shownCount + "|" + taskText;
+        }
+    }
+
+    static WidgetContent loadContent(Context context) {
+        WidgetContent content = new WidgetContent();
+        android.content.SharedPreferences prefs = context.getSharedPreferences("widget_prefs", Context.MODE_PRIVATE);
+        content.theme = prefs.getInt("theme", 0); // Default: Dark Premium
+
         try {
-            // Method 1: Broadcast approach
-            Intent intent = new Intent(context, TaskWidgetProvider.class);
-            intent.setAction(ACTION_UPDATE_WIDGET);
-            context.sendBroadcast(intent);
-            android.util.Log.d("TaskWidget", "Widget update broadcast sent");
-            
-            // Method 2: Direct update approach (more reliable)
-            AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
-            ComponentName componentName = new ComponentName(context, TaskWidgetProvider.class);
-            int[] appWidgetIds = appWidgetManager.getAppWidgetIds(componentName);
-            
-            if (appWidgetIds.length > 0) {
-                android.util.Log.d("TaskWidget", "Found " + appWidgetIds.length + " widgets to update");
-                for (int appWidgetId : appWidgetIds) {
-                    updateAppWidget(context, appWidgetManager, appWidgetId);
+            // One row kept current by every task write; the tasks table is not queried here
+            WidgetSnapshot snapshot = DatabaseHelper.getInstance(context).getWidgetSnapshot();
+            long todayStart = snapshot.getDayStart();
+            List<WidgetSnapshot.Entry> dueTasks = snapshot.getTasks();
+            content.shownCount = dueTasks.size();
+            content.taskCount = snapshot.getTaskCount();
+            content.updatedAt = snapshot.getUpdatedAt();
+
+            SimpleDateFormat displaySdf = new SimpleDateFormat("dd/MM", Locale.getDefault());
+            StringBuilder taskText = new StringBuilder();
+
+            for (int i = 0; i < dueTasks.size(); i++) {
+                WidgetSnapshot.Entry task = dueTasks.get(i);
+
+                // Balanced widget format: clean and proportional
+                String taskTitle = task.getTitle();
+                if (taskTitle.length() > 28) {
+                    taskTitle = taskTitle.substring(0, 28) + "...";
+                }
+
+                // Clean format with icon and status
+                taskText.append("📌 ").append(taskTitle);
+
+                // Add urgency indicator
+                long daysLeft = (task.getDeadlineAt() - todayStart) / (1000 * 60 * 60 * 24);
+                if (daysLeft <= 0) {
+                    taskText.append(" 🔴");
+                } else if (daysLeft <= 1) {
+                    taskText.append(" 🟡");
+                } else if (daysLeft <= 3) {
+                    taskText.append(" 🟠");
+                }
+
+                // Date on same line with proper spacing
+                taskText.append("   📅 ").append(displaySdf.format(new Date(task.getDeadlineAt())));
+
+                // Add proper spacing between tasks
+                if (i < dueTasks.size() - 1) {
+                    taskText.append("\n\n");
+                } else {
+                    taskText.append("\n");
                 }
-                android.util.Log.d("TaskWidget", "Direct widget update completed for " + appWidgetIds.length + " widgets");
-            } else {
-                android.util.Log.d("TaskWidget", "No widgets found to update");
             }
+            content.taskText = taskText.toString().trim();
         } catch (Exception e) {
-            android.util.Log.e("TaskWidget", "Error updating widgets", e);
+            android.util.Log.e("TaskWidget", "Error loading tasks", e);
+            content.failed = true;
+        }
+        return content;
+    }
+
+    static RemoteViews buildViews(Context context, WidgetContent content) {
+        // Create an Intent to launch MainActivity
+        Intent intent = new Intent(context, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context,
+            0,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+
+        // Construct the RemoteViews object
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_task_list);
+
+        // Apply selected theme
+        applyWidgetTheme(views, content.theme);
+
+        if (content.failed) {
+            views.setTextViewText(R.id.widget_title, "Tasks sắp đến hạn");
+            views.setTextViewText(R.id.widget_task_text, "❌ Lỗi khi tải dữ liệu\n\nTap để thử lại");
+            views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
+            views.setViewVisibility(R.id.widget_empty_container, View.GONE);
+            views.setViewVisibility(R.id.widget_count, View.GONE);
+        } else {
+            // Set update time: when the snapshot behind this content was built
+            SimpleDateFormat timeSdf = new SimpleDateFormat("HH:mm", Locale.getDefault());
+            views.setTextViewText(R.id.widget_update_time, "Cập nhật: " + timeSdf.format(new Date(content.updatedAt)));
+
+            // Update widget content with better formatting
+            android.util.Log.d("TaskWidget", "Updating widget content - taskCount: " + content.taskCount);
+            if (content.taskCount > 0) {
+                // Set title
+                views.setTextViewText(R.id.widget_title, "Tuần này");
+                views.setTextViewText(R.id.widget_subtitle, "Tasks sắp đến hạn");
+
+                if (!content.taskText.isEmpty()) {
+                    views.setTextViewText(R.id.widget_task_text, content.taskText);
+                    views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
+                    views.setViewVisibility(R.id.widget_empty_container, View.GONE);
+                    android.util.Log.d("TaskWidget", "Set task list with " + content.taskText.length() + " characters, " + content.shownCount + " tasks displayed");
+                } else {
+                    views.setTextViewText(R.id.widget_task_text, "Đang tải tasks...");
+                    views.setViewVisibility(R.id.widget_task_text, View.VISIBLE);
+                    views.setViewVisibility(R.id.widget_empty_container, View.GONE);
+                    android.util.Log.d("TaskWidget", "Set task list to loading message");
+                }
+
+                // Show task count
+                String countText = String.valueOf(content.taskCount);
+                views.setTextViewText(R.id.widget_count, countText);
+                views.setViewVisibility(R.id.widget_count, View.VISIBLE);
+
+                // Add "View more" section if there are more tasks than shown
+                if (content.taskCount > content.shownCount) {
+                    int remainingTasks = content.taskCount - content.shownCount;
+                    String viewMoreText = "Xem thêm " + remainingTasks + " task khác";
+                    views.setTextViewText(R.id.widget_view_more_text, viewMoreText);
+                    views.setViewVisibility(R.id.widget_view_more, View.VISIBLE);
+                    android.util.Log.d("TaskWidget", "Showing view more: " + viewMoreText);
+                } else {
+                    views.setViewVisibility(R.id.widget_view_more, View.GONE);
+                }
+            } else {
+                views.setTextViewText(R.id.widget_title, "Tuần này");
+                views.setTextViewText(R.id.widget_subtitle, "Tasks sắp đến hạn");
+                views.setViewVisibility(R.id.widget_task_text, View.GONE);
+                views.setViewVisibility(R.id.widget_view_more, View.GONE);
+                views.setViewVisibility(R.id.widget_empty_container, View.VISIBLE);
+                views.setTextViewText(R.id.widget_empty_text, "Không có task nào sắp đến hạn");
+                views.setViewVisibility(R.id.widget_count, View.GONE);
+                android.util.Log.d("TaskWidget", "Set empty state content");
+            }
         }
+
+        // Set click listener to open app and refresh widget
+        views.setOnClickPendingIntent(R.id.widget_container, pendingIntent);
+
+        // Add refresh intent for widget title (double tap to refresh)
+        Intent refreshIntent = new Intent(context, TaskWidgetProvider.class);
+        refreshIntent.setAction(ACTION_UPDATE_WIDGET);
+        PendingIntent refreshPendingIntent = PendingIntent.getBroadcast(
+            context,
+            0,
+            refreshIntent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+        // Set refresh action on title tap
+        views.setOnClickPendingIntent(R.id.widget_title, refreshPendingIntent);
+        return views;
+    }
+
+    // Static method to update all widgets from anywhere in the app. Requests arriving close together
+    // are merged into one refresh, built in the background by onReceive.
+    public static void updateAllWidgets(Context context) {
+        WidgetRefreshScheduler.getInstance(context).requestRefresh();
     }
 
-    private static void applyWidgetTheme(Context context, RemoteViews views) {
+    private static void applyWidgetTheme(RemoteViews views, int theme) {
         try {
-            android.content.SharedPreferences prefs = context.getSharedPreferences("widget_prefs", Context.MODE_PRIVATE);
-            int theme = prefs.getInt("theme", 0); // Default: Dark Premium
-            
             // Apply different background based on theme
             switch (theme) {
                 case 1: // Ocean Blue
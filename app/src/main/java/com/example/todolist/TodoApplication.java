@@ -0,0 +1,23 @@
+package com.example.todolist;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+public class TodoApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Debug builds log any database or file access left on the main thread;
+        // DatabaseHelper work is expected to go through TaskRepository
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .build());
+        }
+    }
+}
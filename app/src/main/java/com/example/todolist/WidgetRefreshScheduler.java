@@ -0,0 +1,75 @@
+package com.example.todolist;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+// Collapses bursts of widget refresh requests (one edit usually triggers several) into a single
+// ACTION_UPDATE_WIDGET broadcast, sent once the requests have been quiet for a short window
+public class WidgetRefreshScheduler {
+    private static final String TAG = "WidgetRefresh";
+
+    private static final long DEBOUNCE_MS = 300;
+    // A steady stream of requests still refreshes at least this often
+    private static final long MAX_DELAY_MS = 1000;
+
+    private static WidgetRefreshScheduler instance;
+
+    private final Context context;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable sendRefresh = this::sendRefresh;
+
+    // Guarded by this; firstRequestAt is 0 while nothing is pending
+    private long firstRequestAt;
+    private int pendingRequests;
+
+    private WidgetRefreshScheduler(Context context) {
+        this.context = context;
+    }
+
+    public static synchronized WidgetRefreshScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new WidgetRefreshScheduler(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Safe to call from any thread
+    public synchronized void requestRefresh() {
+        long now = SystemClock.uptimeMillis();
+        if (firstRequestAt == 0) {
+            firstRequestAt = now;
+        }
+        pendingRequests++;
+        handler.removeCallbacks(sendRefresh);
+        long delay = Math.min(DEBOUNCE_MS, firstRequestAt + MAX_DELAY_MS - now);
+        handler.postDelayed(sendRefresh, Math.max(0, delay));
+    }
+
+    private void sendRefresh() {
+        int requests;
+        synchronized (this) {
+            requests = pendingRequests;
+            pendingRequests = 0;
+            firstRequestAt = 0;
+        }
+
+        AppWidgetManager appWidgetManager = AppWidgetManager.getInstance(context);
+        int[] appWidgetIds = appWidgetManager.getAppWidgetIds(new ComponentName(context, TaskWidgetProvider.class));
+        if (appWidgetIds.length == 0) {
+            Log.d(TAG, "No widgets to refresh");
+            return;
+        }
+        Log.d(TAG, "Refreshing " + appWidgetIds.length + " widgets for " + requests + " requests");
+
+        // The provider builds the content in the background under goAsync
+        Intent intent = new Intent(context, TaskWidgetProvider.class);
+        intent.setAction(TaskWidgetProvider.ACTION_UPDATE_WIDGET);
+        context.sendBroadcast(intent);
+    }
+}
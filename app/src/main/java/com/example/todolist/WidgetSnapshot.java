@@ -0,0 +1,89 @@
+package com.example.todolist;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// What the home screen widget shows: the first open tasks due from today through DUE_SOON_DAYS and how
+// many are due in total. DatabaseHelper rewrites it with every task write and the widget draws from it,
+// so a redraw never queries the tasks table.
+public class WidgetSnapshot {
+    // Tasks listed on the widget; the rest only count towards "Xem thêm"
+    public static final int MAX_TASKS = 2;
+
+    public static class Entry {
+        private final String title;
+        private final long deadlineAt;
+
+        Entry(String title, long deadlineAt) {
+            this.title = title;
+            this.deadlineAt = deadlineAt;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public long getDeadlineAt() {
+            return deadlineAt;
+        }
+    }
+
+    // Start of the day the due window was computed for; the snapshot is stale once that day is over
+    private final long dayStart;
+    private final int taskCount;
+    private final List<Entry> tasks;
+    private final long updatedAt;
+
+    WidgetSnapshot(long dayStart, int taskCount, List<Entry> tasks, long updatedAt) {
+        this.dayStart = dayStart;
+        this.taskCount = taskCount;
+        this.tasks = Collections.unmodifiableList(tasks);
+        this.updatedAt = updatedAt;
+    }
+
+    public long getDayStart() {
+        return dayStart;
+    }
+
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    public List<Entry> getTasks() {
+        return tasks;
+    }
+
+    // When the snapshot was last rebuilt, i.e. when the widget's content last changed
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+
+    // Stored form of the task list: [{"title": ..., "deadline": millis}, ...]
+    static String tasksToJson(List<Entry> tasks) {
+        JSONArray array = new JSONArray();
+        try {
+            for (Entry entry : tasks) {
+                array.put(new JSONObject().put("title", entry.title).put("deadline", entry.deadlineAt));
+            }
+        } catch (JSONException e) {
+            // Only thrown for non-finite numbers, which a long cannot be
+            throw new IllegalStateException(e);
+        }
+        return array.toString();
+    }
+
+    static List<Entry> tasksFromJson(String json) throws JSONException {
+        JSONArray array = new JSONArray(json);
+        List<Entry> tasks = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject object = array.getJSONObject(i);
+            tasks.add(new Entry(object.getString("title"), object.getLong("deadline")));
+        }
+        return tasks;
+    }
+}
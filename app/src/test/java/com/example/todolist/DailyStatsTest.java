@@ -0,0 +1,205 @@
+package com.example.todolist;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the trigger-maintained daily_stats rollup always matches an aggregate of the raw tasks table,
+ * including when the time zone changes between writes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class DailyStatsTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private DatabaseHelper databaseHelper;
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void setUp() {
+        defaultTimeZone = TimeZone.getDefault();
+        databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(defaultTimeZone);
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void rollupMatchesRawTasksAfterInsertUpdateDelete() {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        String[] topics = {null, "Work", "Home"};
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Task task = new Task("Task " + i, "", topics[random.nextInt(topics.length)]);
+            task.setCreatedAt(now - random.nextInt(90) * DAY - random.nextInt((int) DAY));
+            if (random.nextBoolean()) {
+                task.setDeadlineAt(task.getCreatedAt() + (random.nextInt(20) - 3) * DAY);
+            }
+            if (random.nextBoolean()) {
+                task.setCompleted(true);
+                task.markCompletedAt(task.getCreatedAt() + random.nextInt(15) * DAY);
+            }
+            tasks.add(task);
+        }
+        databaseHelper.addTasks(tasks.subList(0, 150));
+        for (Task task : tasks.subList(150, tasks.size())) {
+            task.setId((int) databaseHelper.addTask(task));
+        }
+        assertRollupMatchesTasks();
+
+        // Toggle completion, move topics and deadlines, then delete a few
+        Collections.shuffle(tasks, random);
+        for (Task task : tasks.subList(0, 60)) {
+            task.setCompleted(!task.isCompleted());
+            task.markCompletedAt(task.isCompleted() ? now - random.nextInt(10) * DAY : TaskDates.NO_DATE);
+            task.setTopic(topics[random.nextInt(topics.length)]);
+            task.setDeadlineAt(random.nextBoolean() ? now + random.nextInt(10) * DAY : TaskDates.NO_DATE);
+            databaseHelper.updateTask(task);
+        }
+        for (Task task : tasks.subList(60, 90)) {
+            databaseHelper.deleteTask(task.getId());
+        }
+        assertRollupMatchesTasks();
+
+        TaskStatistics statistics = databaseHelper.getTaskStatistics();
+        assertEquals(databaseHelper.getTotalTaskCount(), statistics.totalTasks);
+        assertEquals(databaseHelper.getCompletedTasksCount(), statistics.completedTasks);
+
+        // A rebuild from scratch must land on the same rows
+        List<String> incremental = rollupRows();
+        databaseHelper.rebuildDailyStats();
+        assertEquals(incremental, rollupRows());
+    }
+
+    @Test
+    public void timeZoneChangeBetweenWritesDoesNotMoveCounts() {
+        // 23:30 UTC is already the next day in Ho Chi Minh City and still the same day in Los Angeles
+        long lateEvening = 1773790200000L; // 2026-03-17 23:30 UTC
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Ho_Chi_Minh"));
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Task task = new Task("Task " + i, "", i % 2 == 0 ? "Work" : null);
+            task.setCreatedAt(lateEvening + i * DAY);
+            task.setDeadlineAt(lateEvening + (i + 1) * DAY);
+            if (i % 3 == 0) {
+                task.setCompleted(true);
+                task.markCompletedAt(lateEvening + (i + 1) * DAY + 10 * 60 * 1000);
+            }
+            task.setId((int) databaseHelper.addTask(task));
+            tasks.add(task);
+        }
+        assertRollupMatchesTasks();
+
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+        // Edits that leave the counted values alone, completion toggles both ways, then deletes
+        tasks.get(1).setTitle("Renamed");
+        databaseHelper.updateTask(tasks.get(1));
+        tasks.get(0).setCompleted(false);
+        tasks.get(0).markCompletedAt(TaskDates.NO_DATE);
+        databaseHelper.updateTask(tasks.get(0));
+        tasks.get(2).setCompleted(true);
+        tasks.get(2).markCompletedAt(lateEvening + 2 * DAY);
+        databaseHelper.updateTask(tasks.get(2));
+        databaseHelper.deleteTask(tasks.get(3).getId());
+        databaseHelper.deleteTask(tasks.get(4).getId());
+        assertRollupMatchesTasks();
+        assertEquals(0, readRows("SELECT day, topic, created_count, completed_count, deadline_count, on_time_count, "
+                + "duration_days_total, duration_count FROM daily_stats WHERE created_count < 0 OR completed_count < 0 "
+                + "OR deadline_count < 0 OR on_time_count < 0 OR duration_count < 0").size());
+
+        // Creation days were fixed in the zone they were written in
+        assertTrue(rollupRows().contains("2026-03-19||1|0|0|0|0|0"));
+
+        List<String> incremental = rollupRows();
+        databaseHelper.rebuildDailyStats();
+        assertEquals(incremental, rollupRows());
+    }
+
+    @Test
+    public void completingFromTheReminderNotificationRecordsTheCompletion() {
+        long createdAt = 1773790200000L; // 2026-03-17 23:30 UTC
+        Task task = new Task("From the notification", "", "Work");
+        task.setCreatedAt(createdAt);
+        task.setDeadlineAt(createdAt + 3 * DAY);
+        int taskId = (int) databaseHelper.addTask(task);
+
+        long completedAt = createdAt + 2 * DAY;
+        assertNotNull(ReminderActionReceiver.completeTask(databaseHelper, taskId, completedAt));
+
+        Task stored = databaseHelper.getTaskById(taskId);
+        assertTrue(stored.isCompleted());
+        assertEquals(completedAt, stored.getCompletedAt());
+        List<Task> completed = databaseHelper.getTasksCompletedInPeriod(completedAt - DAY, completedAt + DAY);
+        assertEquals(1, completed.size());
+        assertEquals(taskId, completed.get(0).getId());
+
+        // Counted on its completion day, on time, with its duration
+        assertRollupMatchesTasks();
+        assertEquals(1, readRows("SELECT day, topic, created_count, completed_count, deadline_count, on_time_count, "
+                + "duration_days_total, duration_count FROM daily_stats WHERE completed_count = 1 "
+                + "AND on_time_count = 1 AND duration_count = 1").size());
+
+        // Completing it again keeps the first completion time
+        ReminderActionReceiver.completeTask(databaseHelper, taskId, completedAt + DAY);
+        assertEquals(completedAt, databaseHelper.getTaskById(taskId).getCompletedAt());
+        assertRollupMatchesTasks();
+    }
+
+    private void assertRollupMatchesTasks() {
+        assertEquals(expectedRows(), rollupRows());
+    }
+
+    // Rows that would be all zero (everything counted there was later moved away) are not significant
+    private List<String> rollupRows() {
+        return readRows("SELECT day, topic, created_count, completed_count, deadline_count, on_time_count, "
+                + "duration_days_total, duration_count FROM daily_stats");
+    }
+
+    private List<String> expectedRows() {
+        return readRows(DatabaseHelper.SQL_DAILY_STATS_FROM_TASKS);
+    }
+
+    private List<String> readRows(String sql) {
+        SQLiteDatabase db = databaseHelper.getReadableDatabase();
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            while (cursor.moveToNext()) {
+                boolean allZero = true;
+                StringBuilder row = new StringBuilder(cursor.getString(0)).append('|').append(cursor.getString(1));
+                for (int i = 2; i < 8; i++) {
+                    long value = cursor.getLong(i);
+                    allZero &= value == 0;
+                    row.append('|').append(value);
+                }
+                if (!allZero) {
+                    rows.add(row.toString());
+                }
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+}
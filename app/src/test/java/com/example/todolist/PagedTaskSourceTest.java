@@ -0,0 +1,191 @@
+package com.example.todolist;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drives PagedTaskSource's page window against a fake loader over 300 tasks: prefetching ahead of the
+ * viewport, dropping far pages, fetching them again from their cursors, and retrying a failed page.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class PagedTaskSourceTest {
+
+    private static final int TASK_COUNT = 300;
+    private static final int PAGE_SIZE = 10;
+    private static final int PREFETCH_DISTANCE = 10;
+    // Raised by the source to the viewport plus prefetch on both sides: 6 pages here
+    private static final int MAX_LOADED_PAGES = 0;
+
+    private FakeLoader loader;
+    private List<Task> shown;
+    private boolean loadingMore;
+    private int failuresReported;
+    private PagedTaskSource source;
+
+    @Before
+    public void setUp() {
+        loader = new FakeLoader();
+        source = new PagedTaskSource(loader, PAGE_SIZE, PREFETCH_DISTANCE, MAX_LOADED_PAGES, new PagedTaskSource.Listener() {
+            @Override
+            public void onTasksChanged(List<Task> tasks, boolean loading) {
+                shown = tasks;
+                loadingMore = loading;
+            }
+
+            @Override
+            public void onFirstPageLoaded(List<Task> firstPage) {
+            }
+
+            @Override
+            public void onLoadFailed(Exception e) {
+                failuresReported++;
+            }
+        });
+    }
+
+    @Test
+    public void pagesAheadAreLoadedAndFarPagesDroppedAndRefetched() {
+        source.setQuery(new TaskQuery());
+        loader.completeAll();
+        // The first page plus one page of prefetch
+        assertEquals(2 * PAGE_SIZE, shown.size());
+        assertEquals(0, source.pageAt(PAGE_SIZE - 1));
+        assertEquals(1, source.pageAt(PAGE_SIZE));
+        // Past the known pages: the pages that would follow
+        assertEquals(4, source.pageAt(4 * PAGE_SIZE + 5));
+
+        for (int first = 0; first <= 150; first += PAGE_SIZE) {
+            source.onScrolled(first, first + PAGE_SIZE - 1);
+            loader.completeAll();
+        }
+        assertNull("first page dropped", shown.get(0));
+        assertEquals(TASK_COUNT - 155, shown.get(155).getId());
+        int loaded = 0;
+        for (Task task : shown) {
+            loaded += task != null ? 1 : 0;
+        }
+        assertTrue(loaded <= 6 * PAGE_SIZE);
+
+        // Back at the top the dropped pages come back from their saved cursors
+        loader.requests.clear();
+        source.onScrolled(0, PAGE_SIZE - 1);
+        assertNull(loader.requests.get(0).after);
+        assertEquals(TASK_COUNT - PAGE_SIZE + 1, loader.requests.get(1).after.getId());
+        loader.completeAll();
+        assertEquals(TASK_COUNT, shown.get(0).getId());
+        assertEquals(TASK_COUNT - PAGE_SIZE, shown.get(PAGE_SIZE).getId());
+    }
+
+    @Test
+    public void failedPageIsRetriedWithGrowingDelays() {
+        source.setQuery(new TaskQuery());
+        loader.completeNext();
+        loader.failNext();
+        assertEquals(1, failuresReported);
+        assertEquals(PAGE_SIZE, shown.size());
+        assertFalse(loadingMore);
+
+        // Scrolling does not retry before the delay is up
+        source.onScrolled(0, PAGE_SIZE - 1);
+        assertTrue(loader.pending().isEmpty());
+        idleFor(1_000);
+        assertEquals(1, loader.pending().size());
+        loader.failNext();
+        assertEquals("reported once per run of failures", 1, failuresReported);
+
+        idleFor(1_000);
+        assertTrue(loader.pending().isEmpty());
+        idleFor(1_000);
+        loader.completeAll();
+        assertEquals(2 * PAGE_SIZE, shown.size());
+
+        // The end was not given up on
+        source.onScrolled(PAGE_SIZE, 2 * PAGE_SIZE - 1);
+        loader.completeAll();
+        assertEquals(3 * PAGE_SIZE, shown.size());
+    }
+
+    private static void idleFor(long millis) {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    // Tasks TASK_COUNT..1, newest first like TaskQuery.Sort.NEWEST; requests finish when the test says so
+    private static class FakeLoader implements PagedTaskSource.PageLoader {
+        final List<PageRequest> requests = new ArrayList<>();
+
+        @Override
+        public TaskRepository.Request load(TaskQuery query, Task after, int limit,
+                                           TaskRepository.Callback<List<Task>> callback,
+                                           TaskRepository.ErrorCallback errorCallback) {
+            PageRequest request = new PageRequest(after, limit, callback, errorCallback);
+            requests.add(request);
+            return request.handle;
+        }
+
+        List<PageRequest> pending() {
+            List<PageRequest> pending = new ArrayList<>();
+            for (PageRequest request : requests) {
+                if (!request.done && !request.handle.isCancelled()) {
+                    pending.add(request);
+                }
+            }
+            return pending;
+        }
+
+        void completeNext() {
+            PageRequest request = pending().get(0);
+            request.done = true;
+            List<Task> page = new ArrayList<>();
+            int start = request.after == null ? TASK_COUNT : request.after.getId() - 1;
+            for (int id = start; id > 0 && page.size() < request.limit; id--) {
+                Task task = new Task("Task " + id, "", null);
+                task.setId(id);
+                page.add(task);
+            }
+            request.callback.onResult(page);
+        }
+
+        void failNext() {
+            PageRequest request = pending().get(0);
+            request.done = true;
+            request.errorCallback.onError(new IllegalStateException("database closed"));
+        }
+
+        // Including the pages requested while completing
+        void completeAll() {
+            while (!pending().isEmpty()) {
+                completeNext();
+            }
+        }
+    }
+
+    private static class PageRequest {
+        final Task after;
+        final int limit;
+        final TaskRepository.Callback<List<Task>> callback;
+        final TaskRepository.ErrorCallback errorCallback;
+        final TaskRepository.Request handle = new TaskRepository.Request(null);
+        boolean done;
+
+        PageRequest(Task after, int limit, TaskRepository.Callback<List<Task>> callback,
+                    TaskRepository.ErrorCallback errorCallback) {
+            this.after = after;
+            this.limit = limit;
+            this.callback = callback;
+            this.errorCallback = errorCallback;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.todolist;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN for every SQL_ query in DatabaseHelper and fails on full table scans.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class QueryPlanTest {
+
+    // Queries that read the whole table on purpose
+    private static final Set<String> FULL_SCAN_ALLOWED = new HashSet<>(Arrays.asList(
+            "SQL_ALL_TASKS",
+            "SQL_ALL_TAGS",
+            "SQL_TASK_TAG_ROWS",
+            "SQL_STATS_TOTALS",
+            "SQL_DAILY_STATS_FROM_TASKS"
+    ));
+
+    // "SCAN tasks" / "SCAN TABLE tasks" without an index; "SCAN ... USING INDEX" and full-text
+    // "SCAN ... VIRTUAL TABLE INDEX" lookups are fine
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (TABLE )?(\\w+)(?!.*(USING|VIRTUAL TABLE))");
+
+    // Subquery results built first ("MATERIALIZE hits"); scanning those few rows is not a table scan
+    private static final Pattern SUBQUERY = Pattern.compile("^(MATERIALIZE|CO-ROUTINE) (\\w+)");
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void queriesDoNotFallBackToFullScans() throws Exception {
+        SQLiteDatabase db = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).getReadableDatabase();
+
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+        for (Field field : DatabaseHelper.class.getDeclaredFields()) {
+            if (!field.getName().startsWith("SQL_") || !Modifier.isStatic(field.getModifiers())
+                    || field.getType() != String.class) {
+                continue;
+            }
+            field.setAccessible(true);
+            String sql = (String) field.get(null);
+            checked++;
+            if (FULL_SCAN_ALLOWED.contains(field.getName())) {
+                continue;
+            }
+            checkPlan(db, field.getName(), sql, failures);
+        }
+
+        // loadTagsForTasks filters the junction rows by id for normal result sizes
+        checkPlan(db, "SQL_TASK_TAG_ROWS + IN",
+                DatabaseHelper.SQL_TASK_TAG_ROWS + " WHERE tt.task_id IN (?,?,?)", failures);
+        // Tag filter pages, with one tag and with several
+        checkPlan(db, "tasksByTagsSql(1)", DatabaseHelper.tasksByTagsSql(1), failures);
+        checkPlan(db, "tasksByTagsSql(3)", DatabaseHelper.tasksByTagsSql(3), failures);
+        // Batched reminder lookups
+        checkPlan(db, "tasksByIdsSql(3)", DatabaseHelper.tasksByIdsSql(3), failures);
+        // TaskQuery shapes the main list and the deadline views use
+        Task dated = new Task();
+        dated.setId(1);
+        dated.setDeadlineAt(1L);
+        Set<Integer> tagIds = new HashSet<>(Arrays.asList(1, 2));
+        checkPlan(db, "TaskQuery topic+tags", DatabaseHelper.taskQuerySql(new TaskQuery().topic("Work")
+                .tags(tagIds, DatabaseHelper.TagMatchMode.ALL), null, false), failures);
+        checkPlan(db, "TaskQuery tags+text", DatabaseHelper.taskQuerySql(new TaskQuery()
+                .tags(tagIds, DatabaseHelper.TagMatchMode.ANY).text("meet"), dated, false), failures);
+        checkPlan(db, "TaskQuery completed+deadline", DatabaseHelper.taskQuerySql(new TaskQuery().completed(false)
+                .deadlineBetween(0, 1).sortBy(TaskQuery.Sort.DEADLINE), dated, false), failures);
+        checkPlan(db, "TaskQuery undated", DatabaseHelper.taskQuerySql(new TaskQuery()
+                .sortBy(TaskQuery.Sort.DEADLINE), new Task(), false), failures);
+        // Search box pages: first page, after a title hit, after the title hits
+        TaskQuery search = new TaskQuery().text("meet").sortBy(TaskQuery.Sort.RELEVANCE);
+        checkPlan(db, "TaskQuery relevance", DatabaseHelper.taskQuerySql(search, null, false), failures);
+        checkPlan(db, "TaskQuery relevance title", DatabaseHelper.taskQuerySql(search, dated, true), failures);
+        checkPlan(db, "TaskQuery relevance other", DatabaseHelper.taskQuerySql(search, dated, false), failures);
+
+        assertTrue("No SQL_ queries found", checked > 0);
+        assertTrue("Full table scans:\n" + String.join("\n", failures), failures.isEmpty());
+    }
+
+    private void checkPlan(SQLiteDatabase db, String name, String sql, List<String> failures) {
+        String[] args = new String[countPlaceholders(sql)];
+        Arrays.fill(args, "1");
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            Set<String> subqueries = new HashSet<>();
+            while (cursor.moveToNext()) {
+                String detail = cursor.getString(detailIndex);
+                Matcher subquery = SUBQUERY.matcher(detail);
+                if (subquery.find()) {
+                    subqueries.add(subquery.group(2));
+                    continue;
+                }
+                Matcher scan = FULL_SCAN.matcher(detail);
+                if (scan.find() && !subqueries.contains(scan.group(2))) {
+                    failures.add(name + ": " + detail);
+                }
+            }
+        }
+    }
+
+    private int countPlaceholders(String sql) {
+        int count = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.todolist;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Expands reminder policies one fire time at a time: the default daily reminders, offsets before the
+ * deadline, escalation, quiet hours, the stored text form, and which policy a task follows.
+ */
+public class ReminderPolicyTest {
+
+    private static final long MINUTE = 60 * 1000L;
+
+    @Test
+    public void defaultPolicyCoversTheWeekBeforeTheDeadline() {
+        long deadline = at(20, 12, 0);
+        long monthBefore = deadline - 30 * 24 * 60 * MINUTE;
+
+        List<Long> times = ReminderPolicy.DEFAULT.fireTimes(deadline, monthBefore);
+        assertEquals(24, times.size());
+        assertEquals(at(13, 9, 43), times.get(0).longValue());
+        assertEquals(at(13, 14, 43), times.get(1).longValue());
+        assertEquals(at(20, 18, 43), times.get(times.size() - 1).longValue());
+
+        // Only the ones still ahead
+        assertEquals(Arrays.asList(at(20, 14, 43), at(20, 18, 43)), ReminderPolicy.DEFAULT.fireTimes(deadline, deadline));
+        assertEquals(ReminderScheduler.NONE, ReminderPolicy.DEFAULT.nextFireTime(TaskDates.NO_DATE, monthBefore));
+        assertEquals(ReminderScheduler.NONE, ReminderPolicy.DEFAULT.nextFireTime(deadline, at(21, 0, 0)));
+    }
+
+    @Test
+    public void offsetsAndEscalationCountDownToTheDeadline() {
+        long deadline = at(20, 12, 0);
+        ReminderPolicy policy = new ReminderPolicy().before(24 * 60, 60).escalate(30, 10);
+
+        assertEquals(Arrays.asList(deadline - 24 * 60 * MINUTE, deadline - 60 * MINUTE, deadline - 30 * MINUTE,
+                deadline - 20 * MINUTE, deadline - 10 * MINUTE, deadline), policy.fireTimes(deadline, at(1, 0, 0)));
+        // Mid-escalation the next one is the next step, not the start of the stretch
+        assertEquals(deadline - 10 * MINUTE, policy.nextFireTime(deadline, deadline - 15 * MINUTE));
+    }
+
+    @Test
+    public void quietHoursHoldRemindersUntilTheyEnd() {
+        long deadline = at(20, 12, 0);
+        ReminderPolicy policy = new ReminderPolicy().daily(1, 6 * 60, 23 * 60).quietHours(22 * 60, 7 * 60);
+
+        // 19th 06:00 waits until 07:00; 19th 23:00 and 20th 06:00 share 20th 07:00; 20th 23:00 would wait past
+        // the deadline, so it keeps its time
+        assertEquals(Arrays.asList(at(19, 7, 0), at(20, 7, 0), at(20, 23, 0)), policy.fireTimes(deadline, at(1, 0, 0)));
+    }
+
+    @Test
+    public void textFormRoundTrips() {
+        String text = "before=60,1440;daily=7@09:43,14:43,18:43;escalate=180/30;quiet=22:00-07:00";
+        ReminderPolicy policy = ReminderPolicy.parse(text);
+        assertEquals(text, policy.format());
+        assertEquals(ReminderPolicy.DEFAULT.before(1440, 60).escalate(180, 30).quietHours(22 * 60, 7 * 60), policy);
+        assertEquals(ReminderPolicy.DEFAULT, ReminderPolicy.parse(ReminderPolicy.DEFAULT.format()));
+
+        assertNull(ReminderPolicy.parse(null));
+        assertNull(ReminderPolicy.parse(""));
+        for (String bad : new String[]{"daily", "daily=x@09:00", "quiet=25:00-07:00", "escalate=60/1", "every=5"}) {
+            try {
+                ReminderPolicy.parse(bad);
+                fail("Parsed " + bad);
+            } catch (IllegalArgumentException expected) {
+                // Unreadable text is rejected rather than half applied
+            }
+        }
+    }
+
+    @Test
+    public void taskPolicyWinsOverTagPolicies() {
+        Task task = new Task("Report", "", null);
+        assertEquals(ReminderPolicy.DEFAULT, ReminderPolicy.forTask(task));
+
+        Tag work = new Tag(5, "Work", "#2196F3");
+        work.setReminderPolicy(new ReminderPolicy().before(60));
+        Tag urgent = new Tag(2, "Urgent", "#F44336");
+        urgent.setReminderPolicy(new ReminderPolicy().escalate(120, 15));
+        task.addTag(work);
+        task.addTag(new Tag(1, "Home", "#4CAF50"));
+        task.addTag(urgent);
+        assertEquals(urgent.getReminderPolicy(), ReminderPolicy.forTask(task));
+
+        ReminderPolicy own = new ReminderPolicy().before(30);
+        task.setReminderPolicy(own);
+        assertEquals(own, ReminderPolicy.forTask(task));
+        assertEquals(own, ReminderPolicy.forTask(new Task(task)));
+    }
+
+    // Local time on a day of March 2026
+    private static long at(int day, int hour, int minute) {
+        Calendar time = Calendar.getInstance();
+        time.set(2026, Calendar.MARCH, day, hour, minute, 0);
+        time.set(Calendar.MILLISECOND, 0);
+        return time.getTimeInMillis();
+    }
+}
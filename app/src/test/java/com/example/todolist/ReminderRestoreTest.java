@@ -0,0 +1,85 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Restores the reminder alarm the way ReminderRestoreReceiver does after a reboot, from a freshly opened
+ * database holding reminders for 10,000 tasks; it must arm the earliest reminder. ReminderRestoreBenchmarkTest
+ * times the same restore on a device. Also checks that deleting a task removes its stored reminder, so nothing
+ * is left to restore for it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ReminderRestoreTest {
+
+    private static final int TASK_COUNT = 10_000;
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void coldRestoreOfTenThousandTasks() {
+        long now = System.currentTimeMillis();
+        long earliest = Long.MAX_VALUE;
+        List<ReminderScheduler.Reminder> reminders = new ArrayList<>();
+        for (int taskId = 1; taskId <= TASK_COUNT; taskId++) {
+            long deadlineAt = now + (taskId % 30 + 1) * DAY;
+            long fireAt = ReminderPolicy.DEFAULT.nextFireTime(deadlineAt, now);
+            reminders.add(new ReminderScheduler.Reminder(taskId, fireAt, deadlineAt, ReminderPolicy.DEFAULT));
+            earliest = Math.min(earliest, fireAt);
+        }
+        DatabaseHelper.getInstance(RuntimeEnvironment.getApplication()).saveReminders(reminders);
+        // Cold: nothing open and nothing known about the alarm, as in a process started for BOOT_COMPLETED
+        DatabaseHelper.resetInstance();
+
+        long[] armedAt = {ReminderScheduler.NONE};
+        ReminderScheduler.Alarm alarm = new ReminderScheduler.Alarm() {
+            @Override
+            public void arm(long triggerAtMillis) {
+                armedAt[0] = triggerAtMillis;
+            }
+
+            @Override
+            public void disarm() {
+                armedAt[0] = ReminderScheduler.NONE;
+            }
+        };
+
+        ReminderScheduler scheduler = new ReminderScheduler(DatabaseHelper.getInstance(RuntimeEnvironment.getApplication()),
+                alarm, System::currentTimeMillis);
+        scheduler.restore();
+
+        assertEquals(earliest, armedAt[0]);
+    }
+
+    @Test
+    public void deletedTaskLeavesNoReminderBehind() {
+        DatabaseHelper databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        long now = System.currentTimeMillis();
+        Task task = new Task("Deleted before its reminder", "", null);
+        task.setDeadlineAt(now + DAY);
+        int taskId = (int) databaseHelper.addTask(task);
+        long fireAt = ReminderPolicy.DEFAULT.nextFireTime(task.getDeadlineAt(), now);
+        databaseHelper.saveReminders(Collections.singletonList(
+                new ReminderScheduler.Reminder(taskId, fireAt, task.getDeadlineAt(), ReminderPolicy.DEFAULT)));
+        assertEquals(fireAt, databaseHelper.getNextReminderTime());
+
+        // Gone with the task, before any ReminderAlarmManager.cancelReminder has run
+        databaseHelper.deleteTask(taskId);
+        assertEquals(ReminderScheduler.NONE, databaseHelper.getNextReminderTime());
+    }
+}
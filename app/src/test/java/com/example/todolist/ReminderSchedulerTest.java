@@ -0,0 +1,257 @@
+package com.example.todolist;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives ReminderScheduler with a fake clock through a month of reminders for 10,000 tasks. The store must
+ * hold at most one reminder per task, the single alarm must be armed once per wakeup, every reminder must
+ * fire once in the wakeup for its time (a late alarm collapses the missed ones into one per task), and
+ * completed tasks must stop firing.
+ */
+public class ReminderSchedulerTest {
+
+    private static final int TASK_COUNT = 10_000;
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+    private static final int DEADLINE_DAYS = 30;
+
+    @Test
+    public void monthOfRemindersForTenThousandTasks() {
+        FakeClock clock = new FakeClock();
+        Calendar start = Calendar.getInstance();
+        start.set(2026, Calendar.MARCH, 1, 0, 0, 0);
+        start.set(Calendar.MILLISECOND, 0);
+        clock.now = start.getTimeInMillis();
+
+        MemoryStore store = new MemoryStore();
+        FakeAlarm alarm = new FakeAlarm();
+        ReminderScheduler scheduler = new ReminderScheduler(store, alarm, clock);
+
+        // Expected task ids per fire time
+        TreeMap<Long, Set<Integer>> expected = new TreeMap<>();
+        Random random = new Random(7);
+        for (int taskId = 1; taskId <= TASK_COUNT; taskId++) {
+            long deadline = clock.now + random.nextInt(DEADLINE_DAYS) * DAY + random.nextInt(24) * HOUR;
+            scheduler.schedule(taskId, deadline, ReminderPolicy.DEFAULT);
+            for (long fireAt : ReminderPolicy.DEFAULT.fireTimes(deadline, clock.now)) {
+                expected.computeIfAbsent(fireAt, t -> new HashSet<>()).add(taskId);
+            }
+        }
+        assertEquals(expected.firstKey().longValue(), alarm.armedAt);
+        int stored = store.size();
+        assertTrue("More than one stored reminder per task: " + stored, stored <= TASK_COUNT);
+        alarm.armCount = 0;
+
+        int wakeups = 0;
+        boolean completedSome = false;
+        boolean deliveredLate = false;
+        while (alarm.armedAt != ReminderScheduler.NONE) {
+            assertTrue("Alarm armed in the past", alarm.armedAt > clock.now);
+            clock.now = alarm.armedAt;
+            if (!deliveredLate && clock.now > start.getTimeInMillis() + 20 * DAY) {
+                // Held back by doze past the next slot: both slots' reminders arrive together, once per task
+                clock.now += 5 * HOUR + 30 * 60 * 1000L;
+                deliveredLate = true;
+            }
+
+            List<Integer> fired = deliver(scheduler);
+            wakeups++;
+
+            Set<Integer> due = new HashSet<>();
+            Iterator<Map.Entry<Long, Set<Integer>>> slots = expected.headMap(clock.now + ReminderScheduler.DELIVERY_WINDOW_MS, true).entrySet().iterator();
+            while (slots.hasNext()) {
+                due.addAll(slots.next().getValue());
+                slots.remove();
+            }
+            assertEquals("Tasks reminded more than once in one wakeup", fired.size(), new HashSet<>(fired).size());
+            assertEquals(due, new HashSet<>(fired));
+
+            if (!completedSome && clock.now > start.getTimeInMillis() + 10 * DAY) {
+                // Every tenth task is completed; none of them may fire again
+                for (int taskId = 10; taskId <= TASK_COUNT; taskId += 10) {
+                    scheduler.cancel(taskId);
+                    for (Set<Integer> taskIds : expected.values()) {
+                        taskIds.remove(taskId);
+                    }
+                }
+                expected.values().removeIf(Set::isEmpty);
+                completedSome = true;
+            }
+        }
+
+        assertTrue(completedSome && deliveredLate);
+        assertTrue("More than one stored reminder per task: " + store.maxSize, store.maxSize <= TASK_COUNT);
+        assertTrue("Reminders never fired: " + expected.keySet(), expected.isEmpty());
+        assertEquals(0, store.size());
+        // One arm per wakeup except the last, which disarms; cancelling tasks behind the head never moved the alarm
+        assertEquals(wakeups - 1, alarm.armCount);
+        // Three daily slots over the deadline window plus the week before it
+        assertTrue("Too many wakeups: " + wakeups, wakeups <= 3 * (DEADLINE_DAYS + 8));
+    }
+
+    @Test
+    public void remindersWithinTheWindowShareOneWakeup() {
+        FakeClock clock = new FakeClock();
+        MemoryStore store = new MemoryStore();
+        FakeAlarm alarm = new FakeAlarm();
+        ReminderScheduler scheduler = new ReminderScheduler(store, alarm, clock);
+
+        // One reminder ten minutes before each deadline
+        ReminderPolicy policy = new ReminderPolicy().before(10);
+        long slot = 1_000 * DAY;
+        long tenMinutes = 10 * 60 * 1000L;
+        scheduler.schedule(1, slot + tenMinutes, policy);
+        scheduler.schedule(2, slot + 30 * 1000L + tenMinutes, policy);
+        scheduler.schedule(3, slot + 5 * 60 * 1000L + tenMinutes, policy);
+        assertEquals(slot, alarm.armedAt);
+
+        clock.now = slot;
+        assertEquals(Arrays.asList(1, 2), deliver(scheduler));
+        assertEquals(slot + 5 * 60 * 1000L, alarm.armedAt);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void remindersReadBeforeACrashAreDeliveredAgain() {
+        FakeClock clock = new FakeClock();
+        MemoryStore store = new MemoryStore();
+        ReminderPolicy policy = new ReminderPolicy().before(60, 10);
+        long deadline = 1_000 * DAY;
+        long firstReminder = deadline - HOUR;
+        ReminderScheduler scheduler = new ReminderScheduler(store, new FakeAlarm(), clock);
+        scheduler.schedule(1, deadline, policy);
+        scheduler.schedule(2, deadline, policy);
+        scheduler.schedule(3, deadline + DAY, policy);
+
+        // The process dies after reading the due reminders but before acknowledging them
+        clock.now = firstReminder;
+        assertEquals(Arrays.asList(1, 2), taskIds(scheduler.getDueReminders()));
+        assertEquals(3, store.size());
+
+        // A new process restores the alarm for the reminders still stored, and it fires straight away
+        FakeAlarm alarm = new FakeAlarm();
+        scheduler = new ReminderScheduler(store, alarm, clock);
+        scheduler.restore();
+        assertEquals(firstReminder, alarm.armedAt);
+        clock.now += 5 * 1000L;
+        List<ReminderScheduler.Reminder> due = scheduler.getDueReminders();
+        assertEquals(Arrays.asList(1, 2), taskIds(due));
+
+        // Task 2 is completed while its notification is posted; acknowledging must not bring its reminder back
+        scheduler.cancel(2);
+        scheduler.acknowledge(due);
+        assertEquals(deadline - 10 * 60 * 1000L, alarm.armedAt);
+        assertEquals(2, store.size());
+        clock.now = alarm.armedAt;
+        assertEquals(Collections.singletonList(1), deliver(scheduler));
+    }
+
+    // Delivers what the alarm finds due, as ReminderReceiver does, and returns the tasks reminded
+    private static List<Integer> deliver(ReminderScheduler scheduler) {
+        List<ReminderScheduler.Reminder> due = scheduler.getDueReminders();
+        scheduler.acknowledge(due);
+        return taskIds(due);
+    }
+
+    private static List<Integer> taskIds(List<ReminderScheduler.Reminder> reminders) {
+        List<Integer> taskIds = new ArrayList<>();
+        for (ReminderScheduler.Reminder reminder : reminders) {
+            taskIds.add(reminder.getTaskId());
+        }
+        return taskIds;
+    }
+
+    private static class FakeClock implements ReminderScheduler.Clock {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private static class FakeAlarm implements ReminderScheduler.Alarm {
+        long armedAt = ReminderScheduler.NONE;
+        int armCount;
+
+        @Override
+        public void arm(long triggerAtMillis) {
+            armedAt = triggerAtMillis;
+            armCount++;
+        }
+
+        @Override
+        public void disarm() {
+            armedAt = ReminderScheduler.NONE;
+        }
+    }
+
+    // In-memory stand-in for the reminders table
+    private static class MemoryStore implements ReminderScheduler.Store {
+        private final TreeMap<Long, Map<Integer, ReminderScheduler.Reminder>> byTime = new TreeMap<>();
+        private final Map<Integer, ReminderScheduler.Reminder> byTask = new HashMap<>();
+        int maxSize;
+
+        @Override
+        public void saveReminders(List<ReminderScheduler.Reminder> reminders) {
+            for (ReminderScheduler.Reminder reminder : reminders) {
+                deleteReminders(reminder.getTaskId());
+                if (reminder.getFireAt() != ReminderScheduler.NONE) {
+                    byTime.computeIfAbsent(reminder.getFireAt(), t -> new HashMap<>()).put(reminder.getTaskId(), reminder);
+                    byTask.put(reminder.getTaskId(), reminder);
+                }
+            }
+            maxSize = Math.max(maxSize, size());
+        }
+
+        @Override
+        public void deleteReminders(int taskId) {
+            ReminderScheduler.Reminder reminder = byTask.remove(taskId);
+            if (reminder == null) {
+                return;
+            }
+            Map<Integer, ReminderScheduler.Reminder> slot = byTime.get(reminder.getFireAt());
+            slot.remove(taskId);
+            if (slot.isEmpty()) {
+                byTime.remove(reminder.getFireAt());
+            }
+        }
+
+        @Override
+        public long getNextReminderTime() {
+            return byTime.isEmpty() ? ReminderScheduler.NONE : byTime.firstKey();
+        }
+
+        @Override
+        public List<ReminderScheduler.Reminder> getDueReminders(long nowMillis) {
+            List<ReminderScheduler.Reminder> due = new ArrayList<>();
+            for (Map<Integer, ReminderScheduler.Reminder> slot : byTime.headMap(nowMillis, true).values()) {
+                List<Integer> taskIds = new ArrayList<>(slot.keySet());
+                Collections.sort(taskIds);
+                for (int taskId : taskIds) {
+                    due.add(slot.get(taskId));
+                }
+            }
+            return due;
+        }
+
+        int size() {
+            return byTask.size();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.todolist;
+
+import android.database.Cursor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the trigger-maintained tags.usage_count counters match a GROUP BY over task_tags.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TagUsageCountsTest {
+
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void countersFollowEveryTaskTagWrite() {
+        List<Tag> tags = databaseHelper.getAllTags();
+        Tag work = tags.get(0);
+        Tag home = tags.get(1);
+        Tag urgent = tags.get(2);
+
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Task task = new Task("Task " + i, "", null);
+            task.getTags().add(work);
+            if (i % 2 == 0) {
+                task.getTags().add(home);
+            }
+            tasks.add(task);
+        }
+        databaseHelper.addTasks(tasks);
+        assertCountersMatchTaskTags();
+
+        databaseHelper.addTaskTag(tasks.get(0).getId(), urgent.getId());
+        databaseHelper.addTaskTag(tasks.get(0).getId(), urgent.getId()); // already linked, not counted twice
+        databaseHelper.removeTaskTag(tasks.get(1).getId(), work.getId());
+        databaseHelper.updateTaskTags(tasks.get(2).getId(), Arrays.asList(urgent));
+        databaseHelper.deleteTask(tasks.get(3).getId());
+        assertCountersMatchTaskTags();
+
+        Map<Tag, Integer> counts = databaseHelper.getTagUsageCounts();
+        assertEquals(Integer.valueOf(3), counts.get(work));
+        assertEquals(Integer.valueOf(2), counts.get(home));
+        assertEquals(Integer.valueOf(2), counts.get(urgent));
+
+        // Unused tags are left out; deleting a tag drops its links and its entry
+        databaseHelper.deleteTag(urgent.getId());
+        counts = databaseHelper.getTagUsageCounts();
+        assertFalse(counts.containsKey(urgent));
+        assertFalse(counts.containsKey(tags.get(3)));
+        assertCountersMatchTaskTags();
+    }
+
+    private void assertCountersMatchTaskTags() {
+        Map<Integer, Integer> expected = new HashMap<>();
+        try (Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(DatabaseHelper.SQL_TAG_USAGE_FROM_TASK_TAGS, null)) {
+            while (cursor.moveToNext()) {
+                expected.put(cursor.getInt(0), cursor.getInt(1));
+            }
+        }
+        Map<Integer, Integer> actual = new HashMap<>();
+        for (Map.Entry<Tag, Integer> entry : databaseHelper.getTagUsageCounts().entrySet()) {
+            actual.put(entry.getKey().getId(), entry.getValue());
+        }
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.todolist;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks TaskCache's generation guard against stale reads, its copies in and out, and the hit/miss counters.
+ * Robolectric only for android.util.LruCache.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TaskCacheTest {
+
+    @Test
+    public void readStartedBeforeAnInvalidateIsNotCached() {
+        TaskCache cache = new TaskCache(10);
+
+        // A reader takes the generation and loads the old row; a write commits and invalidates meanwhile
+        long readGeneration = cache.generation();
+        Task stale = task(1, "Old title");
+        cache.invalidate(1);
+        cache.put(stale, readGeneration);
+        assertNull(cache.get(1));
+
+        // The same for an invalidation of every task
+        readGeneration = cache.generation();
+        cache.invalidateAll();
+        cache.put(stale, readGeneration);
+        assertNull(cache.get(1));
+
+        // A read after the write is cached
+        cache.put(task(1, "New title"), cache.generation());
+        assertEquals("New title", cache.get(1).getTitle());
+
+        // Invalidating another task still refuses reads that overlapped it, but keeps task 1
+        readGeneration = cache.generation();
+        cache.invalidate(2);
+        cache.put(task(2, "Stale"), readGeneration);
+        assertNull(cache.get(2));
+        assertEquals("New title", cache.get(1).getTitle());
+    }
+
+    @Test
+    public void callersOnlyEverChangeCopies() {
+        TaskCache cache = new TaskCache(10);
+        Task task = task(1, "Report");
+        task.addTag(new Tag(3, "Work", "#2196F3"));
+        cache.put(task, cache.generation());
+
+        // The task handed to put stays the caller's
+        task.setTitle("Changed before get");
+        task.getTags().get(0).setName("Changed tag");
+
+        Task first = cache.get(1);
+        assertEquals("Report", first.getTitle());
+        assertEquals("Work", first.getTags().get(0).getName());
+
+        // So does every task get returns
+        first.setTitle("Changed after get");
+        first.setCompleted(true);
+        first.getTags().get(0).setName("Home");
+        first.getTags().add(new Tag(4, "Urgent", "#F44336"));
+
+        Task second = cache.get(1);
+        assertNotSame(first, second);
+        assertEquals("Report", second.getTitle());
+        assertFalse(second.isCompleted());
+        assertEquals(1, second.getTags().size());
+        assertEquals("Work", second.getTags().get(0).getName());
+    }
+
+    @Test
+    public void countersFollowHitsAndMisses() {
+        TaskCache cache = new TaskCache(2);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        cache.put(task(1, "One"), cache.generation());
+        cache.put(task(2, "Two"), cache.generation());
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.size());
+
+        // Over capacity the least recently used task goes
+        cache.put(task(3, "Three"), cache.generation());
+        assertEquals(2, cache.size());
+        assertNull(cache.get(1));
+        assertEquals(2, cache.missCount());
+
+        // A refused stale put is neither a hit nor a miss
+        long readGeneration = cache.generation();
+        cache.invalidate(3);
+        cache.put(task(3, "Three"), readGeneration);
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+        assertEquals(1, cache.size());
+    }
+
+    private static Task task(int id, String title) {
+        Task task = new Task(title, "", null);
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that task lists come back with each task's tags, both when loadTagsForTasks filters task_tags by id
+ * and when the result is too large for one IN list and the whole junction table is read instead.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class TaskTagsHydrationTest {
+
+    // Past the 999 bound parameters one IN list can take
+    private static final int LARGE_TASK_COUNT = 1_200;
+
+    private DatabaseHelper databaseHelper;
+    private Tag work;
+    private Tag home;
+    private Tag urgent;
+
+    @Before
+    public void setUp() {
+        databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        List<Tag> tags = databaseHelper.getAllTags();
+        work = tags.get(0);
+        home = tags.get(1);
+        urgent = tags.get(2);
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void smallResultsGetTheirTags() {
+        Map<Integer, Set<Integer>> expected = addTasks(8);
+
+        List<Task> tasks = databaseHelper.getAllTasks();
+        assertEquals(8, tasks.size());
+        assertTagsMatch(expected, tasks);
+
+        // Tasks sharing a tag share one Tag instance
+        Tag first = null;
+        for (Task task : tasks) {
+            for (Tag tag : task.getTags()) {
+                if (tag.getId() == work.getId()) {
+                    if (first == null) {
+                        first = tag;
+                    }
+                    assertSame(first, tag);
+                    assertEquals(work.getName(), tag.getName());
+                    assertEquals(work.getColor(), tag.getColor());
+                }
+            }
+        }
+        assertNotNull(first);
+    }
+
+    @Test
+    public void resultsPastTheParameterLimitGetTheirTags() {
+        Map<Integer, Set<Integer>> expected = addTasks(LARGE_TASK_COUNT);
+
+        List<Task> all = databaseHelper.getAllTasks();
+        assertEquals(LARGE_TASK_COUNT, all.size());
+        assertTagsMatch(expected, all);
+
+        // Over the limit but not every task: junction rows of tasks outside the page are skipped
+        List<Task> page = databaseHelper.getTasksPage(null, DatabaseHelper.FIRST_PAGE, 1_000);
+        assertEquals(1_000, page.size());
+        assertTagsMatch(expected, page);
+
+        // Looked up in chunks, each under the limit
+        List<Task> byIds = databaseHelper.getTasksByIds(new ArrayList<>(expected.keySet()));
+        assertEquals(LARGE_TASK_COUNT, byIds.size());
+        assertTagsMatch(expected, byIds);
+    }
+
+    // Tags cycle through none, work, work+home and work+home+urgent; returns the tag ids per new task id
+    private Map<Integer, Set<Integer>> addTasks(int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Task task = new Task("Task " + i, "", null);
+            if (i % 4 >= 1) {
+                task.getTags().add(work);
+            }
+            if (i % 4 >= 2) {
+                task.getTags().add(home);
+            }
+            if (i % 4 == 3) {
+                task.getTags().add(urgent);
+            }
+            tasks.add(task);
+        }
+        assertEquals(count, databaseHelper.addTasks(tasks));
+
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+        for (Task task : tasks) {
+            expected.put(task.getId(), tagIds(task));
+        }
+        return expected;
+    }
+
+    private static void assertTagsMatch(Map<Integer, Set<Integer>> expected, List<Task> tasks) {
+        for (Task task : tasks) {
+            assertEquals("tags of task " + task.getId(), expected.get(task.getId()), tagIds(task));
+            // Each link once
+            assertEquals(tagIds(task).size(), task.getTags().size());
+        }
+    }
+
+    private static Set<Integer> tagIds(Task task) {
+        Set<Integer> ids = new TreeSet<>();
+        for (Tag tag : task.getTags()) {
+            ids.add(tag.getId());
+        }
+        return ids;
+    }
+}
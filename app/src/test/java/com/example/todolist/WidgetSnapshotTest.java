@@ -0,0 +1,102 @@
+package com.example.todolist;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the widget snapshot kept by task writes matches a direct due-soon query, and that a missing,
+ * corrupt or stale snapshot is rebuilt on read.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class WidgetSnapshotTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private DatabaseHelper databaseHelper;
+
+    @Before
+    public void setUp() {
+        databaseHelper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetInstance();
+    }
+
+    @Test
+    public void snapshotFollowsEveryTaskWrite() {
+        long today = TaskDates.startOfDay(0);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Task task = new Task("Task " + i, "", null);
+            task.setDeadlineAt(today + (i + 1) * 24 * HOUR);
+            tasks.add(task);
+        }
+        Task later = new Task("Later", "", null);
+        later.setDeadlineAt(today + 30 * 24 * HOUR); // outside the window
+        tasks.add(later);
+        databaseHelper.addTasks(tasks);
+        assertSnapshotMatchesTasks();
+        assertEquals(4, databaseHelper.getWidgetSnapshot().getTaskCount());
+
+        Task first = tasks.get(0);
+        first.setCompleted(true);
+        databaseHelper.updateTask(first);
+        assertSnapshotMatchesTasks();
+
+        databaseHelper.deleteTask(tasks.get(1).getId());
+        assertSnapshotMatchesTasks();
+
+        Task dueToday = new Task("Today", "", null);
+        dueToday.setDeadlineAt(today + HOUR);
+        databaseHelper.addTask(dueToday);
+        assertSnapshotMatchesTasks();
+        assertEquals("Today", databaseHelper.getWidgetSnapshot().getTasks().get(0).getTitle());
+        assertEquals(3, databaseHelper.getWidgetSnapshot().getTaskCount());
+    }
+
+    @Test
+    public void missingCorruptOrStaleSnapshotIsRebuilt() {
+        Task task = new Task("Due", "", null);
+        task.setDeadlineAt(TaskDates.startOfDay(1));
+        databaseHelper.addTask(task);
+
+        databaseHelper.getWritableDatabase().execSQL("DELETE FROM widget_snapshot");
+        assertSnapshotMatchesTasks();
+
+        databaseHelper.getWritableDatabase().execSQL("UPDATE widget_snapshot SET tasks = 'not json'");
+        assertSnapshotMatchesTasks();
+
+        databaseHelper.getWritableDatabase().execSQL("UPDATE widget_snapshot SET day_start = day_start - "
+                + 24 * HOUR + ", task_count = 0, tasks = '[]'");
+        WidgetSnapshot snapshot = databaseHelper.getWidgetSnapshot();
+        assertEquals(TaskDates.startOfDay(0), snapshot.getDayStart());
+        assertEquals(1, snapshot.getTaskCount());
+    }
+
+    private void assertSnapshotMatchesTasks() {
+        long start = TaskDates.startOfDay(0);
+        long end = TaskDates.endOfDay(TaskDates.DUE_SOON_DAYS);
+        List<Task> expected = databaseHelper.getIncompleteTasksDueBetween(start, end, WidgetSnapshot.MAX_TASKS);
+
+        WidgetSnapshot snapshot = databaseHelper.getWidgetSnapshot();
+        assertEquals(databaseHelper.countIncompleteTasksDueBetween(start, end), snapshot.getTaskCount());
+        assertEquals(expected.size(), snapshot.getTasks().size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTitle(), snapshot.getTasks().get(i).getTitle());
+            assertEquals(expected.get(i).getDeadlineAt(), snapshot.getTasks().get(i).getDeadlineAt());
+        }
+    }
+}